@@ -0,0 +1,240 @@
+package cocoball.springbatchstudy;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.WriteFailedException;
+import org.springframework.batch.item.support.AbstractItemStreamItemWriter;
+import org.springframework.core.io.Resource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * chunk 내용을 재사용하는 ByteBuffer에 모았다가 commit 직전에 FileChannel로 한 번에 기록하는 writer의 공통 부분
+ * - chunk가 롤백되면 buffer를 버리고 마지막 commit 위치로 파일을 잘라냄
+ * - 마지막 commit 위치를 ExecutionContext에 저장하고, 재시작 시 그 위치로 파일을 잘라낸 뒤 이어서 씀
+ * - 아이템 값을 꺼내다 예외가 나면 이번 write에서 buffer에 기록한 내용을 되돌림
+ * 하위 클래스는 encode에서 buffer에 아이템을 기록하고, 필요하면 header / footer, commit 직전 변환(압축 등)을 구현
+ * (FlatFileItemWriter와 마찬가지로 thread-safe 하지 않음)
+ */
+public abstract class AbstractFileChannelItemWriter<T> extends AbstractItemStreamItemWriter<T> {
+
+    private static final String POSITION_KEY = "position";
+
+    protected final Resource resource;
+    private final boolean append;
+
+    protected ByteBuffer buffer;
+    private FileChannel channel;
+    private long committedPosition;
+
+    protected AbstractFileChannelItemWriter(String name, Resource resource, int bufferSize, boolean append) {
+        Assert.hasText(name, "name은 필수 (ExecutionContext key로 사용)");
+        Assert.notNull(resource, "resource는 필수");
+
+        setName(name);
+        this.resource = resource;
+        this.append = append;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    // items를 buffer에 기록 (ensureCapacity로 공간을 확보한 뒤 기록)
+    protected abstract void encode(List<? extends T> items);
+
+    // 새 파일(append 시에는 빈 파일)에 처음 기록하는 내용, buffer에 기록한 뒤 flush
+    protected void writeHeader() throws IOException {
+    }
+
+    // close 시 마지막으로 기록하는 내용, buffer에 기록한 뒤 flush
+    protected void writeFooter() throws IOException {
+    }
+
+    // commit 시 파일에 기록할 내용 (압축 등 변환이 필요하면 변환한 buffer를 반환)
+    protected ByteBuffer pending() {
+        return buffer;
+    }
+
+    // commit 되지 않은 내용을 버림
+    protected void discardPending() {
+        buffer.clear();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        String key = getExecutionContextKey(POSITION_KEY);
+
+        try {
+            Path path = resource.getFile().toPath();
+
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+
+            if (executionContext.containsKey(key)) {
+                // 재시작 : 마지막 commit 이후에 기록된 내용은 잘라내고 이어서 씀
+                long position = executionContext.getLong(key);
+                this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+                if (channel.size() < position) {
+                    throw new ItemStreamException("재시작 위치(" + position + ")보다 파일 크기(" + channel.size() + ")가 작음 : " + path);
+                }
+
+                channel.truncate(position);
+                channel.position(position);
+            } else if (append) {
+                this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+
+                if (channel.size() == 0) {
+                    writeHeader();
+                }
+            } else {
+                this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                writeHeader();
+            }
+
+            this.committedPosition = channel.position();
+        } catch (IOException e) {
+            throw new ItemStreamException("파일을 열 수 없음 : " + resource, e);
+        }
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+
+        if (items.isEmpty()) {
+            return;
+        }
+
+        // 트랜잭션 안에서는 buffer를 채우기 전에 먼저 등록 (기록 중 예외로 롤백되어도 afterCompletion에서 buffer를 비움)
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+
+        if (transactional) {
+            registerSynchronization();
+        }
+
+        // 아이템 값을 꺼내다 예외가 나면 이번 write에서 기록한 내용(중간까지 쓴 라인, row group 포함)을 되돌림
+        int mark = buffer.position();
+
+        try {
+            encode(items);
+        } catch (RuntimeException | Error e) {
+            buffer.position(mark);
+            throw e;
+        }
+
+        if (!transactional) {
+            flush(); // 트랜잭션 밖에서는 바로 기록
+            this.committedPosition = channel.position();
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        // update는 commit 직전에 호출되므로 이번 commit에서 기록될 크기까지 포함
+        if (channel != null) {
+            executionContext.putLong(getExecutionContextKey(POSITION_KEY), committedPosition + pending().position());
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            discardPending(); // commit 되지 않은 내용은 버림
+            writeFooter();
+            channel.close();
+        } catch (IOException e) {
+            throw new ItemStreamException("파일을 닫을 수 없음 : " + resource, e);
+        } finally {
+            this.channel = null;
+        }
+    }
+
+    // buffer에 모인 내용을 파일에 기록 (buffer는 다음 chunk에서 재사용)
+    protected void flush() throws IOException {
+        ByteBuffer pending = pending();
+        pending.flip();
+
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+
+        pending.clear();
+    }
+
+    // chunk 전체를 commit 시점에 기록하므로 가득 차면 flush 하지 않고 buffer를 늘림
+    protected void ensureCapacity(int size) {
+        this.buffer = ensureCapacity(buffer, size);
+    }
+
+    protected static ByteBuffer ensureCapacity(ByteBuffer buffer, int size) {
+        if (buffer.remaining() >= size) {
+            return buffer;
+        }
+
+        ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + size)).order(buffer.order());
+        buffer.flip();
+        larger.put(buffer);
+
+        return larger;
+    }
+
+    // chunk 트랜잭션 당 한 번만 등록 : commit 직전에 기록, 롤백 시 마지막 commit 위치로 되돌림
+    private void registerSynchronization() {
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    throw new WriteFailedException("파일 기록 실패 : " + resource, e);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AbstractFileChannelItemWriter.this);
+                completeTransaction(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private void completeTransaction(boolean committed) {
+        try {
+            if (committed) {
+                this.committedPosition = channel.position();
+                return;
+            }
+
+            // 롤백 : 아직 기록하지 않은 buffer는 버리고, 이미 기록했다면(DB commit 실패 등) 마지막 commit 위치로 잘라냄
+            discardPending();
+            channel.truncate(committedPosition);
+            channel.position(committedPosition);
+        } catch (IOException e) {
+            throw new ItemStreamException("파일 위치를 되돌릴 수 없음 : " + resource, e);
+        }
+    }
+}
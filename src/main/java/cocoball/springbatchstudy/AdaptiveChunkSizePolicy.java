@@ -0,0 +1,246 @@
+package cocoball.springbatchstudy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.AfterChunkError;
+import org.springframework.batch.core.annotation.AfterWrite;
+import org.springframework.batch.core.annotation.BeforeChunk;
+import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.core.annotation.BeforeWrite;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PessimisticLockException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * commit 시간이 targetCommitMillis에 가까워지도록 chunk 사이즈를 실행 중에 조절하는 CompletionPolicy
+ * - chunk 마다 read + process, write, commit 시간을 측정해서 아이템 1건당 시간으로 다음 chunk 사이즈를 계산 (한 번에 최대 2배까지만 증가)
+ * - lock timeout으로 chunk가 롤백되면 사이즈를 절반으로 줄임
+ * - 선택된 사이즈는 step ExecutionContext에 기록되고, 재시작 시 마지막 사이즈부터 시작
+ * - 멀티 스레드 step에서도 사용 가능 : 측정값은 스레드별, chunk 사이즈는 AtomicInteger로 공유하고
+ *   사이즈 변경과 ExecutionContext 기록은 한 번에 한 스레드만 수행 (각 chunk는 시작할 때의 사이즈로 끝까지 처리)
+ *
+ * 사용법 : .chunk(policy) 와 함께 .listener(policy)로 등록 (어노테이션 기반 리스너)
+ */
+@Slf4j
+public class AdaptiveChunkSizePolicy extends CompletionPolicySupport {
+
+    public static final String CURRENT_SIZE_KEY = "adaptiveChunkSize.current";
+    public static final String MIN_SIZE_KEY = "adaptiveChunkSize.min";
+    public static final String MAX_SIZE_KEY = "adaptiveChunkSize.max";
+    public static final String LAST_COMMIT_MILLIS_KEY = "adaptiveChunkSize.lastCommitMillis";
+    public static final String LAST_TRANSACTION_COMMIT_MILLIS_KEY = "adaptiveChunkSize.lastTransactionCommitMillis";
+
+    private static final double CHANGE_THRESHOLD = 0.1; // 10% 미만의 변화는 무시 (사이즈가 계속 흔들리지 않도록)
+
+    private final long targetCommitMillis;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+
+    private final AtomicInteger chunkSize;
+    private final Object adjustLock = new Object();
+
+    // 멀티 스레드 step에서는 chunk가 스레드별로 처리되므로 측정값도 스레드별로 보관
+    private final ThreadLocal<ChunkTiming> timing = ThreadLocal.withInitial(ChunkTiming::new);
+
+    public AdaptiveChunkSizePolicy(int initialChunkSize, long targetCommitMillis) {
+        this(initialChunkSize, targetCommitMillis, 10, 10_000);
+    }
+
+    public AdaptiveChunkSizePolicy(int initialChunkSize, long targetCommitMillis, int minChunkSize, int maxChunkSize) {
+        this.chunkSize = new AtomicInteger(initialChunkSize);
+        this.targetCommitMillis = targetCommitMillis;
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize.get();
+    }
+
+    // chunk를 시작할 때의 사이즈로 완료 여부를 판단 (처리 중에 다른 스레드가 사이즈를 바꿔도 영향 없음)
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        return new ChunkSizeContext(parent, chunkSize.get());
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return ((ChunkSizeContext) context).isComplete();
+    }
+
+    @Override
+    public void update(RepeatContext context) {
+        super.update(context);
+        timing.get().items++; // chunk에서 읽은 아이템 수
+    }
+
+    @BeforeStep
+    public void beforeStep(StepExecution stepExecution) {
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+
+        // 재시작 시 이전 실행에서 마지막으로 선택한 사이즈부터 시작
+        if (executionContext.containsKey(CURRENT_SIZE_KEY)) {
+            chunkSize.set(executionContext.getInt(CURRENT_SIZE_KEY));
+        }
+
+        record(executionContext, chunkSize.get());
+    }
+
+    @BeforeChunk
+    public void beforeChunk(ChunkContext chunkContext) {
+        ChunkTiming chunkTiming = timing.get();
+        chunkTiming.reset();
+
+        StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+
+        // commit 시작 / 종료 시점을 측정하기 위해 트랜잭션 콜백 등록
+        // (afterChunk는 commit이 끝난 뒤에 호출되므로 commit 시작 시점으로 쓸 수 없음)
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    chunkTiming.commitStart = System.nanoTime();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        adjust(stepExecution, chunkTiming, System.nanoTime());
+                    }
+                }
+            });
+        }
+    }
+
+    @BeforeWrite
+    public void beforeWrite(List<?> items) {
+        timing.get().writeStart = System.nanoTime();
+    }
+
+    @AfterWrite
+    public void afterWrite(List<?> items) {
+        ChunkTiming chunkTiming = timing.get();
+        chunkTiming.writeNanos += System.nanoTime() - chunkTiming.writeStart;
+    }
+
+    @AfterChunkError
+    public void afterChunkError(ChunkContext chunkContext) {
+        Throwable throwable = (Throwable) chunkContext.getAttribute(ChunkListener.ROLLBACK_EXCEPTION_KEY);
+
+        if (!isLockTimeout(throwable)) {
+            return;
+        }
+
+        // lock 대기 시간 초과 : 한 트랜잭션에서 잡는 lock 수를 줄이기 위해 사이즈를 절반으로
+        synchronized (adjustLock) {
+            int currentSize = chunkSize.get();
+            int nextSize = Math.max(minChunkSize, currentSize / 2);
+            log.warn("lock timeout, chunk size {} -> {}", currentSize, nextSize);
+
+            chunkSize.set(nextSize);
+            record(chunkContext.getStepContext().getStepExecution().getExecutionContext(), nextSize);
+        }
+    }
+
+    private void adjust(StepExecution stepExecution, ChunkTiming chunkTiming, long committedAt) {
+
+        if (chunkTiming.items == 0) {
+            return;
+        }
+
+        long totalNanos = committedAt - chunkTiming.start;
+        long commitNanos = chunkTiming.commitStart > 0 ? committedAt - chunkTiming.commitStart : 0;
+        double millisPerItem = Math.max(totalNanos / 1_000_000.0 / chunkTiming.items, 0.001);
+
+        int desiredSize = (int) Math.min(targetCommitMillis / millisPerItem, Integer.MAX_VALUE);
+
+        synchronized (adjustLock) {
+            int currentSize = chunkSize.get();
+            int nextSize = Math.max(minChunkSize, Math.min(maxChunkSize, Math.min(desiredSize, currentSize * 2)));
+
+            log.debug("chunk items {}, read + process {}ms, write {}ms, commit {}ms, chunk size {} -> {}",
+                    chunkTiming.items,
+                    (totalNanos - chunkTiming.writeNanos - commitNanos) / 1_000_000,
+                    chunkTiming.writeNanos / 1_000_000,
+                    commitNanos / 1_000_000,
+                    currentSize, nextSize);
+
+            ExecutionContext executionContext = stepExecution.getExecutionContext();
+            executionContext.putLong(LAST_COMMIT_MILLIS_KEY, totalNanos / 1_000_000);
+            executionContext.putLong(LAST_TRANSACTION_COMMIT_MILLIS_KEY, commitNanos / 1_000_000);
+
+            if (Math.abs(nextSize - currentSize) >= currentSize * CHANGE_THRESHOLD) {
+                chunkSize.set(nextSize);
+                record(executionContext, nextSize);
+            }
+        }
+    }
+
+    // 선택한 사이즈와 지금까지의 최소, 최대 사이즈를 기록 (다음 chunk commit 시 함께 저장됨)
+    private void record(ExecutionContext executionContext, int chunkSize) {
+        executionContext.putInt(CURRENT_SIZE_KEY, chunkSize);
+        executionContext.putInt(MIN_SIZE_KEY, Math.min(chunkSize, executionContext.getInt(MIN_SIZE_KEY, chunkSize)));
+        executionContext.putInt(MAX_SIZE_KEY, Math.max(chunkSize, executionContext.getInt(MAX_SIZE_KEY, chunkSize)));
+    }
+
+    private boolean isLockTimeout(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof PessimisticLockingFailureException // CannotAcquireLockException, DeadlockLoserDataAccessException 포함
+                    || t instanceof QueryTimeoutException
+                    || t instanceof LockTimeoutException
+                    || t instanceof PessimisticLockException
+                    || t instanceof SQLTimeoutException) {
+                return true;
+            }
+
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+
+        return false;
+    }
+
+    private static class ChunkSizeContext extends RepeatContextSupport {
+
+        private final int chunkSize;
+
+        private ChunkSizeContext(RepeatContext parent, int chunkSize) {
+            super(parent);
+            this.chunkSize = chunkSize;
+        }
+
+        private boolean isComplete() {
+            return getStartedCount() >= chunkSize;
+        }
+    }
+
+    private static class ChunkTiming {
+        private long start;
+        private long writeStart;
+        private long writeNanos;
+        private long commitStart;
+        private int items;
+
+        private void reset() {
+            start = System.nanoTime();
+            writeStart = 0;
+            writeNanos = 0;
+            commitStart = 0;
+            items = 0;
+        }
+    }
+}
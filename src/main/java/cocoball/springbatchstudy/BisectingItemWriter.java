@@ -0,0 +1,281 @@
+package cocoball.springbatchstudy;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.skip.SkipLimitExceededException;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * chunk 쓰기가 실패하면 실패한 item만 찾아서 skipSink로 보내고 나머지는 한 번에 기록하는 writer
+ * (faultTolerant step의 item 단위 scan - item 마다 트랜잭션 하나 - 대신 사용)
+ * 1. chunk를 그대로 delegate에 기록, 실패하면 IsolationRequiredException으로 감싸서 던짐
+ *    -> JPA는 실패한 flush가 트랜잭션을 rollback-only로 만들기 때문에 같은 트랜잭션 안에서 이어서 처리할 수 없음
+ *    -> step에 retry(IsolationRequiredException.class)를 설정해서 chunk 트랜잭션을 롤백 후 같은 chunk를 다시 기록하게 함
+ * 2. 다시 기록할 때 chunk를 절반씩 나눠서 별도 트랜잭션(REQUIRES_NEW, 항상 롤백)에서 시험 기록 -> 실패한 구간만 계속 나눔
+ *    실패 item이 k개면 O(k log n)번의 batch 기록으로 찾음
+ * 3. 실패하지 않은 item은 chunk 트랜잭션에서 한 번에 기록하고, 실패한 item은 그 뒤에 skipSink로 전달 (chunk 트랜잭션 안)
+ * 4. skipSink로 보낸 item은 step의 skip으로 집계 : chunk가 commit 되면 StepExecution의 writeCount에서 빼고 writeSkipCount에 더함
+ *    (step은 delegate에 넘긴 건수가 아니라 write에 넘긴 chunk 전체를 writeCount로 집계하므로)
+ *    step의 skip 수(다른 skip 포함)에 이번 chunk에서 분리한 item 수를 더해 skipLimit을 넘으면 SkipLimitExceededException으로 step 실패
+ * 시험 기록은 롤백되므로 delegate가 item을 변경하면 안 됨 (JpaItemWriter는 merge 사용, usePersist(true)는 id가 할당되므로 사용 불가)
+ * 따로는 성공하지만 함께 기록할 때만 실패하는 item(같은 chunk 안의 unique key 중복 등)은 찾을 수 없어서 예외를 그대로 던짐
+ * thread-safe 하지 않음
+ */
+public class BisectingItemWriter<T> implements ItemStreamWriter<T> {
+
+    private final ItemWriter<T> delegate;
+    private final TransactionTemplate probeTransactionTemplate;
+    private final SkipSink<? super T> skipSink;
+    private final List<Class<? extends Throwable>> isolatedExceptions;
+    private final int skipLimit;
+
+    private boolean isolateNextWrite;
+
+    private BisectingItemWriter(Builder<T> builder) {
+        Assert.notNull(builder.delegate, "delegate는 필수");
+        Assert.notNull(builder.transactionManager, "transactionManager는 필수");
+        Assert.notNull(builder.skipSink, "skipSink는 필수");
+
+        this.delegate = builder.delegate;
+        this.skipSink = builder.skipSink;
+        this.isolatedExceptions = builder.isolatedExceptions;
+        this.skipLimit = builder.skipLimit;
+        this.probeTransactionTemplate = new TransactionTemplate(builder.transactionManager);
+        probeTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        if (!isolateNextWrite) {
+            try {
+                delegate.write(items);
+                return;
+            } catch (Exception e) {
+                if (!isIsolated(e)) {
+                    throw e;
+                }
+
+                this.isolateNextWrite = true; // chunk 트랜잭션이 롤백된 뒤 같은 chunk를 다시 기록할 때 분리
+                throw new IsolationRequiredException(items.size(), e);
+            }
+        }
+
+        this.isolateNextWrite = false;
+
+        List<T> written = new ArrayList<>(items.size());
+        List<SkippedItem<T>> skipped = new ArrayList<>();
+
+        isolate(items, written, skipped);
+
+        StepExecution stepExecution = currentStepExecution();
+        checkSkipLimit(stepExecution, skipped);
+
+        delegate.write(written);
+
+        for (SkippedItem<T> skippedItem : skipped) {
+            skipSink.skip(skippedItem.item, skippedItem.cause);
+        }
+
+        recordSkips(stepExecution, skipped.size());
+    }
+
+    // step 밖(단위 테스트 등)에서는 이번 chunk에서 분리한 item 수만으로 skipLimit 확인
+    private void checkSkipLimit(StepExecution stepExecution, List<SkippedItem<T>> skipped) {
+        int skipCount = (stepExecution != null ? stepExecution.getSkipCount() : 0) + skipped.size();
+
+        if (!skipped.isEmpty() && skipCount > skipLimit) {
+            throw new SkipLimitExceededException(skipLimit, skipped.get(0).cause);
+        }
+    }
+
+    // chunk가 commit 된 뒤에 반영 (롤백되면 다시 처리되므로 집계하지 않음)
+    private void recordSkips(StepExecution stepExecution, int count) {
+        if (stepExecution == null || count == 0) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            moveToWriteSkipCount(stepExecution, count);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                moveToWriteSkipCount(stepExecution, count);
+            }
+        });
+    }
+
+    // commit 시점에 chunk 전체가 writeCount로 합산되어 있으므로 skip 한 건수만큼 옮김 (다음 chunk commit 또는 step 종료 시 저장됨)
+    private void moveToWriteSkipCount(StepExecution stepExecution, int count) {
+        stepExecution.setWriteCount(stepExecution.getWriteCount() - count);
+        stepExecution.setWriteSkipCount(stepExecution.getWriteSkipCount() + count);
+    }
+
+    private StepExecution currentStepExecution() {
+        StepContext context = StepSynchronizationManager.getContext();
+        return context != null ? context.getStepExecution() : null;
+    }
+
+    // 시험 기록에 성공한 구간은 written으로, 실패한 구간은 절반씩 나눠서 다시 시험 (1건까지 나눠도 실패하면 skipped)
+    private void isolate(List<? extends T> items, List<T> written, List<SkippedItem<T>> skipped) {
+        Exception failure = probe(items);
+
+        if (failure == null) {
+            written.addAll(items);
+            return;
+        }
+
+        if (items.size() == 1) {
+            skipped.add(new SkippedItem<>(items.get(0), failure));
+            return;
+        }
+
+        int middle = items.size() / 2;
+        isolate(items.subList(0, middle), written, skipped);
+        isolate(items.subList(middle, items.size()), written, skipped);
+    }
+
+    // 별도 트랜잭션에서 기록해보고 항상 롤백, 실패하면 예외를 반환
+    private Exception probe(List<? extends T> items) {
+        return probeTransactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+
+            try {
+                delegate.write(items);
+                return null;
+            } catch (Exception e) {
+                if (!isIsolated(e)) {
+                    throw new IllegalStateException("분리 대상이 아닌 예외로 시험 기록 실패", e);
+                }
+
+                return e;
+            }
+        });
+    }
+
+    private boolean isIsolated(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Throwable> type : isolatedExceptions) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        this.isolateNextWrite = false;
+
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+
+    // 분리 과정에서 기록하지 못한 item을 받음 (chunk 트랜잭션 안에서 호출)
+    @FunctionalInterface
+    public interface SkipSink<T> {
+
+        void skip(T item, Exception cause) throws Exception;
+    }
+
+    // chunk를 분리해서 다시 기록해야 함 (step에서 retry 대상으로 설정)
+    public static class IsolationRequiredException extends RuntimeException {
+
+        public IsolationRequiredException(int itemCount, Throwable cause) {
+            super("chunk 기록 실패, 실패한 item을 분리해서 다시 기록 : " + itemCount + "건", cause);
+        }
+    }
+
+    private static class SkippedItem<T> {
+
+        private final T item;
+        private final Exception cause;
+
+        SkippedItem(T item, Exception cause) {
+            this.item = item;
+            this.cause = cause;
+        }
+    }
+
+    public static class Builder<T> {
+
+        private ItemWriter<T> delegate;
+        private PlatformTransactionManager transactionManager;
+        private SkipSink<? super T> skipSink;
+        private List<Class<? extends Throwable>> isolatedExceptions = Arrays.asList(Exception.class);
+        private int skipLimit = Integer.MAX_VALUE;
+
+        private Builder() {}
+
+        public Builder<T> delegate(ItemWriter<T> delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        // 시험 기록용 트랜잭션을 만들 때 사용 (step과 같은 transactionManager)
+        public Builder<T> transactionManager(PlatformTransactionManager transactionManager) {
+            this.transactionManager = transactionManager;
+            return this;
+        }
+
+        public Builder<T> skipSink(SkipSink<? super T> skipSink) {
+            this.skipSink = skipSink;
+            return this;
+        }
+
+        // 분리할 예외 (cause 포함), 그 외의 예외는 그대로 던짐 (기본값 Exception)
+        @SafeVarargs
+        public final Builder<T> isolateOn(Class<? extends Throwable>... types) {
+            this.isolatedExceptions = Arrays.asList(types);
+            return this;
+        }
+
+        // step의 skipLimit과 같은 값 (skipSink로 보낸 item도 step의 skip으로 집계되므로)
+        public Builder<T> skipLimit(int skipLimit) {
+            this.skipLimit = skipLimit;
+            return this;
+        }
+
+        public BisectingItemWriter<T> build() {
+            return new BisectingItemWriter<>(this);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package cocoball.springbatchstudy;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * FlatFileItemWriter + DelimitedLineAggregator + BeanWrapperFieldExtractor 대신 사용하는 UTF-8 csv writer
+ * - 필드는 리플렉션(BeanWrapper) 대신 getter 람다로 꺼내고, 숫자 / 날짜는 String을 만들지 않고 바로 byte로 기록
+ * - 아이템마다 String 라인을 만들지 않고 재사용하는 ByteBuffer에 chunk 전체를 모았다가 commit 직전에 FileChannel로 한 번에 write
+ *   (롤백, 재시작 시 마지막 commit 위치로 잘라내는 부분은 AbstractFileChannelItemWriter)
+ * - gzip 압축 시 파일에 기록하는 단위(chunk commit, header, footer)마다 완결된 gzip member를 하나씩 이어 붙임
+ *   (재시작, 롤백 시 잘라내는 위치가 항상 member 경계이므로 잘라낸 뒤에도 올바른 gzip 파일로 남음, gzip -d / GZIPInputStream으로 한 번에 읽힘)
+ * 구분자가 포함된 값의 quoting은 하지 않음 (DelimitedLineAggregator와 동일), null 값은 빈 칸으로 기록
+ * (FlatFileItemWriter와 마찬가지로 thread-safe 하지 않음)
+ */
+public class BufferedCsvItemWriter<T> extends AbstractFileChannelItemWriter<T> {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte DELIMITER = ',';
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    // gzip member header : magic(1f 8b), deflate(8), flag / mtime / xfl / os 없음 (GZIPOutputStream과 동일)
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final List<ColumnWriter<T>> columns;
+    private final String header;
+    private final String footer;
+    private final Compression compression;
+    private final int compressionLevel;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final byte[] digits = new byte[20];
+    private final CRC32 crc = new CRC32();
+
+    private ByteBuffer compressed; // gzip member로 압축되어 기록을 기다리는 내용
+    private Deflater deflater;
+
+    private BufferedCsvItemWriter(Builder<T> builder) {
+        super(builder.name, builder.resource, builder.bufferSize, builder.append);
+
+        Assert.notEmpty(builder.columns, "column이 1개 이상 필요");
+        Assert.notNull(builder.compression, "compression은 필수");
+
+        this.columns = new ArrayList<>(builder.columns);
+        this.header = builder.header;
+        this.footer = builder.footer;
+        this.compression = builder.compression;
+        this.compressionLevel = builder.compressionLevel;
+
+        if (compression == Compression.GZIP) {
+            this.compressed = ByteBuffer.allocateDirect(builder.bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (compression == Compression.GZIP) {
+            this.deflater = new Deflater(compressionLevel, true); // header, trailer는 직접 기록
+        }
+
+        super.open(executionContext);
+    }
+
+    @Override
+    protected void encode(List<? extends T> items) {
+        for (T item : items) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    ensureCapacity(1);
+                    buffer.put(DELIMITER);
+                }
+
+                columns.get(i).write(item, this);
+            }
+
+            putLineSeparator();
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        try {
+            super.close();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+                this.deflater = null;
+            }
+        }
+    }
+
+    @Override
+    protected void writeHeader() throws IOException {
+        writeLine(header);
+    }
+
+    @Override
+    protected void writeFooter() throws IOException {
+        writeLine(footer);
+    }
+
+    // 압축 시 파일에 기록될 내용은 압축된 gzip member (update에서 크기를 알 수 있도록 미리 압축)
+    @Override
+    protected ByteBuffer pending() {
+        if (compression != Compression.GZIP) {
+            return buffer;
+        }
+
+        compress();
+        return compressed;
+    }
+
+    @Override
+    protected void discardPending() {
+        super.discardPending();
+
+        if (compressed != null) {
+            compressed.clear();
+        }
+    }
+
+    // gzip 압축 시 buffer에 모인 내용을 하나의 완결된 gzip member로 압축 (header + deflate + crc32, 원본 크기 trailer)
+    private void compress() {
+        if (buffer.position() == 0) {
+            return;
+        }
+
+        buffer.flip();
+        int length = buffer.remaining();
+
+        crc.reset();
+        crc.update(buffer.duplicate());
+
+        this.compressed = ensureCapacity(compressed, GZIP_HEADER.length + length + length / 1_000 + 64);
+        compressed.put(GZIP_HEADER);
+
+        deflater.reset();
+        deflater.setInput(buffer);
+        deflater.finish();
+
+        while (!deflater.finished()) {
+            this.compressed = ensureCapacity(compressed, 1_024);
+            deflater.deflate(compressed);
+        }
+
+        this.compressed = ensureCapacity(compressed, 8);
+        compressed.putInt((int) crc.getValue());
+        compressed.putInt(length); // 원본 크기 mod 2^32
+
+        buffer.clear();
+    }
+
+    private void writeLine(String line) throws IOException {
+        if (line == null) {
+            return;
+        }
+
+        putText(line);
+        putLineSeparator();
+        flush();
+    }
+
+    // ===== column 값 기록 =====
+
+    private void putText(Object value) {
+        if (value == null) {
+            return;
+        }
+
+        CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+        int length = text.length();
+
+        ensureCapacity(length * 3); // UTF-8 최대 3 byte / char (surrogate pair는 2 char에 4 byte)
+
+        // ASCII는 바로 기록하고, ASCII가 아닌 문자가 나오면 나머지는 encoder로 기록
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (c >= 0x80) {
+                encoder.reset();
+                encoder.encode(CharBuffer.wrap(text, i, length), buffer, true);
+                encoder.flush(buffer);
+                return;
+            }
+
+            buffer.put((byte) c);
+        }
+    }
+
+    private void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            putText(Long.toString(value));
+            return;
+        }
+
+        ensureCapacity(20);
+
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        int index = digits.length;
+
+        do {
+            digits[--index] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        buffer.put(digits, index, digits.length - index);
+    }
+
+    // epoch day -> yyyy-MM-dd (LocalDate.toString()과 같은 형식)
+    // 날짜 계산은 LocalDate에 맡기고, toString()의 문자열 생성 없이 연, 월, 일 숫자만 기록
+    private void putEpochDay(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int year = date.getYear();
+
+        if (year < 1_000 || year > 9_999) {
+            putText(date); // 4자리가 아닌 연도는 LocalDate 형식을 그대로 사용
+            return;
+        }
+
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+
+        putLong(year);
+        ensureCapacity(6);
+        buffer.put((byte) '-').put((byte) ('0' + month / 10)).put((byte) ('0' + month % 10));
+        buffer.put((byte) '-').put((byte) ('0' + day / 10)).put((byte) ('0' + day % 10));
+    }
+
+    private void putLineSeparator() {
+        ensureCapacity(LINE_SEPARATOR.length);
+        buffer.put(LINE_SEPARATOR);
+    }
+
+    public enum Compression {
+        NONE(""),
+        GZIP(".gz");
+
+        private final String extension;
+
+        Compression(String extension) {
+            this.extension = extension;
+        }
+
+        // 압축 방식에 맞는 확장자를 붙인 파일 이름 (test-output.csv -> test-output.csv.gz)
+        public String fileName(String fileName) {
+            return fileName + extension;
+        }
+
+        // job parameter 값(none, gzip)으로 변환, 없으면 NONE
+        public static Compression from(String value) {
+            return value == null || value.isEmpty() ? NONE : valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnWriter<T> {
+        void write(T item, BufferedCsvItemWriter<T> writer);
+    }
+
+    public static class Builder<T> {
+
+        private final List<ColumnWriter<T>> columns = new ArrayList<>();
+
+        private String name;
+        private Resource resource;
+        private String header;
+        private String footer;
+        private boolean append;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private Compression compression = Compression.NONE;
+        private int compressionLevel = Deflater.BEST_SPEED; // 디스크 I/O, 전송량을 줄이는 게 목적이라 압축률보다 속도 우선
+
+        private Builder() {}
+
+        public Builder<T> name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder<T> resource(Resource resource) {
+            this.resource = resource;
+            return this;
+        }
+
+        public Builder<T> header(String header) {
+            this.header = header;
+            return this;
+        }
+
+        public Builder<T> footer(String footer) {
+            this.footer = footer;
+            return this;
+        }
+
+        // 기존 파일에 이어서 씀 (파일이 비어 있을 때만 header 기록)
+        public Builder<T> append(boolean append) {
+            this.append = append;
+            return this;
+        }
+
+        public Builder<T> bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        public Builder<T> compression(Compression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        // Deflater 압축 레벨 (1 ~ 9)
+        public Builder<T> compressionLevel(int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        // 문자열 column (CharSequence가 아니면 toString())
+        public Builder<T> column(Function<? super T, ?> accessor) {
+            columns.add((item, writer) -> writer.putText(accessor.apply(item)));
+            return this;
+        }
+
+        // 숫자 column (boxing, String 변환 없이 기록)
+        public Builder<T> longColumn(ToLongFunction<? super T> accessor) {
+            columns.add((item, writer) -> writer.putLong(accessor.applyAsLong(item)));
+            return this;
+        }
+
+        // 날짜 column : epoch day를 yyyy-MM-dd로 기록
+        public Builder<T> epochDayColumn(ToLongFunction<? super T> accessor) {
+            columns.add((item, writer) -> writer.putEpochDay(accessor.applyAsLong(item)));
+            return this;
+        }
+
+        public BufferedCsvItemWriter<T> build() {
+            return new BufferedCsvItemWriter<>(this);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package cocoball.springbatchstudy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ColumnarItemWriter / ColumnarItemReader 가 사용하는 파일 형식
+ *
+ * 파일 : [header] [row group] [row group] ...
+ * - header : magic("COLB") + version(1 byte) + column 수(varint) + column 마다 (type 1 byte, 이름 string)
+ * - row group : 길이(int, 이 4 byte를 제외한 byte 수) + row 수(varint) + column 마다 column block
+ *   (chunk 하나가 row group 하나, 길이로 row group을 decode 없이 건너뛸 수 있음)
+ * - column block : null 여부(1 byte) + null bitmap(null이 있을 때만, row 수 / 8 byte) + null이 아닌 값들
+ *   - LONG : 앞 값과의 차이(delta)를 zigzag varint로 기록 (id, epoch day처럼 정렬된 값은 대부분 1 byte)
+ *   - STRING : UTF-8 byte 수(varint) + UTF-8 byte
+ *   - DICTIONARY : row group 안의 서로 다른 값 목록(varint 개수 + string) + 값마다 목록의 index(varint)
+ */
+final class ColumnarFormat {
+
+    static final byte[] MAGIC = {'C', 'O', 'L', 'B'};
+    static final byte VERSION = 1;
+
+    static final byte LONG = 1;
+    static final byte STRING = 2;
+    static final byte DICTIONARY = 3;
+
+    private ColumnarFormat() {}
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        long zigzag = (value << 1) ^ (value >> 63); // 음수도 작은 절댓값이면 적은 byte 사용
+
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+
+        buffer.put((byte) zigzag);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    static int getVarInt(ByteBuffer buffer) {
+        return Math.toIntExact(getVarLong(buffer));
+    }
+
+    static void putString(ByteBuffer buffer, byte[] utf8) {
+        putVarLong(buffer, utf8.length);
+        buffer.put(utf8);
+    }
+
+    // heap buffer에서 바로 String 생성 (중간 byte[] 복사 없음)
+    static String getString(ByteBuffer buffer) {
+        int length = getVarInt(buffer);
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+
+        return value;
+    }
+}
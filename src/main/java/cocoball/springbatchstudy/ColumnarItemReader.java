@@ -0,0 +1,209 @@
+package cocoball.springbatchstudy;
+
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ColumnarItemWriter로 기록한 파일을 읽는 reader
+ * - row group 단위로 읽어서 column 별로 한 번에 decode 하고, 라인 tokenize / 문자열 -> 숫자, 날짜 parse가 없음
+ * - 재시작 시 읽은 건수(read.count)까지 row group을 decode 없이 길이만 보고 건너뜀
+ */
+public class ColumnarItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+
+    private final Resource resource;
+    private final ColumnarRowMapper<T> rowMapper;
+
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+    private ByteBuffer rowGroup;
+
+    private FileChannel channel;
+    private ColumnarRow row;
+    private int rowIndex;
+
+    private ColumnarItemReader(Builder<T> builder) {
+        Assert.hasText(builder.name, "name은 필수 (ExecutionContext key로 사용)");
+        Assert.notNull(builder.resource, "resource는 필수");
+        Assert.notNull(builder.rowMapper, "rowMapper는 필수");
+
+        setName(builder.name);
+        this.resource = builder.resource;
+        this.rowMapper = builder.rowMapper;
+        this.rowGroup = ByteBuffer.allocate(builder.bufferSize); // String을 바로 만들 수 있도록 heap buffer 사용
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        this.channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+        this.row = readHeader();
+        this.rowIndex = 0;
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        if (rowIndex == row.getRowCount()) {
+            if (!readRowGroup()) {
+                return null;
+            }
+
+            row.decode(rowGroup);
+            this.rowIndex = 0;
+        }
+
+        row.moveTo(rowIndex++);
+
+        return rowMapper.mapRow(row);
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        this.row = null;
+
+        if (channel != null) {
+            channel.close();
+            this.channel = null;
+        }
+    }
+
+    // row group의 row 수만 보고 건너뛰고, 재시작 위치가 포함된 row group만 decode
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        int remaining = itemIndex;
+
+        while (remaining > 0 && readRowGroup()) {
+            int rowCount = ColumnarFormat.getVarInt(rowGroup.duplicate());
+
+            if (rowCount <= remaining) {
+                remaining -= rowCount;
+                continue;
+            }
+
+            row.decode(rowGroup);
+            this.rowIndex = remaining;
+            return;
+        }
+    }
+
+    private ColumnarRow readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate((int) Math.min(channel.size(), MAX_HEADER_SIZE));
+        readFully(header);
+        header.flip();
+
+        byte[] magic = new byte[ColumnarFormat.MAGIC.length];
+
+        if (header.remaining() < magic.length + 1) {
+            throw new ItemStreamException("columnar 파일이 아님 : " + resource);
+        }
+
+        header.get(magic);
+
+        if (!Arrays.equals(magic, ColumnarFormat.MAGIC) || header.get() != ColumnarFormat.VERSION) {
+            throw new ItemStreamException("columnar 파일이 아니거나 지원하지 않는 버전 : " + resource);
+        }
+
+        int columnCount = ColumnarFormat.getVarInt(header);
+        List<String> names = new ArrayList<>(columnCount);
+        byte[] types = new byte[columnCount];
+
+        for (int i = 0; i < columnCount; i++) {
+            types[i] = header.get();
+            names.add(ColumnarFormat.getString(header));
+        }
+
+        channel.position(header.position()); // 첫 번째 row group 위치
+
+        return new ColumnarRow(names, types);
+    }
+
+    // 다음 row group을 rowGroup buffer에 읽음, 파일 끝이면 false
+    private boolean readRowGroup() throws IOException {
+        lengthBuffer.clear();
+
+        if (!readFully(lengthBuffer)) {
+            return false;
+        }
+
+        int length = lengthBuffer.getInt(0);
+
+        if (rowGroup.capacity() < length) {
+            this.rowGroup = ByteBuffer.allocate(Math.max(rowGroup.capacity() * 2, length));
+        }
+
+        rowGroup.clear().limit(length);
+
+        if (!readFully(rowGroup)) {
+            throw new ItemStreamException("row group이 잘려 있음 : " + resource);
+        }
+
+        rowGroup.flip();
+
+        return true;
+    }
+
+    // buffer가 가득 찰 때까지 읽음, 하나도 읽지 못하고 파일 끝이면 false
+    private boolean readFully(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (buffer.position() == start) {
+                    return false;
+                }
+
+                throw new ItemStreamException("파일이 잘려 있음 : " + resource);
+            }
+        }
+
+        return true;
+    }
+
+    public static class Builder<T> {
+
+        private String name;
+        private Resource resource;
+        private ColumnarRowMapper<T> rowMapper;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+        private Builder() {}
+
+        public Builder<T> name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder<T> resource(Resource resource) {
+            this.resource = resource;
+            return this;
+        }
+
+        public Builder<T> rowMapper(ColumnarRowMapper<T> rowMapper) {
+            this.rowMapper = rowMapper;
+            return this;
+        }
+
+        public Builder<T> bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        public ColumnarItemReader<T> build() {
+            return new ColumnarItemReader<>(this);
+        }
+    }
+}
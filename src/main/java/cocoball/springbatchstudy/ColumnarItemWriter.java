@@ -0,0 +1,258 @@
+package cocoball.springbatchstudy;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * 분석용으로 다시 읽을 파일을 csv 대신 column 단위 binary(ColumnarFormat)로 기록하는 writer
+ * - write 한 번(chunk)이 row group 하나, column 별로 모아서 기록 (enum은 dictionary, long / 날짜는 delta encoding)
+ * - row group은 재사용하는 ByteBuffer에 모았다가 commit 직전에 FileChannel로 한 번에 write
+ *   (롤백, 재시작 시 마지막 commit 위치로 잘라내는 부분은 AbstractFileChannelItemWriter)
+ * 읽을 때는 ColumnarItemReader 사용 (BufferedCsvItemWriter와 마찬가지로 thread-safe 하지 않음)
+ */
+public class ColumnarItemWriter<T> extends AbstractFileChannelItemWriter<T> {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final List<Column<T>> columns;
+
+    private final Map<Object, Integer> dictionary = new LinkedHashMap<>(); // row group 마다 재사용
+
+    private ColumnarItemWriter(Builder<T> builder) {
+        super(builder.name, builder.resource, builder.bufferSize, false);
+
+        Assert.notEmpty(builder.columns, "column이 1개 이상 필요");
+
+        this.columns = new ArrayList<>(builder.columns);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    // row group : 길이(마지막에 채움) + row 수 + column block
+    @Override
+    protected void encode(List<? extends T> items) {
+        int start = buffer.position();
+        ensureCapacity(4 + 10);
+        buffer.putInt(0);
+        ColumnarFormat.putVarLong(buffer, items.size());
+
+        for (Column<T> column : columns) {
+            writeNulls(column, items);
+            column.encoder.encode(this, items);
+        }
+
+        buffer.putInt(start, buffer.position() - start - 4);
+    }
+
+    @Override
+    protected void writeHeader() throws IOException {
+        ensureCapacity(ColumnarFormat.MAGIC.length + 1 + 5);
+        buffer.put(ColumnarFormat.MAGIC);
+        buffer.put(ColumnarFormat.VERSION);
+        ColumnarFormat.putVarLong(buffer, columns.size());
+
+        for (Column<T> column : columns) {
+            byte[] name = column.name.getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(1 + 5 + name.length);
+            buffer.put(column.type);
+            ColumnarFormat.putString(buffer, name);
+        }
+
+        flush();
+    }
+
+    // null이 하나라도 있으면 null bitmap 기록 (null인 row의 값은 기록하지 않음)
+    private void writeNulls(Column<T> column, List<? extends T> items) {
+        boolean hasNull = false;
+
+        if (column.isNull != null) {
+            for (T item : items) {
+                if (column.isNull.test(item)) {
+                    hasNull = true;
+                    break;
+                }
+            }
+        }
+
+        ensureCapacity(1 + (items.size() + 7) / 8);
+        buffer.put((byte) (hasNull ? 1 : 0));
+
+        if (!hasNull) {
+            return;
+        }
+
+        int bits = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+            if (column.isNull.test(items.get(i))) {
+                bits |= 1 << (i & 7);
+            }
+
+            if ((i & 7) == 7 || i == items.size() - 1) {
+                buffer.put((byte) bits);
+                bits = 0;
+            }
+        }
+    }
+
+    private void writeLongs(List<? extends T> items, ToLongFunction<? super T> accessor, Predicate<? super T> isNull) {
+        long previous = 0;
+
+        for (T item : items) {
+            if (isNull != null && isNull.test(item)) {
+                continue;
+            }
+
+            long value = accessor.applyAsLong(item);
+            ensureCapacity(10);
+            ColumnarFormat.putVarLong(buffer, value - previous);
+            previous = value;
+        }
+    }
+
+    private void writeStrings(List<? extends T> items, Function<? super T, String> accessor) {
+        for (T item : items) {
+            String value = accessor.apply(item);
+
+            if (value == null) {
+                continue;
+            }
+
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(5 + utf8.length);
+            ColumnarFormat.putString(buffer, utf8);
+        }
+    }
+
+    // row group 안의 서로 다른 값을 목록으로 기록하고, 각 row는 목록의 index만 기록
+    private void writeDictionary(List<? extends T> items, Function<? super T, ? extends Enum<?>> accessor) {
+        dictionary.clear();
+
+        for (T item : items) {
+            Enum<?> value = accessor.apply(item);
+
+            if (value != null) {
+                dictionary.putIfAbsent(value, dictionary.size());
+            }
+        }
+
+        ensureCapacity(5);
+        ColumnarFormat.putVarLong(buffer, dictionary.size());
+
+        for (Object value : dictionary.keySet()) {
+            byte[] utf8 = ((Enum<?>) value).name().getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(5 + utf8.length);
+            ColumnarFormat.putString(buffer, utf8);
+        }
+
+        for (T item : items) {
+            Enum<?> value = accessor.apply(item);
+
+            if (value != null) {
+                ensureCapacity(5);
+                ColumnarFormat.putVarLong(buffer, dictionary.get(value));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnEncoder<T> {
+        void encode(ColumnarItemWriter<T> writer, List<? extends T> items);
+    }
+
+    private static class Column<T> {
+
+        private final String name;
+        private final byte type;
+        private final Predicate<? super T> isNull; // null이 없는 column이면 null
+        private final ColumnEncoder<T> encoder;
+
+        private Column(String name, byte type, Predicate<? super T> isNull, ColumnEncoder<T> encoder) {
+            Assert.hasText(name, "column 이름은 필수");
+
+            this.name = name;
+            this.type = type;
+            this.isNull = isNull;
+            this.encoder = encoder;
+        }
+    }
+
+    public static class Builder<T> {
+
+        private final List<Column<T>> columns = new ArrayList<>();
+
+        private String name;
+        private Resource resource;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+        private Builder() {}
+
+        public Builder<T> name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder<T> resource(Resource resource) {
+            this.resource = resource;
+            return this;
+        }
+
+        public Builder<T> bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        // null이 없는 숫자 column (delta encoding, 정렬된 id / epoch day에 유리)
+        public Builder<T> longColumn(String name, ToLongFunction<? super T> accessor) {
+            columns.add(new Column<>(name, ColumnarFormat.LONG, null,
+                    (writer, items) -> writer.writeLongs(items, accessor, null)));
+            return this;
+        }
+
+        // null이 있을 수 있는 숫자 column (예: 엔티티의 Long id)
+        public Builder<T> nullableLongColumn(String name, Function<? super T, ? extends Number> accessor) {
+            Predicate<T> isNull = item -> accessor.apply(item) == null;
+            columns.add(new Column<>(name, ColumnarFormat.LONG, isNull,
+                    (writer, items) -> writer.writeLongs(items, item -> accessor.apply(item).longValue(), isNull)));
+            return this;
+        }
+
+        // 날짜 column : epoch day로 변환해서 delta encoding (읽을 때는 ColumnarRow.getDate)
+        public Builder<T> dateColumn(String name, Function<? super T, LocalDate> accessor) {
+            Predicate<T> isNull = item -> accessor.apply(item) == null;
+            columns.add(new Column<>(name, ColumnarFormat.LONG, isNull,
+                    (writer, items) -> writer.writeLongs(items, item -> accessor.apply(item).toEpochDay(), isNull)));
+            return this;
+        }
+
+        public Builder<T> stringColumn(String name, Function<? super T, String> accessor) {
+            columns.add(new Column<>(name, ColumnarFormat.STRING, item -> accessor.apply(item) == null,
+                    (writer, items) -> writer.writeStrings(items, accessor)));
+            return this;
+        }
+
+        // enum column : row group 마다 dictionary encoding (읽을 때는 ColumnarRow.getEnum)
+        public Builder<T> enumColumn(String name, Function<? super T, ? extends Enum<?>> accessor) {
+            columns.add(new Column<>(name, ColumnarFormat.DICTIONARY, item -> accessor.apply(item) == null,
+                    (writer, items) -> writer.writeDictionary(items, accessor)));
+            return this;
+        }
+
+        public ColumnarItemWriter<T> build() {
+            return new ColumnarItemWriter<>(this);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package cocoball.springbatchstudy;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * ColumnarItemReader가 decode한 row group의 현재 row
+ * row group의 column 값은 배열로 한 번에 decode 하고, row는 index만 옮겨가며 재사용 (row 마다 객체를 만들지 않음)
+ */
+public class ColumnarRow {
+
+    private final List<String> names;
+    private final byte[] types;
+
+    private final long[][] longs;
+    private final String[][] strings;
+    private final int[][] indexes; // dictionary column : dictionary의 index
+    private final String[][] dictionaries;
+    private final boolean[][] nulls;
+    private final boolean[] hasNull;
+
+    private int rowCount;
+    private int index;
+
+    ColumnarRow(List<String> names, byte[] types) {
+        this.names = names;
+        this.types = types;
+
+        int columnCount = types.length;
+        this.longs = new long[columnCount][];
+        this.strings = new String[columnCount][];
+        this.indexes = new int[columnCount][];
+        this.dictionaries = new String[columnCount][];
+        this.nulls = new boolean[columnCount][];
+        this.hasNull = new boolean[columnCount];
+    }
+
+    public int getColumnIndex(String name) {
+        int column = names.indexOf(name);
+
+        if (column < 0) {
+            throw new IllegalArgumentException("column이 없음 : " + name + " " + names);
+        }
+
+        return column;
+    }
+
+    public boolean isNull(int column) {
+        return hasNull[column] && nulls[column][index];
+    }
+
+    public long getLong(int column) {
+        checkNotNull(column);
+        return longs[column][index];
+    }
+
+    public Long getNullableLong(int column) {
+        return isNull(column) ? null : longs[column][index];
+    }
+
+    public LocalDate getDate(int column) {
+        return isNull(column) ? null : LocalDate.ofEpochDay(longs[column][index]);
+    }
+
+    public String getString(int column) {
+        if (isNull(column)) {
+            return null;
+        }
+
+        return types[column] == ColumnarFormat.DICTIONARY ? dictionaries[column][indexes[column][index]] : strings[column][index];
+    }
+
+    public <E extends Enum<E>> E getEnum(int column, Class<E> type) {
+        String name = getString(column);
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    void moveTo(int index) {
+        this.index = index;
+    }
+
+    // row group 하나를 column 별로 배열에 decode (배열은 row group 크기가 커질 때만 새로 만듦)
+    void decode(ByteBuffer rowGroup) {
+        this.rowCount = ColumnarFormat.getVarInt(rowGroup);
+        this.index = 0;
+
+        for (int column = 0; column < types.length; column++) {
+            decodeNulls(rowGroup, column);
+
+            switch (types[column]) {
+                case ColumnarFormat.LONG:
+                    decodeLongs(rowGroup, column);
+                    break;
+                case ColumnarFormat.STRING:
+                    decodeStrings(rowGroup, column);
+                    break;
+                case ColumnarFormat.DICTIONARY:
+                    decodeDictionary(rowGroup, column);
+                    break;
+                default:
+                    throw new IllegalStateException("지원하지 않는 column type : " + types[column]);
+            }
+        }
+    }
+
+    private void decodeNulls(ByteBuffer rowGroup, int column) {
+        hasNull[column] = rowGroup.get() != 0;
+
+        if (!hasNull[column]) {
+            return;
+        }
+
+        if (nulls[column] == null || nulls[column].length < rowCount) {
+            nulls[column] = new boolean[rowCount];
+        }
+
+        int bits = 0;
+
+        for (int row = 0; row < rowCount; row++) {
+            if ((row & 7) == 0) {
+                bits = rowGroup.get();
+            }
+
+            nulls[column][row] = (bits & (1 << (row & 7))) != 0;
+        }
+    }
+
+    private void decodeLongs(ByteBuffer rowGroup, int column) {
+        if (longs[column] == null || longs[column].length < rowCount) {
+            longs[column] = new long[rowCount];
+        }
+
+        long value = 0;
+
+        for (int row = 0; row < rowCount; row++) {
+            if (hasNull[column] && nulls[column][row]) {
+                continue;
+            }
+
+            value += ColumnarFormat.getVarLong(rowGroup);
+            longs[column][row] = value;
+        }
+    }
+
+    private void decodeStrings(ByteBuffer rowGroup, int column) {
+        if (strings[column] == null || strings[column].length < rowCount) {
+            strings[column] = new String[rowCount];
+        }
+
+        for (int row = 0; row < rowCount; row++) {
+            strings[column][row] = hasNull[column] && nulls[column][row] ? null : ColumnarFormat.getString(rowGroup);
+        }
+    }
+
+    private void decodeDictionary(ByteBuffer rowGroup, int column) {
+        int size = ColumnarFormat.getVarInt(rowGroup);
+        String[] dictionary = new String[size]; // row group 당 서로 다른 값 개수만큼만 String 생성
+
+        for (int i = 0; i < size; i++) {
+            dictionary[i] = ColumnarFormat.getString(rowGroup);
+        }
+
+        dictionaries[column] = dictionary;
+
+        if (indexes[column] == null || indexes[column].length < rowCount) {
+            indexes[column] = new int[rowCount];
+        }
+
+        for (int row = 0; row < rowCount; row++) {
+            if (!(hasNull[column] && nulls[column][row])) {
+                indexes[column][row] = ColumnarFormat.getVarInt(rowGroup);
+            }
+        }
+    }
+
+    private void checkNotNull(int column) {
+        if (isNull(column)) {
+            throw new IllegalStateException("null 값 : " + names.get(column) + ", getNullableLong / getDate 사용");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package cocoball.springbatchstudy;
+
+/**
+ * ColumnarItemReader의 현재 row를 item으로 변환 (RowMapper와 같은 역할)
+ */
+@FunctionalInterface
+public interface ColumnarRowMapper<T> {
+
+    T mapRow(ColumnarRow row);
+}
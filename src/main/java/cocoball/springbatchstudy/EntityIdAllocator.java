@@ -0,0 +1,82 @@
+package cocoball.springbatchstudy;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PostInsertIdentifierGenerator;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * JPA 엔티티에 설정된 id generator로 JDBC insert(MultiRowInsertItemWriter)에 사용할 id를 할당
+ * - JPA로 저장할 때와 같은 generator / optimizer를 사용하므로 두 방식으로 같은 테이블에 기록해도 id가 겹치지 않음
+ * - pooled sequence는 allocationSize 만큼 메모리에서 나눠주므로 DB 조회는 allocationSize 건당 1번
+ * - IDENTITY처럼 insert 후에 id가 정해지는 generator는 미리 할당할 수 없으므로 사용 불가
+ * - item 하나씩 할당하는 nextId는 blockSize 만큼 한 번에 할당해 두고 나눠줌 (세션을 item 마다 열지 않음, 남은 id는 sequence처럼 비어 있게 됨)
+ */
+public class EntityIdAllocator<T> implements MultiRowInsertItemWriter.IdAllocator<T> {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final IdentifierGenerator identifierGenerator;
+    private final int blockSize;
+
+    private long[] block;
+    private int blockIndex;
+
+    public EntityIdAllocator(EntityManagerFactory entityManagerFactory, Class<T> entityClass) {
+        this(entityManagerFactory, entityClass, 1);
+    }
+
+    // blockSize : nextId에서 한 번에 할당할 id 수 (pooled sequence의 allocationSize와 같게 하면 block 당 DB 조회 1번)
+    public EntityIdAllocator(EntityManagerFactory entityManagerFactory, Class<T> entityClass, int blockSize) {
+        Assert.isTrue(blockSize > 0, "blockSize는 1 이상");
+
+        this.blockSize = blockSize;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.identifierGenerator = sessionFactory.getMetamodel().entityPersister(entityClass).getIdentifierGenerator();
+
+        Assert.isTrue(!(identifierGenerator instanceof PostInsertIdentifierGenerator),
+                entityClass.getSimpleName() + "의 id는 insert 후에 생성되므로 미리 할당할 수 없음 (IDENTITY)");
+    }
+
+    @Override
+    public long[] allocate(List<? extends T> items) {
+        return generate(items.size(), items::get);
+    }
+
+    // item 하나씩 바인딩하는 경우 (JdbcBatchItemWriter), 할당해 둔 block에서 꺼내고 다 쓰면 다음 block 할당
+    public synchronized long nextId(T item) {
+        if (block == null || blockIndex == block.length) {
+            this.block = allocateBlock(item);
+            this.blockIndex = 0;
+        }
+
+        return block[blockIndex++];
+    }
+
+    // sequence / table generator는 item을 사용하지 않으므로 block 전체를 처음 요청한 item으로 생성
+    private long[] allocateBlock(T item) {
+        return generate(blockSize, i -> item);
+    }
+
+    private long[] generate(int count, IntFunction<?> items) {
+        long[] ids = new long[count];
+
+        // sequence 조회용 세션 (chunk 트랜잭션과 별개의 커넥션, sequence는 롤백되지 않으므로 트랜잭션이 필요 없음)
+        StatelessSession session = sessionFactory.openStatelessSession();
+
+        try {
+            for (int i = 0; i < count; i++) {
+                ids[i] = ((Number) identifierGenerator.generate((SharedSessionContractImplementor) session, items.apply(i))).longValue();
+            }
+        } finally {
+            session.close();
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,315 @@
+package cocoball.springbatchstudy;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * FlatFileItemReader + DefaultLineMapper + DelimitedLineTokenizer 대신 사용하는 UTF-8 csv reader
+ * - 파일을 메모리 매핑해서 읽고, 라인을 String / FieldSet으로 만들지 않고 매핑된 byte 위에서 바로 tokenize (MappedCsvLine)
+ * - startOffset ~ endOffset 구간만 읽을 수 있어서 MappedCsvPartitioner로 나눈 구간을 파티션 step 마다 병렬로 읽음
+ *   (구간은 라인 경계에 맞춰져 있어야 하고, linesToSkip은 파일 처음(startOffset = 0)부터 읽는 구간에만 적용)
+ * - 다음에 읽을 라인의 위치(byte offset)를 ExecutionContext에 저장하고, 재시작 시 그 위치부터 읽음
+ * - 빈 라인은 건너뜀, \n / \r\n 모두 지원
+ * - 파일 시스템의 파일이 아닌 resource(boot jar 안의 classpath 파일 등)는 매핑 대신 InputStream으로 windowSize(최대 8MB)씩 읽음
+ *   (앞으로만 읽으므로 재시작 / range 시작 위치까지는 건너뛰며 읽음)
+ * thread-safe 하지 않음 (파티션마다 별도 reader 사용)
+ */
+public class MappedCsvItemReader<T> extends AbstractItemStreamItemReader<T> {
+
+    private static final String OFFSET_KEY = "offset";
+    private static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+    private static final int MAX_STREAM_WINDOW_SIZE = 8 * 1024 * 1024; // heap에 잡으므로 매핑보다 작게
+
+    private final Resource resource;
+    private final MappedCsvLineMapper<T> lineMapper;
+    private final int linesToSkip;
+    private final long startOffset;
+    private final Long endOffset;
+    private final long windowSize;
+    private final MappedCsvLine line;
+
+    private FileChannel channel;
+    private InputStream stream; // 파일 시스템의 파일이 아닐 때
+    private long streamPosition; // stream에서 지금까지 읽은 byte 수
+    private ByteBuffer window; // 한 번에 매핑하는(읽는) 구간 (구간 끝에 걸친 라인은 해당 라인부터 다시 매핑)
+    private long windowStart;
+    private long position; // 다음에 읽을 라인의 파일 내 위치
+    private long end;
+
+    private MappedCsvItemReader(Builder<T> builder) {
+        Assert.hasText(builder.name, "name은 필수 (ExecutionContext key로 사용)");
+        Assert.notNull(builder.resource, "resource는 필수");
+        Assert.notNull(builder.lineMapper, "lineMapper는 필수");
+        Assert.isTrue(builder.windowSize > 0 && builder.windowSize <= Integer.MAX_VALUE, "windowSize는 1 ~ Integer.MAX_VALUE byte");
+
+        setName(builder.name);
+        this.resource = builder.resource;
+        this.lineMapper = builder.lineMapper;
+        this.linesToSkip = builder.linesToSkip;
+        this.startOffset = builder.startOffset;
+        this.endOffset = builder.endOffset;
+        this.windowSize = builder.windowSize;
+        this.line = new MappedCsvLine((byte) builder.delimiter);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        String key = getExecutionContextKey(OFFSET_KEY);
+
+        try {
+            long size;
+
+            if (resource.isFile()) {
+                this.channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+                size = channel.size();
+            } else {
+                this.stream = resource.getInputStream();
+                this.streamPosition = 0;
+                size = resource.contentLength();
+            }
+
+            this.end = endOffset != null ? Math.min(endOffset, size) : size;
+            this.window = null;
+
+            if (executionContext.containsKey(key)) {
+                this.position = executionContext.getLong(key); // 재시작 : header는 이미 건너뛴 위치
+                return;
+            }
+
+            this.position = startOffset;
+
+            int skipped = 0;
+
+            while (startOffset == 0 && skipped < linesToSkip && nextLine()) {
+                skipped++; // header 라인 건너뜀
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("파일을 열 수 없음 : " + resource, e);
+        }
+    }
+
+    @Override
+    public T read() throws Exception {
+        while (nextLine()) {
+            if (line.getFieldCount() == 1 && line.isEmpty(0)) {
+                continue; // 빈 라인
+            }
+
+            return lineMapper.mapLine(line);
+        }
+
+        return null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (channel != null || stream != null) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+
+        this.window = null; // 매핑 해제는 GC가 처리
+
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+
+            if (stream != null) {
+                stream.close();
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("파일을 닫을 수 없음 : " + resource, e);
+        } finally {
+            this.channel = null;
+            this.stream = null;
+        }
+    }
+
+    // 다음 라인을 tokenize 하고 position을 다음 라인으로 옮김, 구간 끝이면 false
+    private boolean nextLine() throws IOException {
+        if (position >= end) {
+            return false;
+        }
+
+        if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+            map(position);
+        }
+
+        int from = (int) (position - windowStart);
+        int newline = indexOfNewline(from);
+
+        if (newline < 0 && windowStart + window.limit() < end) {
+            map(position); // 라인이 매핑 구간 끝에 걸쳐 있으면 라인 시작부터 다시 매핑
+            from = 0;
+            newline = indexOfNewline(from);
+
+            if (newline < 0 && windowStart + window.limit() < end) {
+                throw new ItemStreamException("라인이 windowSize(" + window.capacity() + " byte)보다 김 : " + resource + ", offset " + position);
+            }
+        }
+
+        int lineEnd = newline < 0 ? window.limit() : newline;
+        long next = windowStart + (newline < 0 ? window.limit() : newline + 1);
+
+        if (lineEnd > from && window.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+
+        line.tokenize(window, from, lineEnd);
+        this.position = next;
+
+        return true;
+    }
+
+    private int indexOfNewline(int from) {
+        int limit = window.limit();
+
+        for (int i = from; i < limit; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void map(long start) throws IOException {
+        if (channel != null) {
+            this.window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, end - start));
+        } else {
+            read(start);
+        }
+
+        this.windowStart = start;
+    }
+
+    // stream은 앞으로만 읽을 수 있으므로 이전 구간에서 start 이후 부분은 buffer 앞으로 옮기고 나머지를 stream에서 채움
+    private void read(long start) throws IOException {
+        if (window != null && start < windowStart) {
+            throw new IllegalStateException("stream은 이미 읽은 위치로 되돌아갈 수 없음 : " + resource + ", offset " + start);
+        }
+
+        if (window == null) {
+            this.window = ByteBuffer.allocate((int) Math.min(windowSize, MAX_STREAM_WINDOW_SIZE));
+            skip(start);
+            window.clear();
+        } else if (start < windowStart + window.limit()) {
+            window.position((int) (start - windowStart));
+            window.compact();
+        } else {
+            skip(start);
+            window.clear();
+        }
+
+        window.limit((int) Math.min(window.capacity(), end - start));
+
+        while (window.hasRemaining()) {
+            int read = stream.read(window.array(), window.arrayOffset() + window.position(), window.remaining());
+
+            if (read < 0) {
+                break;
+            }
+
+            window.position(window.position() + read);
+            this.streamPosition += read;
+        }
+
+        window.flip();
+    }
+
+    // 재시작 / range 시작 위치까지 읽지 않고 건너뜀
+    private void skip(long position) throws IOException {
+        while (streamPosition < position) {
+            long skipped = stream.skip(position - streamPosition);
+
+            if (skipped <= 0) {
+                if (stream.read() < 0) {
+                    throw new ItemStreamException("재시작 위치(" + position + ")보다 파일 크기(" + streamPosition + ")가 작음 : " + resource);
+                }
+
+                skipped = 1;
+            }
+
+            this.streamPosition += skipped;
+        }
+    }
+
+    public static class Builder<T> {
+
+        private String name;
+        private Resource resource;
+        private MappedCsvLineMapper<T> lineMapper;
+        private int linesToSkip;
+        private char delimiter = ',';
+        private long startOffset;
+        private Long endOffset;
+        private long windowSize = DEFAULT_WINDOW_SIZE;
+
+        private Builder() {}
+
+        public Builder<T> name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder<T> resource(Resource resource) {
+            this.resource = resource;
+            return this;
+        }
+
+        public Builder<T> lineMapper(MappedCsvLineMapper<T> lineMapper) {
+            this.lineMapper = lineMapper;
+            return this;
+        }
+
+        public Builder<T> linesToSkip(int linesToSkip) {
+            this.linesToSkip = linesToSkip;
+            return this;
+        }
+
+        // ASCII 구분자만 지원
+        public Builder<T> delimiter(char delimiter) {
+            Assert.isTrue(delimiter < 0x80, "구분자는 ASCII 문자여야 함");
+            this.delimiter = delimiter;
+            return this;
+        }
+
+        // 읽을 구간 [startOffset, endOffset), 지정하지 않으면 파일 전체 (MappedCsvPartitioner의 파티션 값을 그대로 사용)
+        public Builder<T> range(Long startOffset, Long endOffset) {
+            this.startOffset = startOffset != null ? startOffset : 0L;
+            this.endOffset = endOffset;
+            return this;
+        }
+
+        public Builder<T> windowSize(long windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        public MappedCsvItemReader<T> build() {
+            return new MappedCsvItemReader<>(this);
+        }
+    }
+}
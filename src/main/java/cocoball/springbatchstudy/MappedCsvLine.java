@@ -0,0 +1,196 @@
+package cocoball.springbatchstudy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * MappedCsvItemReader가 읽은 현재 라인 (FieldSet 대신 사용)
+ * - 라인을 String으로 만들지 않고 매핑된 buffer 위에서 각 필드의 시작 / 끝 위치만 기록
+ * - 숫자는 byte에서 바로 parse 하고, String은 getString을 호출한 필드만 생성
+ * - 값 앞뒤의 공백은 제거 (DefaultFieldSet.readString / readInt와 동일)
+ * - "로 감싼 필드는 따옴표를 제외하고, 안의 ""는 "로 읽음 (필드 안의 줄바꿈은 지원하지 않음)
+ * 라인 객체는 재사용되므로 mapper 밖으로 꺼내서 보관하면 안 됨
+ */
+public class MappedCsvLine {
+
+    private final byte delimiter;
+
+    private ByteBuffer buffer;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int fieldCount;
+
+    private byte[] scratch = new byte[256];
+
+    MappedCsvLine(byte delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public String getString(int index) {
+        checkIndex(index);
+
+        int start = trimStart(index);
+        int length = trimEnd(index, start) - start;
+
+        if (scratch.length < length) {
+            this.scratch = new byte[Math.max(scratch.length * 2, length)];
+        }
+
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(start + i);
+        }
+
+        String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+
+        return quoted[index] && value.indexOf('"') >= 0 ? value.replace("\"\"", "\"") : value;
+    }
+
+    public int getInt(int index) {
+        long value = getLong(index);
+
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("int 범위를 벗어남 : " + getString(index));
+        }
+
+        return (int) value;
+    }
+
+    public long getLong(int index) {
+        checkIndex(index);
+
+        int position = trimStart(index);
+        int end = trimEnd(index, position);
+        boolean negative = position < end && buffer.get(position) == '-';
+
+        if (negative || (position < end && buffer.get(position) == '+')) {
+            position++;
+        }
+
+        if (position == end || end - position > 19) {
+            throw new NumberFormatException("숫자가 아님 : [" + getString(index) + "]");
+        }
+
+        long value = 0;
+
+        for (; position < end; position++) {
+            int digit = buffer.get(position) - '0';
+
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("숫자가 아님 : [" + getString(index) + "]");
+            }
+
+            value = value * 10 - digit; // 음수로 누적해서 Long.MIN_VALUE까지 표현
+
+            if (value > 0) {
+                throw new NumberFormatException("long 범위를 벗어남 : " + getString(index));
+            }
+        }
+
+        if (!negative && value == Long.MIN_VALUE) {
+            throw new NumberFormatException("long 범위를 벗어남 : " + getString(index));
+        }
+
+        return negative ? value : -value;
+    }
+
+    // 공백을 제외한 값이 비어 있는지
+    public boolean isEmpty(int index) {
+        checkIndex(index);
+        return trimStart(index) == ends[index];
+    }
+
+    // buffer의 [start, end) 구간을 구분자 기준으로 나눔 (값은 복사하지 않음)
+    void tokenize(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.fieldCount = 0;
+
+        int position = start;
+
+        while (true) {
+            if (position < end && buffer.get(position) == '"') {
+                int fieldStart = position + 1;
+                int fieldEnd = fieldStart;
+
+                while (fieldEnd < end) {
+                    if (buffer.get(fieldEnd) == '"') {
+                        if (fieldEnd + 1 < end && buffer.get(fieldEnd + 1) == '"') {
+                            fieldEnd += 2; // "" : 따옴표 문자
+                            continue;
+                        }
+
+                        break;
+                    }
+
+                    fieldEnd++;
+                }
+
+                addField(fieldStart, fieldEnd, true);
+                position = fieldEnd + 1;
+
+                while (position < end && buffer.get(position) != delimiter) {
+                    position++; // 닫는 따옴표 뒤의 값은 무시
+                }
+            } else {
+                int fieldStart = position;
+
+                while (position < end && buffer.get(position) != delimiter) {
+                    position++;
+                }
+
+                addField(fieldStart, position, false);
+            }
+
+            if (position >= end) {
+                return;
+            }
+
+            position++; // 구분자
+        }
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+        if (fieldCount == starts.length) {
+            int length = starts.length * 2;
+            this.starts = Arrays.copyOf(starts, length);
+            this.ends = Arrays.copyOf(ends, length);
+            this.quoted = Arrays.copyOf(this.quoted, length);
+        }
+
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        this.quoted[fieldCount] = quoted;
+        fieldCount++;
+    }
+
+    private int trimStart(int index) {
+        int position = starts[index];
+
+        while (position < ends[index] && (buffer.get(position) & 0xFF) <= ' ') {
+            position++;
+        }
+
+        return position;
+    }
+
+    private int trimEnd(int index, int start) {
+        int position = ends[index];
+
+        while (position > start && (buffer.get(position - 1) & 0xFF) <= ' ') {
+            position--;
+        }
+
+        return position;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("필드 index " + index + ", 필드 수 " + fieldCount);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package cocoball.springbatchstudy;
+
+/**
+ * MappedCsvItemReader의 현재 라인을 item으로 변환 (FieldSetMapper와 같은 역할)
+ */
+@FunctionalInterface
+public interface MappedCsvLineMapper<T> {
+
+    T mapLine(MappedCsvLine line);
+}
@@ -0,0 +1,96 @@
+package cocoball.springbatchstudy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * csv 파일을 gridSize개의 byte 구간으로 나누는 Partitioner (MappedCsvItemReader.range에 그대로 사용)
+ * - 파일 크기를 gridSize로 나눈 위치에서 다음 줄바꿈까지 이동해서 구간이 항상 라인 경계에서 시작 / 끝나도록 함
+ * - 파일이 작아서 구간이 겹치면 gridSize보다 적은 파티션이 만들어짐
+ * - 파일 시스템의 파일이 아닌 resource(boot jar 안의 classpath 파일 등)는 나누지 않고 전체를 파티션 하나로 읽음
+ * 파티션 이름이 구간 순서로 고정되므로 재시작 시 실패한 구간만 다시 실행됨 (파일이 바뀌지 않는다는 전제)
+ */
+@Slf4j
+public class MappedCsvPartitioner implements Partitioner {
+
+    public static final String START_OFFSET_KEY = "startOffset";
+    public static final String END_OFFSET_KEY = "endOffset";
+
+    private final Resource resource;
+
+    public MappedCsvPartitioner(Resource resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+
+        if (!resource.isFile()) {
+            // 구간을 나눠도 stream은 앞에서부터 건너뛰며 읽어야 하므로 나누지 않음 (endOffset 없이 파일 끝까지)
+            ExecutionContext executionContext = new ExecutionContext();
+            executionContext.putLong(START_OFFSET_KEY, 0L);
+            result.put("partition0", executionContext);
+
+            log.info("csv 파티션 : {}, 파일 시스템의 파일이 아니므로 1개", resource);
+            return result;
+        }
+
+        try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+
+            for (int i = 1; i <= gridSize && start < size; i++) {
+                long end = i == gridSize ? size : nextLineStart(channel, Math.max(start, size * i / gridSize));
+
+                if (end <= start) {
+                    continue;
+                }
+
+                ExecutionContext executionContext = new ExecutionContext();
+                executionContext.putLong(START_OFFSET_KEY, start);
+                executionContext.putLong(END_OFFSET_KEY, end);
+
+                result.put("partition" + result.size(), executionContext);
+                start = end;
+            }
+
+            log.info("csv 파티션 : {}, {} byte, {}개", resource, size, result.size());
+        } catch (IOException e) {
+            throw new ItemStreamException("파일을 나눌 수 없음 : " + resource, e);
+        }
+
+        return result;
+    }
+
+    // from 이후 첫 줄바꿈 다음 위치 (없으면 파일 끝)
+    private long nextLineStart(FileChannel channel, long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        long position = from;
+
+        while (channel.read(buffer, position) > 0) {
+            buffer.flip();
+
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+
+            position += buffer.limit();
+            buffer.clear();
+        }
+
+        return channel.size();
+    }
+}
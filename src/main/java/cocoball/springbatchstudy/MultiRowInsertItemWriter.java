@@ -0,0 +1,198 @@
+package cocoball.springbatchstudy;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * chunk를 multi-row insert (insert into t(a, b) values (?, ?), (?, ?), ...)로 기록하는 Writer
+ * - JdbcBatchItemWriter + BeanPropertyItemSqlParameterSourceProvider 처럼 item 마다 BeanWrapper, named parameter를 만들지 않고
+ *   rowBinder가 PreparedStatement에 위치 기반으로 바로 바인딩
+ * - rowsPerStatement 행씩 묶은 insert 문을 JDBC batch로 실행 (해당 크기의 insert 문은 미리 만들어서 재사용, 남는 행만 따로 실행)
+ * - idColumn을 지정하면 chunk 크기만큼 idAllocator에서 id를 받아 첫 번째 컬럼으로 기록 (IDENTITY 없이 id를 미리 할당, item의 id는 변경하지 않음)
+ * - 실행 결과 행 수가 다르면 EmptyResultDataAccessException (JdbcBatchItemWriter의 assertUpdates와 동일)
+ */
+public class MultiRowInsertItemWriter<T> implements ItemWriter<T> {
+
+    private static final int DEFAULT_ROWS_PER_STATEMENT = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RowBinder<? super T> rowBinder;
+    private final IdAllocator<? super T> idAllocator;
+    private final int rowsPerStatement;
+
+    private final String insert;
+    private final String values;
+    private final String batchSql;
+
+    private MultiRowInsertItemWriter(Builder<T> builder) {
+        Assert.notNull(builder.dataSource, "dataSource는 필수");
+        Assert.hasText(builder.table, "table은 필수");
+        Assert.notEmpty(builder.columns, "columns는 필수");
+        Assert.notNull(builder.rowBinder, "rowBinder는 필수");
+        Assert.isTrue(builder.rowsPerStatement > 0, "rowsPerStatement는 0보다 커야 함");
+        Assert.isTrue(builder.idColumn == null || builder.idAllocator != null, "idColumn을 지정하면 idAllocator는 필수");
+
+        this.jdbcTemplate = new JdbcTemplate(builder.dataSource);
+        this.rowBinder = builder.rowBinder;
+        this.idAllocator = builder.idAllocator;
+        this.rowsPerStatement = builder.rowsPerStatement;
+
+        List<String> columns = new ArrayList<>();
+        if (builder.idColumn != null) {
+            columns.add(builder.idColumn);
+        }
+        columns.addAll(builder.columns);
+
+        this.insert = "insert into " + builder.table + "(" + String.join(", ", columns) + ") values ";
+        this.values = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        this.batchSql = multiRowInsert(rowsPerStatement);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public void write(List<? extends T> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        long[] ids = idAllocator != null ? idAllocator.allocate(items) : null;
+
+        int batchCount = items.size() / rowsPerStatement;
+        int remaining = items.size() - batchCount * rowsPerStatement;
+
+        if (batchCount > 0) {
+            int[] insertCounts = jdbcTemplate.execute(batchSql, (PreparedStatementCallback<int[]>) ps -> {
+                for (int i = 0; i < batchCount; i++) {
+                    bind(ps, items, ids, i * rowsPerStatement, rowsPerStatement);
+                    ps.addBatch();
+                }
+
+                return ps.executeBatch();
+            });
+
+            assertInserts(insertCounts, rowsPerStatement);
+        }
+
+        if (remaining > 0) {
+            int from = batchCount * rowsPerStatement;
+            int insertCount = jdbcTemplate.update(multiRowInsert(remaining), ps -> bind(ps, items, ids, from, remaining));
+
+            assertInserts(new int[]{insertCount}, remaining);
+        }
+    }
+
+    private void bind(PreparedStatement ps, List<? extends T> items, long[] ids, int from, int rows) throws SQLException {
+        int index = 1;
+
+        for (int i = from; i < from + rows; i++) {
+            if (ids != null) {
+                ps.setLong(index++, ids[i]);
+            }
+
+            index = rowBinder.bind(ps, index, items.get(i));
+        }
+    }
+
+    // 행 수를 알려주지 않는 드라이버(rewriteBatchedStatements 등)는 SUCCESS_NO_INFO
+    private void assertInserts(int[] insertCounts, int rows) {
+        for (int insertCount : insertCounts) {
+            if (insertCount != rows && insertCount != Statement.SUCCESS_NO_INFO) {
+                throw new EmptyResultDataAccessException(
+                        "multi-row insert : expected " + rows + " rows but inserted " + insertCount + " (" + insert + ")", rows);
+            }
+        }
+    }
+
+    private String multiRowInsert(int rows) {
+        StringBuilder sql = new StringBuilder(insert.length() + (values.length() + 1) * rows);
+        sql.append(insert);
+
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(values);
+        }
+
+        return sql.toString();
+    }
+
+    // item 하나의 컬럼을 index부터 순서대로 바인딩하고 다음 index를 반환 (columns와 같은 순서, 같은 개수)
+    @FunctionalInterface
+    public interface RowBinder<T> {
+
+        int bind(PreparedStatement ps, int index, T item) throws SQLException;
+    }
+
+    // items와 같은 순서로 id를 할당
+    @FunctionalInterface
+    public interface IdAllocator<T> {
+
+        long[] allocate(List<? extends T> items);
+    }
+
+    public static class Builder<T> {
+
+        private DataSource dataSource;
+        private String table;
+        private String idColumn;
+        private IdAllocator<? super T> idAllocator;
+        private List<String> columns = new ArrayList<>();
+        private RowBinder<? super T> rowBinder;
+        private int rowsPerStatement = DEFAULT_ROWS_PER_STATEMENT;
+
+        private Builder() {}
+
+        public Builder<T> dataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+            return this;
+        }
+
+        public Builder<T> table(String table) {
+            this.table = table;
+            return this;
+        }
+
+        // id 컬럼은 columns 앞에 기록
+        public Builder<T> idColumn(String idColumn, IdAllocator<? super T> idAllocator) {
+            this.idColumn = idColumn;
+            this.idAllocator = idAllocator;
+            return this;
+        }
+
+        public Builder<T> columns(String... columns) {
+            this.columns = Arrays.asList(columns);
+            return this;
+        }
+
+        public Builder<T> rowBinder(RowBinder<? super T> rowBinder) {
+            this.rowBinder = rowBinder;
+            return this;
+        }
+
+        // insert 문 하나에 묶을 행 수 (MySQL은 max_allowed_packet 이내)
+        public Builder<T> rowsPerStatement(int rowsPerStatement) {
+            this.rowsPerStatement = rowsPerStatement;
+            return this;
+        }
+
+        public MultiRowInsertItemWriter<T> build() {
+            return new MultiRowInsertItemWriter<>(this);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package cocoball.springbatchstudy;
+
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+import org.springframework.util.Assert;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * item의 필드를 PreparedStatement의 위치 기반 파라미터(?)에 바로 바인딩
+ * - BeanPropertyItemSqlParameterSourceProvider는 item 마다 BeanWrapper를 만들고, 파라미터 마다 getter를 리플렉션으로 찾아서 호출한 뒤
+ *   named parameter(:name) 값 배열을 다시 만들어서 setObject로 바인딩
+ * - 컬럼 별 getter(메서드 참조)와 setXxx 호출을 시작 시점에 배열로 만들어 두고 item 마다 순서대로 호출만 함
+ *   (Map, BeanWrapper, 값 배열 없음, int / long 컬럼은 boxing 없음)
+ * - JdbcBatchItemWriter의 itemPreparedStatementSetter, MultiRowInsertItemWriter의 rowBinder로 사용 (불변, thread-safe)
+ */
+public class PositionalParameterBinder<T> implements ItemPreparedStatementSetter<T>, MultiRowInsertItemWriter.RowBinder<T> {
+
+    private final String[] columns;
+    private final ColumnSetter<? super T>[] setters;
+
+    @SuppressWarnings("unchecked")
+    private PositionalParameterBinder(Builder<T> builder) {
+        Assert.notEmpty(builder.columns, "컬럼이 하나 이상 필요");
+
+        this.columns = builder.columns.toArray(new String[0]);
+        this.setters = builder.setters.toArray(new ColumnSetter[0]);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public void setValues(T item, PreparedStatement ps) throws SQLException {
+        bind(ps, 1, item);
+    }
+
+    @Override
+    public int bind(PreparedStatement ps, int index, T item) throws SQLException {
+        for (ColumnSetter<? super T> setter : setters) {
+            setter.set(ps, index++, item);
+        }
+
+        return index;
+    }
+
+    // 바인딩 순서대로의 컬럼 이름 (MultiRowInsertItemWriter의 columns)
+    public String[] columns() {
+        return columns.clone();
+    }
+
+    // insert into table(a, b, c) values (?, ?, ?)
+    public String insertSql(String table) {
+        return "insert into " + table + "(" + String.join(", ", columns) + ") values ("
+                + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+    }
+
+    @FunctionalInterface
+    private interface ColumnSetter<T> {
+
+        void set(PreparedStatement ps, int index, T item) throws SQLException;
+    }
+
+    public static class Builder<T> {
+
+        private final List<String> columns = new ArrayList<>();
+        private final List<ColumnSetter<? super T>> setters = new ArrayList<>();
+
+        private Builder() {}
+
+        public Builder<T> stringColumn(String column, Function<? super T, String> accessor) {
+            return column(column, (ps, index, item) -> ps.setString(index, accessor.apply(item)));
+        }
+
+        public Builder<T> intColumn(String column, ToIntFunction<? super T> accessor) {
+            return column(column, (ps, index, item) -> ps.setInt(index, accessor.applyAsInt(item)));
+        }
+
+        public Builder<T> longColumn(String column, ToLongFunction<? super T> accessor) {
+            return column(column, (ps, index, item) -> ps.setLong(index, accessor.applyAsLong(item)));
+        }
+
+        public Builder<T> dateColumn(String column, Function<? super T, LocalDate> accessor) {
+            return column(column, (ps, index, item) -> {
+                LocalDate value = accessor.apply(item);
+
+                if (value == null) {
+                    ps.setNull(index, Types.DATE);
+                } else {
+                    ps.setDate(index, Date.valueOf(value));
+                }
+            });
+        }
+
+        // EnumType.STRING과 같이 이름으로 저장
+        public Builder<T> enumColumn(String column, Function<? super T, ? extends Enum<?>> accessor) {
+            return column(column, (ps, index, item) -> {
+                Enum<?> value = accessor.apply(item);
+                ps.setString(index, value != null ? value.name() : null);
+            });
+        }
+
+        private Builder<T> column(String column, ColumnSetter<? super T> setter) {
+            Assert.hasText(column, "컬럼 이름은 필수");
+
+            columns.add(column);
+            setters.add(setter);
+            return this;
+        }
+
+        public PositionalParameterBinder<T> build() {
+            return new PositionalParameterBinder<>(this);
+        }
+    }
+}
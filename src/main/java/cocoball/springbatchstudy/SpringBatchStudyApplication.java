@@ -1,6 +1,9 @@
 package cocoball.springbatchstudy;
 
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -8,8 +11,11 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import javax.sql.DataSource;
+
 @SpringBootApplication
 @EnableBatchProcessing // Batch Processing을 하겠음을 선언
+@Slf4j
 public class SpringBatchStudyApplication {
 
     public static void main(String[] args) {
@@ -22,7 +28,24 @@ public class SpringBatchStudyApplication {
 
     @Bean
     @Primary // 이미 빈이 설정되어 있어서 해당 빈을 우선으로 사용하게끔 설정
-    TaskExecutor taskExecutor() {
+    TaskExecutor taskExecutor(@Value("${task.executor:platform}") String mode, DataSource dataSource) {
+
+        // --task.executor=virtual : 작업마다 virtual thread 사용 (JDBC 대기 시간이 대부분인 작업에 유리)
+        // 지원하지 않는 JVM이면 기존 스레드 풀 사용
+        if ("virtual".equals(mode)) {
+
+            // virtual thread는 개수 제한이 없으므로 커넥션 풀 크기로 동시 실행 수를 제한 (job repository 갱신용으로 1개 남겨둠)
+            int concurrencyLimit = Math.max(1, maximumPoolSize(dataSource) - 1);
+
+            TaskExecutor virtualThreadTaskExecutor = VirtualThreadTaskExecutorFactory
+                    .create("batch_vthread-", concurrencyLimit)
+                    .orElse(null);
+
+            if (virtualThreadTaskExecutor != null) {
+                log.info("virtual thread TaskExecutor 사용, 동시 실행 제한 : {}", concurrencyLimit);
+                return virtualThreadTaskExecutor;
+            }
+        }
 
         ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
         taskExecutor.setCorePoolSize(10);
@@ -32,4 +55,13 @@ public class SpringBatchStudyApplication {
 
         return taskExecutor;
     }
+
+    private int maximumPoolSize(DataSource dataSource) {
+
+        if (dataSource instanceof HikariDataSource) {
+            return ((HikariDataSource) dataSource).getMaximumPoolSize();
+        }
+
+        return 10; // Hikari 기본값
+    }
 }
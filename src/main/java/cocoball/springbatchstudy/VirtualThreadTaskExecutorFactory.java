@@ -0,0 +1,45 @@
+package cocoball.springbatchstudy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 작업 1개당 virtual thread 1개를 생성하는 TaskExecutor
+ * 프로젝트는 Java 11로 컴파일하므로 Thread.ofVirtual()을 리플렉션으로 호출하고, 지원하지 않는 JVM이면 Optional.empty()
+ */
+@Slf4j
+public class VirtualThreadTaskExecutorFactory {
+
+    private VirtualThreadTaskExecutorFactory() {}
+
+    /**
+     * @param threadNamePrefix 로그에 찍히는 스레드 이름
+     * @param concurrencyLimit 동시에 실행될 수 있는 최대 작업 수 (넘으면 작업을 제출하는 쪽이 대기)
+     */
+    public static Optional<TaskExecutor> create(String threadNamePrefix, int concurrencyLimit) {
+        return virtualThreadFactory(threadNamePrefix).map(threadFactory -> {
+            SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(threadFactory);
+            taskExecutor.setConcurrencyLimit(concurrencyLimit);
+
+            return taskExecutor;
+        });
+    }
+
+    private static Optional<ThreadFactory> virtualThreadFactory(String threadNamePrefix) {
+        try {
+            // Thread.ofVirtual().name(prefix, 0).factory()
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+
+            return Optional.of((ThreadFactory) builderType.getMethod("factory").invoke(builder));
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            log.info("virtual thread를 지원하지 않는 JVM ({}) : {}", System.getProperty("java.version"), e.toString());
+            return Optional.empty();
+        }
+    }
+}
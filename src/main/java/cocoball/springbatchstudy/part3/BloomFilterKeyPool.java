@@ -0,0 +1,77 @@
+package cocoball.springbatchstudy.part3;
+
+/**
+ * Bloom filter로 처음 보는 key를 걸러내고, 있을 수도 있는 key만 내부 pool(exact)로 확인하는 key pool
+ * - 새 key는 대부분 Bloom filter에서 바로 판단되므로 SpillingKeyPool의 파일 조회가 중복 key와 오탐(falsePositiveRate)일 때만 발생
+ * - Bloom filter 크기는 expectedKeys, falsePositiveRate로 정해짐 (1억 건, 1% 기준 약 120MB)
+ *   expectedKeys를 넘어서 추가되면 오탐률이 올라가지만 결과는 exact pool이 확인하므로 항상 정확함
+ */
+public class BloomFilterKeyPool implements DuplicateKeyPool {
+
+    private final DuplicateKeyPool exact;
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilterKeyPool(DuplicateKeyPool exact, long expectedKeys, double falsePositiveRate) {
+        if (expectedKeys <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedKeys는 1 이상, falsePositiveRate는 0 ~ 1 사이 : " + expectedKeys + ", " + falsePositiveRate);
+        }
+
+        long optimalBits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long words = (optimalBits + 63) >>> 6;
+
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bloom filter가 너무 큼 : " + optimalBits + " bit");
+        }
+
+        this.exact = exact;
+        this.bits = new long[(int) words];
+        this.bitCount = words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+    }
+
+    @Override
+    public boolean contains(long fingerprint) {
+        return mightContain(fingerprint) && exact.contains(fingerprint);
+    }
+
+    @Override
+    public void add(long fingerprint) {
+        // double hashing : fingerprint의 상위 / 하위 bit로 hashCount개의 위치를 만듦
+        long hash = fingerprint;
+        long step = Long.rotateLeft(fingerprint, 32) | 1;
+
+        for (int i = 0; i < hashCount; i++, hash += step) {
+            long index = Math.floorMod(hash, bitCount);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+
+        exact.add(fingerprint);
+    }
+
+    @Override
+    public long size() {
+        return exact.size();
+    }
+
+    @Override
+    public void close() {
+        exact.close();
+    }
+
+    private boolean mightContain(long fingerprint) {
+        long hash = fingerprint;
+        long step = Long.rotateLeft(fingerprint, 32) | 1;
+
+        for (int i = 0; i < hashCount; i++, hash += step) {
+            long index = Math.floorMod(hash, bitCount);
+
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package cocoball.springbatchstudy.part3;
 
+import cocoball.springbatchstudy.AdaptiveChunkSizePolicy;
 import io.micrometer.core.instrument.util.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
@@ -16,7 +17,9 @@ import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.repeat.CompletionPolicy;
 import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -41,7 +44,7 @@ public class ChunkProcessingConfiguration {
         return jobBuilderFactory.get("chunkProcessingJob")
                 .incrementer(new RunIdIncrementer())
                 .start(this.taskBaseStep())
-                .next(this.chunkBaseStep(null)) // null로 설정하더라도 Spring이 @Value를 확인하여 값을 넣어줌
+                .next(this.chunkBaseStep(null, null)) // null로 설정하더라도 Spring이 @Value를 확인하여 값을 넣어줌
                 .build();
     }
 
@@ -54,13 +57,22 @@ public class ChunkProcessingConfiguration {
 
     @Bean
     @JobScope
-    public Step chunkBaseStep(@Value("#{jobParameters[chunkSize]}") String chunkSize) {
+    public Step chunkBaseStep(@Value("#{jobParameters[chunkSize]}") String chunkSize,
+                              @Value("#{jobParameters[targetCommitMillis]}") String targetCommitMillis) {
+
+        int initialChunkSize = StringUtils.isNotEmpty(chunkSize) ? Integer.parseInt(chunkSize) : 10;
+
+        // targetCommitMillis가 있으면 chunkSize는 시작 값으로만 사용하고 commit 시간에 맞춰 조절
+        CompletionPolicy completionPolicy = StringUtils.isNotEmpty(targetCommitMillis)
+                ? new AdaptiveChunkSizePolicy(initialChunkSize, Long.parseLong(targetCommitMillis), 1, 100)
+                : new SimpleCompletionPolicy(initialChunkSize);
 
         return stepBuilderFactory.get("chunkBaseStep")
-                .<String, String>chunk(StringUtils.isNotEmpty(chunkSize) ? Integer.parseInt(chunkSize) : 10) // <INPUT, OUTPUT> 을 int 개수 단위로 쪼개서 반복
+                .<String, String>chunk(completionPolicy) // <INPUT, OUTPUT> 을 CompletionPolicy가 complete를 반환할 때까지 쪼개서 반복
                 .reader(itemReader()) // reader가 null을 return 할 때까지 step 반복
                 .processor(itemProcessor()) // reader의 return 값을 processing
                 .writer(itemWriter()) // processor가 processing한 값 list를 받아 write
+                .listener(completionPolicy) // AdaptiveChunkSizePolicy의 chunk 시간 측정용 리스너 (SimpleCompletionPolicy는 등록되는 리스너 없음)
                 .build();
     }
 
@@ -1,29 +1,72 @@
 package cocoball.springbatchstudy.part3;
 
-import org.springframework.batch.item.ItemReader;
-import org.springframework.batch.item.NonTransientResourceException;
-import org.springframework.batch.item.ParseException;
-import org.springframework.batch.item.UnexpectedInputException;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+import org.springframework.util.ClassUtils;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class CustomItemReader<T> implements ItemReader<T> {
+/**
+ * List를 Reader로 처리
+ * - 리스트를 복사하거나 요소를 지우지 않고 다음에 읽을 index(cursor)만 옮김 (read 당 O(1))
+ * - 읽은 index를 ExecutionContext에 저장하고, 재시작 시 그 위치부터 읽음
+ * - concurrent 모드는 여러 thread가 AtomicInteger로 index를 하나씩 가져감 (lock 없음, multi-thread step용)
+ *   thread 마다 commit 시점이 달라서 저장한 위치로 재시작할 수 없으므로 위치를 저장하지 않음 (saveState = false와 동일)
+ * 읽는 동안 리스트가 바뀌면 안 됨
+ */
+public class CustomItemReader<T> extends AbstractItemStreamItemReader<T> {
 
-    // List를 Reader로 처리
+    private static final String INDEX_KEY = "index";
 
     private final List<T> items;
+    private final boolean concurrent;
+    private final AtomicInteger cursor = new AtomicInteger();
 
     public CustomItemReader(List<T> items) {
-        this.items = new ArrayList<>(items);
+        this(items, false);
+    }
+
+    public CustomItemReader(List<T> items, boolean concurrent) {
+        this.items = items;
+        this.concurrent = concurrent;
+        setName(ClassUtils.getShortName(CustomItemReader.class));
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        String key = getExecutionContextKey(INDEX_KEY);
+        cursor.set(!concurrent && executionContext.containsKey(key) ? executionContext.getInt(key) : 0);
     }
 
     @Override
-    public T read() throws Exception, UnexpectedInputException, ParseException, NonTransientResourceException {
-        if (!items.isEmpty()) {
-            return items.remove(0); // 0번째 요소를 return하면서 동시에 items에서 제거
+    public T read() {
+        if (concurrent) {
+            int index = cursor.getAndIncrement();
+            return index < items.size() ? items.get(index) : null;
         }
 
-        return null; // read()에서 null 리턴 시 ItemReader의 동작 끝 -> chunk 동작 끝
+        // 단일 thread : CAS 없이 읽고 씀
+        int index = cursor.get();
+
+        if (index >= items.size()) {
+            return null; // read()에서 null 리턴 시 ItemReader의 동작 끝 -> chunk 동작 끝
+        }
+
+        cursor.lazySet(index + 1);
+
+        return items.get(index);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (!concurrent) {
+            executionContext.putInt(getExecutionContextKey(INDEX_KEY), Math.min(cursor.get(), items.size()));
+        }
     }
 }
@@ -0,0 +1,89 @@
+package cocoball.springbatchstudy.part3;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+import org.springframework.util.ClassUtils;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+
+/**
+ * Iterator / Spliterator를 Reader로 처리 (CustomItemReader와 달리 전체 item을 리스트로 만들지 않고 필요할 때 하나씩 생성)
+ * - open 마다 supplier로 새 Iterator를 만들고, 재시작 시 저장된 건수만큼 건너뛴 뒤 이어서 읽음
+ *   (같은 순서로 다시 만들어지는 Iterator여야 함)
+ * - Iterator는 thread-safe 하지 않으므로 read는 synchronized (multi-thread step에서는 위치를 저장하지 않도록 saveState = false)
+ */
+public class CustomIteratorItemReader<T> extends AbstractItemStreamItemReader<T> {
+
+    private static final String COUNT_KEY = "read.count";
+
+    private final Supplier<? extends Iterator<? extends T>> iteratorSupplier;
+    private final boolean saveState;
+
+    private Iterator<? extends T> iterator;
+    private int count;
+
+    public CustomIteratorItemReader(Supplier<? extends Iterator<? extends T>> iteratorSupplier) {
+        this(iteratorSupplier, true);
+    }
+
+    public CustomIteratorItemReader(Supplier<? extends Iterator<? extends T>> iteratorSupplier, boolean saveState) {
+        this.iteratorSupplier = iteratorSupplier;
+        this.saveState = saveState;
+        setName(ClassUtils.getShortName(CustomIteratorItemReader.class));
+    }
+
+    public static <T> CustomIteratorItemReader<T> fromSpliterator(Supplier<? extends Spliterator<? extends T>> spliteratorSupplier) {
+        return new CustomIteratorItemReader<>(() -> Spliterators.iterator(spliteratorSupplier.get()));
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        this.iterator = iteratorSupplier.get();
+        this.count = 0;
+
+        String key = getExecutionContextKey(COUNT_KEY);
+        int skip = saveState && executionContext.containsKey(key) ? executionContext.getInt(key) : 0;
+
+        // 재시작 : 이미 읽은 item은 만들기만 하고 버림
+        while (count < skip && iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+    }
+
+    @Override
+    public synchronized T read() {
+        if (iterator == null) {
+            this.iterator = iteratorSupplier.get(); // stream으로 등록되지 않고 사용하는 경우
+        }
+
+        if (!iterator.hasNext()) {
+            return null;
+        }
+
+        count++;
+
+        return iterator.next();
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (saveState) {
+            executionContext.putInt(getExecutionContextKey(COUNT_KEY), count);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws ItemStreamException {
+        super.close();
+        this.iterator = null;
+    }
+}
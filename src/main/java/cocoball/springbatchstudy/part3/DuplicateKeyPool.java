@@ -0,0 +1,46 @@
+package cocoball.springbatchstudy.part3;
+
+import java.io.Closeable;
+
+/**
+ * DuplicateValidationProcessor가 이미 처리한 key를 보관하는 저장소
+ * key는 String 대신 64bit fingerprint로 보관 (1억 건 기준 fingerprint 충돌로 새 key를 중복으로 판단할 확률은 약 0.03%)
+ * - OffHeapKeyPool : off-heap hash set에 전부 보관
+ * - SpillingKeyPool : 메모리 한도를 넘으면 정렬해서 파일로 내림
+ * - BloomFilterKeyPool : Bloom filter로 새 key를 먼저 걸러내고, 있을 수도 있는 key만 내부 pool로 확인
+ * thread-safe 하지 않음 (DuplicateValidationProcessor가 동기화)
+ */
+public interface DuplicateKeyPool extends Closeable {
+
+    boolean contains(long fingerprint);
+
+    // contains가 false인 fingerprint만 추가됨
+    void add(long fingerprint);
+
+    long size();
+
+    @Override
+    void close();
+
+    // FNV-1a 64bit + MurmurHash3 fmix64 (하위 bit를 hash table index로 바로 사용할 수 있도록 섞음)
+    static long fingerprint(String key) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+
+        return value;
+    }
+}
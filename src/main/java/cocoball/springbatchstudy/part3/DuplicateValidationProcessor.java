@@ -1,23 +1,104 @@
 package cocoball.springbatchstudy.part3;
 
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
-public class DuplicateValidationProcessor<T> implements ItemProcessor<T, T> {
+/**
+ * key가 이미 처리된 item이면 filter(null 리턴)
+ * - key는 String 대신 64bit fingerprint로 DuplicateKeyPool에 보관 (기본값 OffHeapKeyPool, 대용량은 BloomFilterKeyPool + SpillingKeyPool)
+ * - 처리 중인 chunk의 key는 트랜잭션이 commit 될 때 pool에 반영 (롤백된 chunk를 다시 처리할 때 자기 자신과 중복으로 걸러지지 않음)
+ * - checkpointFile을 지정하면 commit 되는 key를 파일에 이어 쓰고 그 위치를 ExecutionContext에 저장,
+ *   재시작 시 저장된 위치까지 읽어서 pool을 다시 채우므로 재시작 후에도 이전 실행의 key와 중복 확인 (재시작은 단일 thread step 기준)
+ * CompositeItemProcessor 안에서 사용하면 step에 stream으로 등록해야 open / update / close가 호출됨
+ */
+public class DuplicateValidationProcessor<T> extends ItemStreamSupport implements ItemProcessor<T, T> {
+
+    private static final String POSITION_KEY = "position";
+    private static final long DEFAULT_EXPECTED_KEYS = 1 << 20;
+    private static final int CHECKPOINT_BUFFER_SIZE = 64 * 1024;
 
-    private final Map<String, Object> keyPool = new ConcurrentHashMap<>();
     private final Function<T, String> keyExtractor;
     private final boolean allowDuplicate;
+    private final Supplier<? extends DuplicateKeyPool> keyPoolFactory;
+    private final Path checkpointFile;
+    private final OffHeapKeyPool inFlightKeys = new OffHeapKeyPool(1_024); // 아직 commit 되지 않은 key (다른 thread의 chunk와 중복 확인)
+
+    private DuplicateKeyPool keyPool;
+    private FileChannel checkpointChannel;
+    private ByteBuffer checkpointBuffer;
+    private long committedPosition;
 
     public DuplicateValidationProcessor(Function<T, String> keyExtractor, boolean allowDuplicate) {
-        this.keyExtractor = keyExtractor;
-        this.allowDuplicate = allowDuplicate;
+        this(DuplicateValidationProcessor.<T>builder().keyExtractor(keyExtractor).allowDuplicate(allowDuplicate));
+    }
+
+    private DuplicateValidationProcessor(Builder<T> builder) {
+        Assert.notNull(builder.keyExtractor, "keyExtractor는 필수");
+        Assert.notNull(builder.keyPoolFactory, "keyPool은 필수");
+
+        setName(builder.name);
+        this.keyExtractor = builder.keyExtractor;
+        this.allowDuplicate = builder.allowDuplicate;
+        this.keyPoolFactory = builder.keyPoolFactory;
+        this.checkpointFile = builder.checkpointFile;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
     }
 
+    @Override
+    public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        closeKeyPool();
+        this.keyPool = keyPoolFactory.get();
+
+        if (checkpointFile == null) {
+            return;
+        }
+
+        String key = getExecutionContextKey(POSITION_KEY);
+
+        try {
+            if (checkpointFile.getParent() != null) {
+                Files.createDirectories(checkpointFile.getParent());
+            }
+
+            this.checkpointChannel = FileChannel.open(checkpointFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.checkpointBuffer = ByteBuffer.allocateDirect(CHECKPOINT_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            // 재시작이면 마지막 commit 위치까지의 key로 pool을 다시 채우고, 처음 실행이면 이전 파일 내용을 버림
+            long position = executionContext.containsKey(key) ? executionContext.getLong(key) : 0;
+
+            if (checkpointChannel.size() < position) {
+                throw new ItemStreamException("재시작 위치(" + position + ")보다 checkpoint 파일 크기(" + checkpointChannel.size() + ")가 작음 : " + checkpointFile);
+            }
+
+            checkpointChannel.truncate(position);
+            replay(position);
+            checkpointChannel.position(position);
+            this.committedPosition = position;
+        } catch (IOException e) {
+            throw new ItemStreamException("checkpoint 파일을 열 수 없음 : " + checkpointFile, e);
+        }
+    }
 
     @Override
     public T process(T item) throws Exception {
@@ -26,14 +107,253 @@ public class DuplicateValidationProcessor<T> implements ItemProcessor<T, T> {
             return item; // 필터링을 하지 않는 경우
         }
 
-        String key = keyExtractor.apply(item); // 아이템에서 키를 추출
+        long fingerprint = DuplicateKeyPool.fingerprint(keyExtractor.apply(item)); // 아이템에서 키를 추출
+
+        synchronized (this) {
+            if (keyPool == null) {
+                this.keyPool = keyPoolFactory.get(); // stream으로 등록하지 않고 사용하는 경우
+            }
 
-        if (keyPool.containsKey(key)) {
-            return null; // 키가 키 풀에 존재하는 키이면 중복값이므로 null 리턴
+            if (keyPool.contains(fingerprint) || inFlightKeys.contains(fingerprint)) {
+                return null; // 키가 키 풀에 존재하는 키이면 중복값이므로 null 리턴
+            }
+
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                addCommitted(fingerprint); // 트랜잭션 밖에서는 바로 반영
+                flushCheckpoint();
+                this.committedPosition = checkpointChannel != null ? checkpointChannel.position() : 0;
+                return item;
+            }
+
+            inFlightKeys.add(fingerprint);
         }
 
-        keyPool.put(key, key); // 키 풀에 키를 저장 (차후 중복 체크를 위해)
+        transactionKeys().add(fingerprint);
 
         return item;
     }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        // update는 commit 직전에 호출되므로 이번 commit에서 기록될 key까지 포함한 위치를 저장
+        if (checkpointChannel != null) {
+            TransactionKeys pending = TransactionSynchronizationManager.isSynchronizationActive()
+                    ? (TransactionKeys) TransactionSynchronizationManager.getResource(this) : null;
+            long pendingSize = pending != null ? (long) pending.size * Long.BYTES : 0;
+
+            executionContext.putLong(getExecutionContextKey(POSITION_KEY), committedPosition + pendingSize);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws ItemStreamException {
+        super.close();
+
+        closeKeyPool();
+
+        if (checkpointChannel == null) {
+            return;
+        }
+
+        try {
+            checkpointChannel.truncate(committedPosition); // commit 되지 않은 key는 버림
+            checkpointChannel.close();
+        } catch (IOException e) {
+            throw new ItemStreamException("checkpoint 파일을 닫을 수 없음 : " + checkpointFile, e);
+        } finally {
+            this.checkpointChannel = null;
+            this.checkpointBuffer = null;
+        }
+    }
+
+    // 현재 chunk 트랜잭션의 key 목록 (트랜잭션 당 한 번만 synchronization 등록)
+    private TransactionKeys transactionKeys() {
+        TransactionKeys keys = (TransactionKeys) TransactionSynchronizationManager.getResource(this);
+
+        if (keys != null) {
+            return keys;
+        }
+
+        TransactionKeys newKeys = new TransactionKeys();
+        TransactionSynchronizationManager.bindResource(this, newKeys);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // key를 commit 전에 기록해야 DB commit과 checkpoint 위치가 어긋나지 않음
+                synchronized (DuplicateValidationProcessor.this) {
+                    try {
+                        for (int i = 0; i < newKeys.size; i++) {
+                            appendCheckpoint(newKeys.values[i]);
+                        }
+
+                        flushCheckpoint();
+                    } catch (IOException e) {
+                        throw new ItemStreamException("checkpoint 파일 기록 실패 : " + checkpointFile, e);
+                    }
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(DuplicateValidationProcessor.this);
+                completeTransaction(newKeys, status == STATUS_COMMITTED);
+            }
+        });
+
+        return newKeys;
+    }
+
+    private synchronized void completeTransaction(TransactionKeys keys, boolean committed) {
+        for (int i = 0; i < keys.size; i++) {
+            inFlightKeys.remove(keys.values[i]);
+
+            if (committed && keyPool != null) {
+                keyPool.add(keys.values[i]);
+            }
+        }
+
+        if (checkpointChannel == null) {
+            return;
+        }
+
+        try {
+            if (committed) {
+                this.committedPosition = checkpointChannel.position();
+                return;
+            }
+
+            // 롤백 : 이미 기록했다면(DB commit 실패 등) 마지막 commit 위치로 잘라냄
+            checkpointBuffer.clear();
+            checkpointChannel.truncate(committedPosition);
+            checkpointChannel.position(committedPosition);
+        } catch (IOException e) {
+            throw new ItemStreamException("checkpoint 파일 위치를 되돌릴 수 없음 : " + checkpointFile, e);
+        }
+    }
+
+    private void addCommitted(long fingerprint) throws IOException {
+        keyPool.add(fingerprint);
+        appendCheckpoint(fingerprint);
+    }
+
+    private void appendCheckpoint(long fingerprint) throws IOException {
+        if (checkpointChannel == null) {
+            return;
+        }
+
+        if (!checkpointBuffer.hasRemaining()) {
+            flushCheckpoint();
+        }
+
+        checkpointBuffer.putLong(fingerprint);
+    }
+
+    private void flushCheckpoint() throws IOException {
+        if (checkpointChannel == null) {
+            return;
+        }
+
+        checkpointBuffer.flip();
+
+        while (checkpointBuffer.hasRemaining()) {
+            checkpointChannel.write(checkpointBuffer);
+        }
+
+        checkpointBuffer.clear();
+    }
+
+    // checkpoint 파일의 처음부터 position까지의 key를 pool에 추가
+    private void replay(long position) throws IOException {
+        long offset = 0;
+
+        while (offset < position) {
+            checkpointBuffer.clear();
+            checkpointBuffer.limit((int) Math.min(checkpointBuffer.capacity(), position - offset));
+
+            while (checkpointBuffer.hasRemaining()) {
+                if (checkpointChannel.read(checkpointBuffer, offset + checkpointBuffer.position()) < 0) {
+                    throw new ItemStreamException("checkpoint 파일이 잘림 : " + checkpointFile);
+                }
+            }
+
+            checkpointBuffer.flip();
+            offset += checkpointBuffer.remaining();
+
+            while (checkpointBuffer.remaining() >= Long.BYTES) {
+                long fingerprint = checkpointBuffer.getLong();
+
+                if (!keyPool.contains(fingerprint)) {
+                    keyPool.add(fingerprint);
+                }
+            }
+        }
+
+        checkpointBuffer.clear();
+    }
+
+    private void closeKeyPool() {
+        if (keyPool != null) {
+            keyPool.close();
+            this.keyPool = null;
+        }
+    }
+
+    private static class TransactionKeys {
+
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                this.values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = value;
+        }
+    }
+
+    public static class Builder<T> {
+
+        private String name = "duplicateValidationProcessor";
+        private Function<T, String> keyExtractor;
+        private boolean allowDuplicate;
+        private Supplier<? extends DuplicateKeyPool> keyPoolFactory = () -> new OffHeapKeyPool(DEFAULT_EXPECTED_KEYS);
+        private Path checkpointFile;
+
+        private Builder() {}
+
+        // ExecutionContext key로 사용
+        public Builder<T> name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder<T> keyExtractor(Function<T, String> keyExtractor) {
+            this.keyExtractor = keyExtractor;
+            return this;
+        }
+
+        public Builder<T> allowDuplicate(boolean allowDuplicate) {
+            this.allowDuplicate = allowDuplicate;
+            return this;
+        }
+
+        // open 마다 새 pool을 만듦 (close 시 pool도 close)
+        public Builder<T> keyPool(Supplier<? extends DuplicateKeyPool> keyPoolFactory) {
+            this.keyPoolFactory = keyPoolFactory;
+            return this;
+        }
+
+        // commit 된 key를 기록해서 재시작 시 pool을 다시 채우는 파일 (지정하지 않으면 재시작 시 이전 key는 확인하지 않음)
+        public Builder<T> checkpointFile(Path checkpointFile) {
+            this.checkpointFile = checkpointFile;
+            return this;
+        }
+
+        public DuplicateValidationProcessor<T> build() {
+            return new DuplicateValidationProcessor<>(this);
+        }
+    }
 }
@@ -1,23 +1,24 @@
 package cocoball.springbatchstudy.part3;
 
+import cocoball.springbatchstudy.MappedCsvItemReader;
+import cocoball.springbatchstudy.MappedCsvPartitioner;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JdbcCursorItemReader;
 import org.springframework.batch.item.database.JpaCursorItemReader;
 import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
 import org.springframework.batch.item.database.builder.JpaCursorItemReaderBuilder;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.TaskExecutor;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
@@ -29,19 +30,23 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ItemReaderConfiguration {
 
+    private final int CSV_GRID_SIZE = 4;
     private final JobBuilderFactory jobBuilderFactory;
     private final StepBuilderFactory stepBuilderFactory;
     private final DataSource dataSource;
     private final EntityManagerFactory entityManagerFactory;
+    private final TaskExecutor taskExecutor;
 
     public ItemReaderConfiguration(JobBuilderFactory jobBuilderFactory,
                                    StepBuilderFactory stepBuilderFactory,
                                    DataSource dataSource,
-                                   EntityManagerFactory entityManagerFactory) {
+                                   EntityManagerFactory entityManagerFactory,
+                                   TaskExecutor taskExecutor) {
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
         this.dataSource = dataSource;
         this.entityManagerFactory = entityManagerFactory;
+        this.taskExecutor = taskExecutor;
     }
 
     @Bean
@@ -64,11 +69,22 @@ public class ItemReaderConfiguration {
                 .build();
     }
 
+    // csv 파일을 라인 경계 기준 byte 구간으로 나눠서 구간마다 worker step을 병렬로 실행
     @Bean
-    public Step csvFileStep() throws Exception {
+    public Step csvFileStep() {
         return stepBuilderFactory.get("csvFileStep")
+                .partitioner("csvFileWorkerStep", new MappedCsvPartitioner(new ClassPathResource("test.csv")))
+                .step(csvFileWorkerStep())
+                .gridSize(CSV_GRID_SIZE)
+                .taskExecutor(this.taskExecutor)
+                .build();
+    }
+
+    @Bean
+    public Step csvFileWorkerStep() {
+        return stepBuilderFactory.get("csvFileWorkerStep")
                 .<Person, Person>chunk(10)
-                .reader(this.csvFileItemReader())
+                .reader(this.csvFileItemReader(null, null))
                 .writer(itemWriter())
                 .build();
     }
@@ -92,36 +108,19 @@ public class ItemReaderConfiguration {
     }
 
 
-    private FlatFileItemReader<Person> csvFileItemReader() throws Exception {
-
-        // csv를 한 줄씩 읽는 LineMapper
-        DefaultLineMapper<Person> lineMapper = new DefaultLineMapper<>();
-
-        // csv에서 읽은 데이터를 person 객체에 매핑하기 위해 person 필드명을 설정하는 Tokenizer
-        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
-        tokenizer.setNames("id", "name", "age", "address");
-        lineMapper.setLineTokenizer(tokenizer); // LineMapper에 Tokenizer 주입
-
-        lineMapper.setFieldSetMapper(fieldSet -> {
-            int id = fieldSet.readInt("id");
-            String name = fieldSet.readString("name");
-            String age = fieldSet.readString("age");
-            String address = fieldSet.readString("address");
-
-            return new Person(id, name, age, address); // 읽은 데이터를 토대로 person 객체 생성
-        });
+    @Bean
+    @StepScope
+    public MappedCsvItemReader<Person> csvFileItemReader(@Value("#{stepExecutionContext[startOffset]}") Long startOffset,
+                                                         @Value("#{stepExecutionContext[endOffset]}") Long endOffset) {
 
-        FlatFileItemReader<Person> itemReader = new FlatFileItemReaderBuilder<Person>()
+        // FieldSet, 라인 String을 만들지 않고 매핑된 파일 위에서 바로 tokenize 해서 person 객체 생성
+        return MappedCsvItemReader.<Person>builder()
                 .name("csvFileItemReader")
-                .encoding("UTF-8")
                 .resource(new ClassPathResource("test.csv")) // resources 디렉터리 하위의 대상 파일을 읽음
-                .linesToSkip(1) // 해당 줄부터 읽겠다
-                .lineMapper(lineMapper)
+                .linesToSkip(1) // 해당 줄부터 읽겠다 (파일 처음부터 읽는 파티션에만 적용)
+                .range(startOffset, endOffset) // 파티션에 할당된 byte 구간
+                .lineMapper(new PersonLineMapper("id", "name", "age", "address"))
                 .build();
-
-        itemReader.afterPropertiesSet(); // itemReader가 필수 설정을 설정했는지 확인하는 작업
-
-        return itemReader;
     }
 
 
@@ -1,31 +1,30 @@
 package cocoball.springbatchstudy.part3;
 
+import cocoball.springbatchstudy.BufferedCsvItemWriter;
+import cocoball.springbatchstudy.EntityIdAllocator;
+import cocoball.springbatchstudy.PositionalParameterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.JpaItemWriter;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
-import org.springframework.batch.item.file.FlatFileItemWriter;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
-import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
-import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.stream.IntStream;
 
 @Configuration
 @Slf4j
@@ -50,18 +49,19 @@ public class ItemWriterConfiguration {
     public Job itemWriterJob() throws Exception {
         return this.jobBuilderFactory.get("itemWriterJob")
                 .incrementer(new RunIdIncrementer())
-                .start(this.csvItemWriterStep())
+                .start(this.csvItemWriterStep(null))
                 //.next(this.jdbcBatchItemWriterStep())
                 .next(this.jpaItemWriterStep())
                 .build();
     }
 
     @Bean
-    public Step csvItemWriterStep() throws Exception {
+    @JobScope
+    public Step csvItemWriterStep(@Value("#{jobParameters[compression]}") String compression) throws Exception {
         return this.stepBuilderFactory.get("csvItemWriterStep")
                 .<Person, Person>chunk(10)
                 .reader(itemReader())
-                .writer(csvFileItemWriter())
+                .writer(csvFileItemWriter(compression)) // compression=gzip 이면 test-output.csv.gz로 압축해서 기록
                 .build();
     }
 
@@ -84,38 +84,38 @@ public class ItemWriterConfiguration {
     }
 
 
-    private ItemWriter<Person> csvFileItemWriter() throws Exception {
+    private ItemWriter<Person> csvFileItemWriter(String compression) {
 
-        // csv 파일에 작성된 데이터를 추출하기 위한 extractor
-        BeanWrapperFieldExtractor<Person> fieldExtractor = new BeanWrapperFieldExtractor<>();
-        fieldExtractor.setNames(new String[]{"id", "name", "age", "address"});
+        BufferedCsvItemWriter.Compression fileCompression = BufferedCsvItemWriter.Compression.from(compression);
 
-        // 각 필드의 데이터를 라인마다 작성하기 위해 구분값을 설정해주는 LineAggregator
-        DelimitedLineAggregator<Person> lineAggregator = new DelimitedLineAggregator<>();
-        lineAggregator.setDelimiter(","); // csv 파일이므로 ,를 기준으로 필드를 구분
-        lineAggregator.setFieldExtractor(fieldExtractor);
-
-        FlatFileItemWriter itemWriter = new FlatFileItemWriterBuilder<Person>()
+        // 리플렉션(BeanWrapperFieldExtractor) 대신 람다로 각 필드를 꺼내서 ,를 기준으로 구분해 작성
+        // chunk 단위로 버퍼에 모아서 commit 시점에 FileChannel에 한 번에 기록
+        return BufferedCsvItemWriter.<Person>builder()
                 .name("csvFileItemWriter")
-                .encoding("UTF-8")
-                .resource(new FileSystemResource("output/test-output.csv")) // 파일을 write할 디렉터리
-                .lineAggregator(lineAggregator)
-                .headerCallback(writer -> writer.write("id,이름,나이,거주지")) // header 설정
-                .footerCallback(writer -> writer.write("----------------\n")) // footer 설정, 개행 \n을 추가
+                .resource(new FileSystemResource(fileCompression.fileName("output/test-output.csv"))) // 파일을 write할 디렉터리
+                .compression(fileCompression) // append 시에도 gzip member를 이어 붙이므로 하나의 gzip 파일로 읽힘
+                .header("id,이름,나이,거주지") // header 설정
+                .footer("----------------") // footer 설정, 개행은 writer가 추가
                 .append(true) // 기존 파일에 완전히 덮어쓰기가 아니라 새로 write 해야 할 부분을 기존 파일에 이어서 붙여넣음
+                .longColumn(Person::getId)
+                .column(Person::getName)
+                .column(Person::getAge)
+                .column(Person::getAddress)
                 .build();
-
-        itemWriter.afterPropertiesSet();
-
-        return itemWriter;
     }
 
 
     private ItemWriter<Person> jdbcBatchItemWriter() throws Exception {
-        JdbcBatchItemWriter itemWriter = new JdbcBatchItemWriterBuilder<Person>()
+
+        // BeanPropertyItemSqlParameterSourceProvider(item 마다 BeanWrapper, 리플렉션) 대신 getter 메서드 참조로 ?에 바로 바인딩
+        // id는 JPA와 같은 person_id_seq에서 allocationSize 만큼 한 번에 할당해 두고 item 마다 꺼냄
+        EntityIdAllocator<Person> idAllocator = new EntityIdAllocator<>(entityManagerFactory, Person.class, Person.ID_ALLOCATION_SIZE);
+        PositionalParameterBinder<Person> parameterBinder = PersonParameterBinders.withId(idAllocator::nextId);
+
+        JdbcBatchItemWriter<Person> itemWriter = new JdbcBatchItemWriterBuilder<Person>()
                 .dataSource(dataSource)
-                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
-                .sql("insert into person(name, age, address) values(:name, :age, :address)")
+                .itemPreparedStatementSetter(parameterBinder)
+                .sql(parameterBinder.insertSql("person"))
                 .build();
 
         itemWriter.afterPropertiesSet();
@@ -139,18 +139,11 @@ public class ItemWriterConfiguration {
 
 
 
+    // item을 리스트로 미리 만들지 않고 읽을 때마다 하나씩 생성
     private ItemReader<Person> itemReader() {
-        return new CustomItemReader<>(getItems());
-    }
-
-    private List<Person> getItems() {
-        List<Person> items = new ArrayList<>();
-
-        for (int i = 0; i < 100; i++) {
-            // items.add(new Person(i + 1, "test name" + i, "test age", "test address"));
-            items.add(new Person("test name" + i, "test age", "test address")); // jpa persist 에러 해결용
-        }
-
-        return items;
+        return new CustomIteratorItemReader<>(() -> IntStream.range(0, 100)
+                // .mapToObj(i -> new Person(i + 1, "test name" + i, "test age", "test address"))
+                .mapToObj(i -> new Person("test name" + i, "test age", "test address")) // jpa persist 에러 해결용
+                .iterator());
     }
 }
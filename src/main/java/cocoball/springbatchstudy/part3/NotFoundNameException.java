@@ -1,4 +1,13 @@
 package cocoball.springbatchstudy.part3;
 
 public class NotFoundNameException extends RuntimeException {
+
+    public NotFoundNameException() {
+        super();
+    }
+
+    // writableStackTrace = false : 항상 같은 이유로 실패하는 검증 예외라 호출 경로가 필요 없으므로 stack trace 생성 비용을 생략
+    public NotFoundNameException(boolean writableStackTrace) {
+        super(null, null, false, writableStackTrace);
+    }
 }
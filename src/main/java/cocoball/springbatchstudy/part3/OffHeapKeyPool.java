@@ -0,0 +1,237 @@
+package cocoball.springbatchstudy.part3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.LongConsumer;
+
+/**
+ * fingerprint를 direct ByteBuffer에 보관하는 open addressing(linear probing) hash set
+ * - key 당 8 byte (load factor 0.75 기준 약 11 byte), ConcurrentHashMap<String, Object>의 entry + String 보다 훨씬 작고 GC 대상이 아님
+ * - segment(최대 2^27 slot = 1GB)로 나눠서 ByteBuffer 크기 제한(2GB)을 넘는 key 수도 보관, segment 마다 따로 2배씩 늘어남
+ * - 0은 빈 slot 표시로 사용하므로 fingerprint 0은 별도 flag로 보관
+ * 메모리 해제는 GC가 처리 (close 후 참조 제거)
+ */
+public class OffHeapKeyPool implements DuplicateKeyPool {
+
+    private static final int SLOT_SIZE = Long.BYTES;
+    private static final int MIN_SEGMENT_SLOTS = 16;
+    private static final int MAX_SEGMENT_SLOTS = 1 << 27;
+    private static final int INITIAL_SEGMENT_KEYS = 1 << 24;
+    private static final double LOAD_FACTOR = 0.75;
+
+    private final int segmentShift;
+    private ByteBuffer[] segments;
+    private int[] segmentSizes;
+    private boolean containsZero;
+    private long size;
+
+    public OffHeapKeyPool(long expectedKeys) {
+        int segmentCount = Integer.highestOneBit((int) Math.max(1, Math.min(1 << 16, expectedKeys / INITIAL_SEGMENT_KEYS)));
+        long segmentSlots = tableSizeFor((long) Math.ceil(expectedKeys / (double) segmentCount / LOAD_FACTOR));
+
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        this.segments = new ByteBuffer[segmentCount];
+        this.segmentSizes = new int[segmentCount];
+
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = allocate((int) segmentSlots);
+        }
+    }
+
+    @Override
+    public boolean contains(long fingerprint) {
+        if (fingerprint == 0) {
+            return containsZero;
+        }
+
+        ByteBuffer segment = segments[segmentIndex(fingerprint)];
+        int mask = slotCount(segment) - 1;
+
+        for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+            long value = segment.getLong(slot * SLOT_SIZE);
+
+            if (value == fingerprint) {
+                return true;
+            }
+
+            if (value == 0) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void add(long fingerprint) {
+        if (fingerprint == 0) {
+            if (!containsZero) {
+                this.containsZero = true;
+                size++;
+            }
+
+            return;
+        }
+
+        int index = segmentIndex(fingerprint);
+
+        if (insert(segments[index], fingerprint)) {
+            segmentSizes[index]++;
+            size++;
+
+            if (segmentSizes[index] > slotCount(segments[index]) * LOAD_FACTOR) {
+                grow(index);
+            }
+        }
+    }
+
+    // linear probing이므로 뒤쪽 slot을 당겨서 빈 slot 없이 삭제 (commit 전 key 관리용)
+    public void remove(long fingerprint) {
+        if (fingerprint == 0) {
+            if (containsZero) {
+                this.containsZero = false;
+                size--;
+            }
+
+            return;
+        }
+
+        int index = segmentIndex(fingerprint);
+        ByteBuffer segment = segments[index];
+        int mask = slotCount(segment) - 1;
+        int slot = (int) fingerprint & mask;
+
+        while (true) {
+            long value = segment.getLong(slot * SLOT_SIZE);
+
+            if (value == 0) {
+                return;
+            }
+
+            if (value == fingerprint) {
+                break;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        int hole = slot;
+
+        for (int next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+            long value = segment.getLong(next * SLOT_SIZE);
+
+            if (value == 0) {
+                break;
+            }
+
+            int home = (int) value & mask;
+
+            // home이 (hole, next] 구간 밖이면 hole로 당겨도 탐색 경로가 끊기지 않음
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                segment.putLong(hole * SLOT_SIZE, value);
+                hole = next;
+            }
+        }
+
+        segment.putLong(hole * SLOT_SIZE, 0);
+        segmentSizes[index]--;
+        size--;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+
+        for (ByteBuffer segment : segments) {
+            for (int slot = 0; slot < slotCount(segment); slot++) {
+                long value = segment.getLong(slot * SLOT_SIZE);
+
+                if (value != 0) {
+                    action.accept(value);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < segments.length; i++) {
+            ByteBuffer segment = segments[i];
+
+            for (int slot = 0; slot < slotCount(segment); slot++) {
+                segment.putLong(slot * SLOT_SIZE, 0);
+            }
+
+            segmentSizes[i] = 0;
+        }
+
+        this.containsZero = false;
+        this.size = 0;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        this.segments = new ByteBuffer[]{allocate(MIN_SEGMENT_SLOTS)};
+        this.segmentSizes = new int[1];
+        this.containsZero = false;
+        this.size = 0;
+    }
+
+    private boolean insert(ByteBuffer segment, long fingerprint) {
+        int mask = slotCount(segment) - 1;
+
+        for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+            long value = segment.getLong(slot * SLOT_SIZE);
+
+            if (value == fingerprint) {
+                return false;
+            }
+
+            if (value == 0) {
+                segment.putLong(slot * SLOT_SIZE, fingerprint);
+                return true;
+            }
+        }
+    }
+
+    private void grow(int index) {
+        ByteBuffer segment = segments[index];
+        int slotCount = slotCount(segment);
+
+        if (slotCount >= MAX_SEGMENT_SLOTS) {
+            throw new IllegalStateException("key 수가 off-heap pool의 한도를 넘음 : " + size + " (SpillingKeyPool 사용)");
+        }
+
+        ByteBuffer larger = allocate(slotCount * 2);
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            long value = segment.getLong(slot * SLOT_SIZE);
+
+            if (value != 0) {
+                insert(larger, value);
+            }
+        }
+
+        segments[index] = larger;
+    }
+
+    // 상위 bit로 segment, 하위 bit로 slot을 정함 (fingerprint는 이미 섞인 값)
+    private int segmentIndex(long fingerprint) {
+        return segments.length == 1 ? 0 : (int) (fingerprint >>> segmentShift);
+    }
+
+    private static int slotCount(ByteBuffer segment) {
+        return segment.capacity() / SLOT_SIZE;
+    }
+
+    private static ByteBuffer allocate(int slotCount) {
+        return ByteBuffer.allocateDirect(slotCount * SLOT_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    private static long tableSizeFor(long slots) {
+        return Math.min(MAX_SEGMENT_SLOTS, Math.max(MIN_SEGMENT_SLOTS, Long.highestOneBit(slots - 1) << 1));
+    }
+}
@@ -7,6 +7,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import java.util.Objects;
 
 @Getter
@@ -14,8 +15,13 @@ import java.util.Objects;
 @NoArgsConstructor
 public class Person {
 
+    // IDENTITY는 insert 후에야 id를 알 수 있어서 Hibernate가 insert를 batch로 묶지 않음
+    // -> pooled sequence로 id를 미리 할당 (sequence 조회 1번에 ID_ALLOCATION_SIZE개, MySQL은 테이블로 대체)
+    public static final int ID_ALLOCATION_SIZE = 100;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_id")
+    @SequenceGenerator(name = "person_id", sequenceName = "person_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private int id;
     private String name;
     private String age;
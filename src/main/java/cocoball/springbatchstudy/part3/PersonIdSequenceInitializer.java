@@ -0,0 +1,43 @@
+package cocoball.springbatchstudy.part3;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * MySQL에서 person_id_seq(Hibernate가 sequence 대신 만드는 next_val 테이블)를 기존 person.id 뒤로 이동
+ * - Person을 IDENTITY에서 pooled sequence로 바꾸면 ddl-auto: update가 새로 만든 person_id_seq는 1부터 시작하므로
+ *   기존 person 행과 id가 겹침 -> 시작 시 max(person.id) + allocationSize 보다 작으면 그 뒤로 옮김 (이미 뒤에 있으면 그대로)
+ * - pooled optimizer는 읽은 값 앞뒤로 allocationSize 만큼의 id를 나눠주므로 allocationSize 만큼 여유를 둠
+ * - ddl-auto로 테이블이 만들어진 뒤에 실행되도록 entityManagerFactory 이후에 초기화, job은 context가 뜬 뒤 실행되므로 항상 이보다 나중
+ */
+@Configuration
+@Profile("mysql")
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class PersonIdSequenceInitializer implements InitializingBean {
+
+    private static final String MAX_PERSON_ID = "select coalesce(max(id), 0) from person";
+    private static final String MOVE_NEXT_VAL = "update person_id_seq set next_val = ? where next_val < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PersonIdSequenceInitializer(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long maxId = jdbcTemplate.queryForObject(MAX_PERSON_ID, Long.class);
+        long nextVal = maxId + Person.ID_ALLOCATION_SIZE + 1;
+
+        if (jdbcTemplate.update(MOVE_NEXT_VAL, nextVal, nextVal) > 0) {
+            log.info("person_id_seq를 기존 person.id({}) 뒤로 이동 : next_val = {}", maxId, nextVal);
+        }
+    }
+}
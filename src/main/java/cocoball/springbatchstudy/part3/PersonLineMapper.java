@@ -0,0 +1,183 @@
+package cocoball.springbatchstudy.part3;
+
+import cocoball.springbatchstudy.MappedCsvLine;
+import cocoball.springbatchstudy.MappedCsvLineMapper;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.file.transform.IncorrectTokenCountException;
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * person csv 한 줄을 바로 Person으로 변환 (DefaultLineMapper + DelimitedLineTokenizer + FieldSetMapper 대신 사용)
+ * - 컬럼 순서는 생성 시 한 번만 index로 바꿔두고, 라인마다 이름으로 찾지 않음 (id 컬럼이 없으면 id = 0)
+ * - String[], DefaultFieldSet, 박싱된 값을 만들지 않고 필요한 컬럼 값만 만듦
+ * - FlatFileItemReader(LineMapper)는 라인 CharSequence를 한 번만 훑어서 변환, MappedCsvItemReader는 MappedCsvLine에서 바로 변환
+ * - 값 앞뒤 공백 제거, "로 감싼 필드 지원은 DelimitedLineTokenizer / MappedCsvLine과 동일
+ * 상태가 없어서 여러 thread(파티션)에서 공유해도 됨 ("" 치환용 buffer만 thread마다 재사용)
+ */
+public class PersonLineMapper implements LineMapper<Person>, MappedCsvLineMapper<Person> {
+
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final ThreadLocal<StringBuilder> UNESCAPE_BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+
+    private final int columnCount;
+    private final int idIndex;
+    private final int nameIndex;
+    private final int ageIndex;
+    private final int addressIndex;
+
+    // 파일의 컬럼 순서 (DelimitedLineTokenizer.setNames와 동일하게 id, name, age, address 이름 사용)
+    public PersonLineMapper(String... names) {
+        List<String> columns = Arrays.asList(names);
+
+        Assert.isTrue(columns.containsAll(Arrays.asList("name", "age", "address")), "name, age, address 컬럼은 필수 : " + columns);
+
+        this.columnCount = names.length;
+        this.idIndex = columns.indexOf("id");
+        this.nameIndex = columns.indexOf("name");
+        this.ageIndex = columns.indexOf("age");
+        this.addressIndex = columns.indexOf("address");
+    }
+
+    @Override
+    public Person mapLine(String line, int lineNumber) {
+        return map(line);
+    }
+
+    @Override
+    public Person mapLine(MappedCsvLine line) {
+        if (line.getFieldCount() != columnCount) {
+            throw new IncorrectTokenCountException(columnCount, line.getFieldCount());
+        }
+
+        return new Person(
+                idIndex < 0 ? 0 : line.getInt(idIndex),
+                line.getString(nameIndex),
+                line.getString(ageIndex),
+                line.getString(addressIndex));
+    }
+
+    // 라인을 앞에서부터 한 번 훑으면서 필드 경계를 찾고, 필요한 컬럼만 값으로 만듦
+    public Person map(CharSequence line) {
+        int id = 0;
+        String name = null;
+        String age = null;
+        String address = null;
+
+        int length = line.length();
+        int position = 0;
+        int field = 0;
+
+        while (true) {
+            int start;
+            int end;
+            boolean escaped = false;
+
+            if (position < length && line.charAt(position) == QUOTE) {
+                start = position + 1;
+                end = start;
+
+                while (end < length) {
+                    if (line.charAt(end) == QUOTE) {
+                        if (end + 1 < length && line.charAt(end + 1) == QUOTE) {
+                            escaped = true; // "" : 따옴표 문자
+                            end += 2;
+                            continue;
+                        }
+
+                        break;
+                    }
+
+                    end++;
+                }
+
+                position = end + 1;
+
+                while (position < length && line.charAt(position) != DELIMITER) {
+                    position++; // 닫는 따옴표 뒤의 값은 무시
+                }
+            } else {
+                start = position;
+
+                while (position < length && line.charAt(position) != DELIMITER) {
+                    position++;
+                }
+
+                end = position;
+            }
+
+            if (field == idIndex) {
+                id = parseInt(line, start, end);
+            } else if (field == nameIndex) {
+                name = value(line, start, end, escaped);
+            } else if (field == ageIndex) {
+                age = value(line, start, end, escaped);
+            } else if (field == addressIndex) {
+                address = value(line, start, end, escaped);
+            }
+
+            field++;
+
+            if (position >= length) {
+                break;
+            }
+
+            position++; // 구분자
+        }
+
+        if (field != columnCount) {
+            throw new IncorrectTokenCountException(columnCount, field, line.toString());
+        }
+
+        return new Person(id, name, age, address);
+    }
+
+    private static int parseInt(CharSequence line, int start, int end) {
+        start = trimStart(line, start, end);
+        end = trimEnd(line, start, end);
+
+        return Integer.parseInt(line, start, end, 10);
+    }
+
+    private static String value(CharSequence line, int start, int end, boolean escaped) {
+        start = trimStart(line, start, end);
+        end = trimEnd(line, start, end);
+
+        if (!escaped) {
+            return line.subSequence(start, end).toString();
+        }
+
+        StringBuilder buffer = UNESCAPE_BUFFER.get();
+        buffer.setLength(0);
+
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            buffer.append(c);
+
+            if (c == QUOTE && i + 1 < end && line.charAt(i + 1) == QUOTE) {
+                i++;
+            }
+        }
+
+        return buffer.toString();
+    }
+
+    private static int trimStart(CharSequence line, int start, int end) {
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+
+        return start;
+    }
+
+    private static int trimEnd(CharSequence line, int start, int end) {
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        return end;
+    }
+}
@@ -0,0 +1,33 @@
+package cocoball.springbatchstudy.part3;
+
+import cocoball.springbatchstudy.PositionalParameterBinder;
+
+import java.util.function.ToLongFunction;
+
+// BeanPropertyItemSqlParameterSourceProvider 대신 사용하는 Person insert 파라미터 바인딩
+public final class PersonParameterBinders {
+
+    // id는 직접 바인딩하지 않음 (MultiRowInsertItemWriter의 idColumn으로 할당)
+    public static final PositionalParameterBinder<Person> PERSON = person(null);
+
+    private PersonParameterBinders() {}
+
+    // idFunction으로 할당한 id를 첫 번째 컬럼으로 바인딩 (item 단위로 바인딩하는 JdbcBatchItemWriter)
+    public static PositionalParameterBinder<Person> withId(ToLongFunction<Person> idFunction) {
+        return person(idFunction);
+    }
+
+    private static PositionalParameterBinder<Person> person(ToLongFunction<Person> idFunction) {
+        PositionalParameterBinder.Builder<Person> builder = PositionalParameterBinder.builder();
+
+        if (idFunction != null) {
+            builder.longColumn("id", idFunction);
+        }
+
+        return builder
+                .stringColumn("name", Person::getName)
+                .stringColumn("age", Person::getAge)
+                .stringColumn("address", Person::getAddress)
+                .build();
+    }
+}
@@ -1,7 +1,11 @@
 package cocoball.springbatchstudy.part3;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryContext;
 import org.springframework.retry.RetryListener;
@@ -11,14 +15,43 @@ import org.springframework.retry.support.RetryTemplateBuilder;
 @Slf4j
 public class PersonValidationRetryProcessor implements ItemProcessor<Person, Person> {
 
+    private static final int MAX_ATTEMPTS = 3;
+
+    // 재시도 횟수와 recovery 건수 (Spring Batch 기본 metric과 같은 registry)
+    private static final Counter FAILURE_COUNTER = Counter.builder("spring.batch.person.validation.failure")
+            .description("이름 검증 실패 횟수 (retry 시도마다)")
+            .register(Metrics.globalRegistry);
+    private static final Counter PERMANENT_RECOVERY_COUNTER = recoveryCounter("permanent");
+    private static final Counter EXHAUSTED_RECOVERY_COUNTER = recoveryCounter("exhausted");
+
     private final RetryTemplate retryTemplate;
+    private final boolean stacklessException;
 
+    // 이름이 없으면 NotFoundNameException을 3번까지 retry 한 뒤 recovery
     public PersonValidationRetryProcessor() {
-        this.retryTemplate = new RetryTemplateBuilder()
-                .maxAttempts(3)
-                .retryOn(NotFoundNameException.class)
+        this(false, false);
+    }
+
+    /**
+     * classifyFailures : 예외를 transient(다시 시도하면 성공할 수 있는 DB 일시 오류 등)와 permanent로 나눠서 transient만 retry
+     *   이름 검증 실패(NotFoundNameException)는 다시 시도해도 결과가 같으므로 permanent -> retry 없이 바로 recovery
+     * stacklessException : NotFoundNameException을 stack trace 없이 생성
+     */
+    public PersonValidationRetryProcessor(boolean classifyFailures, boolean stacklessException) {
+        RetryTemplateBuilder builder = new RetryTemplateBuilder().maxAttempts(MAX_ATTEMPTS);
+
+        if (classifyFailures) {
+            builder.retryOn(TransientDataAccessException.class)
+                    .retryOn(RecoverableDataAccessException.class)
+                    .traversingCauses();
+        } else {
+            builder.retryOn(NotFoundNameException.class);
+        }
+
+        this.retryTemplate = builder
                 .withListener(new SavePersonRetryListener())
                 .build();
+        this.stacklessException = stacklessException;
     }
 
     @Override
@@ -31,17 +64,27 @@ public class PersonValidationRetryProcessor implements ItemProcessor<Person, Per
                 return item;
             }
 
-            throw new NotFoundNameException();
+            throw new NotFoundNameException(!stacklessException);
 
         }, context -> {
 
             // recovery callback (retry callback -> recovery callback 실행)
+            // 재시도 대상이 아닌 예외는 첫 시도 후 바로 recovery
+
+            (context.getRetryCount() < MAX_ATTEMPTS ? PERMANENT_RECOVERY_COUNTER : EXHAUSTED_RECOVERY_COUNTER).increment();
 
             return item.unknownName();
 
         });
     }
 
+    private static Counter recoveryCounter(String classification) {
+        return Counter.builder("spring.batch.person.validation.recovery")
+                .description("이름 검증 실패로 recovery 된 item 수")
+                .tag("classification", classification)
+                .register(Metrics.globalRegistry);
+    }
+
     public static class SavePersonRetryListener implements RetryListener {
 
         @Override
@@ -56,7 +99,8 @@ public class PersonValidationRetryProcessor implements ItemProcessor<Person, Per
 
         @Override
         public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
-            log.info("close");
+            FAILURE_COUNTER.increment();
+            log.info("onError : {}", context.getRetryCount());
         }
     }
 }
@@ -1,7 +1,12 @@
 package cocoball.springbatchstudy.part3;
 
+import cocoball.springbatchstudy.BisectingItemWriter;
+import cocoball.springbatchstudy.EntityIdAllocator;
+import cocoball.springbatchstudy.MappedCsvItemReader;
+import cocoball.springbatchstudy.MultiRowInsertItemWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.SkipListener;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.JobScope;
@@ -12,10 +17,6 @@ import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JpaItemWriter;
 import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
 import org.springframework.batch.item.support.CompositeItemProcessor;
 import org.springframework.batch.item.support.CompositeItemWriter;
 import org.springframework.batch.item.support.builder.CompositeItemProcessorBuilder;
@@ -24,30 +25,46 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.retry.RetryListener;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 @Configuration
 @Slf4j
 public class SavePersonConfiguration {
 
+    private final long DUPLICATE_EXPECTED_KEYS = 10_000_000;
+    private final int DUPLICATE_MEMORY_KEYS = 1_000_000;
+    private final int SKIP_LIMIT = 3; // step과 BisectingItemWriter가 함께 사용 (writer에서 분리한 item도 step의 skip으로 집계)
     private final JobBuilderFactory jobBuilderFactory;
     private final StepBuilderFactory stepBuilderFactory;
     private final EntityManagerFactory entityManagerFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource dataSource;
 
     public SavePersonConfiguration(JobBuilderFactory jobBuilderFactory,
                                    StepBuilderFactory stepBuilderFactory,
-                                   EntityManagerFactory entityManagerFactory) {
+                                   EntityManagerFactory entityManagerFactory,
+                                   PlatformTransactionManager transactionManager,
+                                   DataSource dataSource) {
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
         this.entityManagerFactory = entityManagerFactory;
+        this.transactionManager = transactionManager;
+        this.dataSource = dataSource;
     }
 
     @Bean
     public Job savePersonJob() throws Exception {
         return this.jobBuilderFactory.get("savePersonJob")
                 .incrementer(new RunIdIncrementer())
-                .start(this.savePersonStep(null))
+                .start(this.savePersonStep(null, null, null))
                 .listener(new SavePersonListener.SavePersonJobExecutionListener())
                 .listener(new SavePersonListener.SavePersonAnnotationJobExecution())
                 .build();
@@ -55,63 +72,78 @@ public class SavePersonConfiguration {
 
     @Bean
     @JobScope
-    public Step savePersonStep(@Value("#{jobParameters[allow_duplicate]}") String allowDuplicate) throws Exception {
+    public Step savePersonStep(@Value("#{jobParameters[allow_duplicate]}") String allowDuplicate,
+                               @Value("#{jobParameters[duplicate_key_path]}") String duplicateKeyPath,
+                               @Value("#{jobParameters[person_writer]}") String personWriter) throws Exception {
+        DuplicateValidationProcessor<Person> duplicateValidationProcessor = duplicateValidationProcessor(allowDuplicate, duplicateKeyPath);
+        SavePersonListener.SavePersonSkipRetryMetrics skipRetryMetrics = new SavePersonListener.SavePersonSkipRetryMetrics("savePersonStep");
+
         return this.stepBuilderFactory.get("savePersonStep")
                 .<Person, Person>chunk(10)
                 .reader(itemReader())
                 //.processor(new DuplicateValidationProcessor<>(Person::getName, Boolean.parseBoolean(allowDuplicate)))
-                .processor(itemProcessor(null))
-                .writer(itemWriter())
+                .processor(itemProcessor(duplicateValidationProcessor))
+                .writer(itemWriter(personWriter, skipRetryMetrics)) // person_writer=jdbc 이면 JPA 대신 multi-row insert
+                .stream(duplicateValidationProcessor) // CompositeItemProcessor 안에 있으므로 직접 등록 (key pool 생성, checkpoint)
                 .listener(new SavePersonListener.SavePersonAnnotationStepExecution())
                 .faultTolerant() // skip, retry 설정 이전에 선언
                 .skip(NotFoundNameException.class)
-                .skipLimit(3)
-                .retry(NotFoundNameException.class)
-                .retryLimit(3)
+                .skipLimit(SKIP_LIMIT)
+                // 이름 검증 실패는 다시 시도해도 같은 결과 -> retry 하지 않고, chunk를 롤백 / 재처리하지 않고 해당 item만 바로 skip
+                .noRetry(NotFoundNameException.class)
+                .noRollback(NotFoundNameException.class)
+                // 기록 실패 시 item 단위 scan 대신 chunk를 한 번 더 기록하면서 실패한 item만 분리 (BisectingItemWriter)
+                .retry(BisectingItemWriter.IsolationRequiredException.class)
+                .retryLimit(2)
+                .listener((SkipListener<Person, Person>) skipRetryMetrics)
+                .listener((RetryListener) skipRetryMetrics)
                 .build();
     }
 
 
-    private ItemReader<? extends Person> itemReader() throws Exception {
-
-        DefaultLineMapper<Person> lineMapper = new DefaultLineMapper<>();
-        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
-        lineTokenizer.setNames("name", "age", "address");
-        lineMapper.setLineTokenizer(lineTokenizer);
-        lineMapper.setFieldSetMapper(fieldSet -> new Person(
-            fieldSet.readString(0),
-            fieldSet.readString(1),
-            fieldSet.readString(2)
-        ));
+    private ItemReader<? extends Person> itemReader() {
 
-        FlatFileItemReader itemReader = new FlatFileItemReaderBuilder<Person>()
+        // FlatFileItemReader 대신 파일을 메모리 매핑해서 FieldSet 없이 바로 tokenize
+        return MappedCsvItemReader.<Person>builder()
                 .name("savePersonItemReader")
-                .encoding("UTF-8")
                 .linesToSkip(1)
                 .resource(new ClassPathResource("person.csv"))
-                .lineMapper(lineMapper)
+                .lineMapper(new PersonLineMapper("name", "age", "address"))
                 .build();
 
-        itemReader.afterPropertiesSet();
+    }
 
-        return itemReader;
+    // duplicateKeyPath를 지정하면 Bloom filter + 파일로 내리는 key pool을 사용하고, 재시작 시 checkpoint 파일로 key pool을 다시 채움
+    private DuplicateValidationProcessor<Person> duplicateValidationProcessor(String allowDuplicate, String duplicateKeyPath) {
+        DuplicateValidationProcessor.Builder<Person> builder = DuplicateValidationProcessor.<Person>builder()
+                .name("personNameDuplicateValidation")
+                .keyExtractor(Person::getName)
+                .allowDuplicate(Boolean.parseBoolean(allowDuplicate));
 
-    }
+        if (duplicateKeyPath == null) {
+            return builder.build();
+        }
+
+        Path directory = Paths.get(duplicateKeyPath);
 
-    private ItemProcessor<? super Person, ? extends Person> itemProcessor(String allowDuplicate) throws Exception {
-        DuplicateValidationProcessor<Person> duplicateValidationProcessor =
-                new DuplicateValidationProcessor<>(Person::getName, Boolean.parseBoolean(allowDuplicate));
+        return builder
+                .keyPool(() -> new BloomFilterKeyPool(
+                        new SpillingKeyPool(directory.resolve("spill"), DUPLICATE_MEMORY_KEYS), DUPLICATE_EXPECTED_KEYS, 0.01))
+                .checkpointFile(directory.resolve("person-name.keys"))
+                .build();
+    }
 
+    private ItemProcessor<? super Person, ? extends Person> itemProcessor(DuplicateValidationProcessor<Person> duplicateValidationProcessor) throws Exception {
         ItemProcessor<Person, Person> validationProcessor = item -> {
             if (item.isNotEmptyName()) {
                 return item;
             }
 
-            throw new NotFoundNameException();
+            throw new NotFoundNameException(false);
         };
 
         CompositeItemProcessor<Person, Person> itemProcessor = new CompositeItemProcessorBuilder()
-                .delegates(new PersonValidationRetryProcessor(), validationProcessor, duplicateValidationProcessor)
+                .delegates(new PersonValidationRetryProcessor(true, true), validationProcessor, duplicateValidationProcessor)
                 .build();
 
         itemProcessor.afterPropertiesSet();
@@ -119,16 +151,27 @@ public class SavePersonConfiguration {
         return itemProcessor;
     }
 
-    private ItemWriter<? super Person> itemWriter() throws Exception {
-        JpaItemWriter jpaItemWriter = new JpaItemWriterBuilder<Person>()
-                .entityManagerFactory(entityManagerFactory)
+    private ItemWriter<? super Person> itemWriter(String personWriter,
+                                                  SavePersonListener.SavePersonSkipRetryMetrics skipRetryMetrics) throws Exception {
+
+        ItemWriter<Person> personItemWriter = "jdbc".equals(personWriter) ? jdbcPersonItemWriter() : jpaPersonItemWriter();
+
+        // 기록에 실패한 item은 chunk에서 분리해서 로그, metric으로 남기고 나머지만 기록
+        BisectingItemWriter<Person> bisectingItemWriter = BisectingItemWriter.<Person>builder()
+                .delegate(personItemWriter)
+                .transactionManager(transactionManager)
+                .isolateOn(PersistenceException.class, DataAccessException.class)
+                .skipSink((item, cause) -> {
+                    log.warn("person 기록 실패로 skip : {}", item.getName(), cause);
+                    skipRetryMetrics.onSkipInWrite(item, cause);
+                })
+                .skipLimit(SKIP_LIMIT)
                 .build();
 
-        jpaItemWriter.afterPropertiesSet();
         ItemWriter<Person> logItemWriter = items -> log.info("person.size : {}", items.size());
 
         CompositeItemWriter<Person> itemWriter = new CompositeItemWriterBuilder<Person>()
-                .delegates(jpaItemWriter, logItemWriter)
+                .delegates(bisectingItemWriter, logItemWriter)
                 .build();
 
         itemWriter.afterPropertiesSet();
@@ -136,6 +179,29 @@ public class SavePersonConfiguration {
         return itemWriter;
     }
 
+    // Person id는 pooled sequence이므로 merge(새 엔티티는 select 없이 persist)로도 hibernate.jdbc.batch_size 단위로 insert
+    // BisectingItemWriter의 시험 기록이 item을 변경하지 않도록 usePersist(true)는 사용하지 않음
+    private ItemWriter<Person> jpaPersonItemWriter() throws Exception {
+        JpaItemWriter<Person> jpaItemWriter = new JpaItemWriterBuilder<Person>()
+                .entityManagerFactory(entityManagerFactory)
+                .build();
+
+        jpaItemWriter.afterPropertiesSet();
+
+        return jpaItemWriter;
+    }
+
+    // 엔티티, BeanWrapper 없이 multi-row insert로 기록 (id는 JPA와 같은 person_id_seq에서 할당)
+    private ItemWriter<Person> jdbcPersonItemWriter() {
+        return MultiRowInsertItemWriter.<Person>builder()
+                .dataSource(dataSource)
+                .table("person")
+                .idColumn("id", new EntityIdAllocator<>(entityManagerFactory, Person.class))
+                .columns(PersonParameterBinders.PERSON.columns())
+                .rowBinder(PersonParameterBinders.PERSON)
+                .build();
+    }
+
 
 
 
@@ -1,14 +1,20 @@
 package cocoball.springbatchstudy.part3;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.SkipListener;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.annotation.AfterJob;
 import org.springframework.batch.core.annotation.AfterStep;
 import org.springframework.batch.core.annotation.BeforeJob;
 import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
 
 @Slf4j
 public class SavePersonListener {
@@ -64,4 +70,60 @@ public class SavePersonListener {
 
     }
 
+    // faultTolerant step의 skip, retry 건수를 metric으로 기록 (Spring Batch 기본 metric과 같은 registry)
+    public static class SavePersonSkipRetryMetrics implements SkipListener<Person, Person>, RetryListener {
+
+        private final Counter readSkipCounter;
+        private final Counter processSkipCounter;
+        private final Counter writeSkipCounter;
+        private final Counter retryCounter;
+
+        public SavePersonSkipRetryMetrics(String stepName) {
+            this.readSkipCounter = skipCounter(stepName, "read");
+            this.processSkipCounter = skipCounter(stepName, "process");
+            this.writeSkipCounter = skipCounter(stepName, "write");
+            this.retryCounter = Counter.builder("spring.batch.step.retry")
+                    .description("chunk 처리 중 retry 된 횟수")
+                    .tag("name", stepName)
+                    .register(Metrics.globalRegistry);
+        }
+
+        @Override
+        public void onSkipInRead(Throwable t) {
+            readSkipCounter.increment();
+        }
+
+        @Override
+        public void onSkipInProcess(Person item, Throwable t) {
+            processSkipCounter.increment();
+        }
+
+        @Override
+        public void onSkipInWrite(Person item, Throwable t) {
+            writeSkipCounter.increment();
+        }
+
+        @Override
+        public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+            return true;
+        }
+
+        @Override
+        public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        }
+
+        @Override
+        public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+            retryCounter.increment();
+        }
+
+        private static Counter skipCounter(String stepName, String type) {
+            return Counter.builder("spring.batch.step.skip")
+                    .description("skip 된 item 수")
+                    .tag("name", stepName)
+                    .tag("type", type)
+                    .register(Metrics.globalRegistry);
+        }
+    }
+
 }
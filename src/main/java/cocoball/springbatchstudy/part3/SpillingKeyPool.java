@@ -0,0 +1,286 @@
+package cocoball.springbatchstudy.part3;
+
+import org.springframework.batch.item.ItemStreamException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 메모리에는 memoryKeys 개까지만 보관하고, 넘치면 정렬해서 run 파일로 내리는 key pool
+ * - contains : 메모리(OffHeapKeyPool) 확인 후 run 파일마다 binary search (run 당 최대 log2(n)번 8 byte read)
+ * - run 파일이 maxRuns 개가 되면 하나로 병합해서 조회 비용이 run 수에 비례해 늘어나지 않도록 함
+ * 파일 조회가 대부분 새 key에서 일어나므로 BloomFilterKeyPool로 감싸서 사용하는 것을 권장
+ * run 파일은 임시 파일이며 close 시 삭제 (재시작 시에는 DuplicateValidationProcessor의 checkpoint 파일로 다시 채움)
+ */
+public class SpillingKeyPool implements DuplicateKeyPool {
+
+    private static final int DEFAULT_MAX_RUNS = 8;
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int memoryKeys;
+    private final int maxRuns;
+    private final OffHeapKeyPool memory;
+    private final List<Run> runs = new ArrayList<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.nativeOrder());
+
+    private long spilledSize;
+
+    public SpillingKeyPool(Path directory, int memoryKeys) {
+        this(directory, memoryKeys, DEFAULT_MAX_RUNS);
+    }
+
+    public SpillingKeyPool(Path directory, int memoryKeys, int maxRuns) {
+        if (memoryKeys <= 0 || maxRuns < 2) {
+            throw new IllegalArgumentException("memoryKeys는 1 이상, maxRuns는 2 이상 : " + memoryKeys + ", " + maxRuns);
+        }
+
+        this.directory = directory;
+        this.memoryKeys = memoryKeys;
+        this.maxRuns = maxRuns;
+        this.memory = new OffHeapKeyPool(memoryKeys);
+    }
+
+    @Override
+    public boolean contains(long fingerprint) {
+        if (memory.contains(fingerprint)) {
+            return true;
+        }
+
+        try {
+            for (Run run : runs) {
+                if (run.contains(fingerprint, readBuffer)) {
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("key run 파일을 읽을 수 없음 : " + directory, e);
+        }
+
+        return false;
+    }
+
+    @Override
+    public void add(long fingerprint) {
+        memory.add(fingerprint);
+
+        if (memory.size() < memoryKeys) {
+            return;
+        }
+
+        try {
+            spill();
+
+            if (runs.size() >= maxRuns) {
+                merge();
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("key run 파일을 기록할 수 없음 : " + directory, e);
+        }
+    }
+
+    @Override
+    public long size() {
+        return spilledSize + memory.size();
+    }
+
+    @Override
+    public void close() {
+        memory.close();
+
+        for (Run run : runs) {
+            run.delete();
+        }
+
+        runs.clear();
+        this.spilledSize = 0;
+    }
+
+    // 메모리의 key를 정렬해서 run 파일 하나로 기록
+    private void spill() throws IOException {
+        long[] keys = new long[(int) memory.size()];
+        int[] count = {0};
+        memory.forEach(key -> keys[count[0]++] = key);
+        Arrays.sort(keys);
+
+        Run run = Run.create(directory);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE).order(ByteOrder.nativeOrder());
+
+        for (long key : keys) {
+            if (!buffer.hasRemaining()) {
+                run.write(buffer);
+            }
+
+            buffer.putLong(key);
+        }
+
+        run.write(buffer);
+        runs.add(run);
+
+        this.spilledSize += keys.length;
+        memory.clear();
+    }
+
+    // 모든 run을 한 번에 병합 (k-way, run 마다 buffer 하나씩)
+    private void merge() throws IOException {
+        Run merged = Run.create(directory);
+        ByteBuffer output = ByteBuffer.allocateDirect(IO_BUFFER_SIZE).order(ByteOrder.nativeOrder());
+
+        List<RunCursor> cursors = new ArrayList<>();
+        for (Run run : runs) {
+            RunCursor cursor = new RunCursor(run);
+
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        while (!cursors.isEmpty()) {
+            int min = 0;
+
+            for (int i = 1; i < cursors.size(); i++) {
+                if (cursors.get(i).current < cursors.get(min).current) {
+                    min = i;
+                }
+            }
+
+            if (!output.hasRemaining()) {
+                merged.write(output);
+            }
+
+            output.putLong(cursors.get(min).current);
+
+            if (!cursors.get(min).advance()) {
+                cursors.remove(min);
+            }
+        }
+
+        merged.write(output);
+
+        for (Run run : runs) {
+            run.delete();
+        }
+
+        runs.clear();
+        runs.add(merged);
+    }
+
+    private static class Run {
+
+        private final Path path;
+        private final FileChannel channel;
+        private long count;
+
+        private Run(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        static Run create(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            Path path = Files.createTempFile(directory, "keys-", ".run");
+
+            return new Run(path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+
+        void write(ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            this.count += buffer.remaining() / Long.BYTES;
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            buffer.clear();
+        }
+
+        boolean contains(long fingerprint, ByteBuffer readBuffer) throws IOException {
+            long low = 0;
+            long high = count - 1;
+
+            while (low <= high) {
+                long middle = (low + high) >>> 1;
+                long value = read(middle, readBuffer);
+
+                if (value < fingerprint) {
+                    low = middle + 1;
+                } else if (value > fingerprint) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        long read(long index, ByteBuffer readBuffer) throws IOException {
+            readBuffer.clear();
+
+            while (readBuffer.hasRemaining()) {
+                if (channel.read(readBuffer, index * Long.BYTES + readBuffer.position()) < 0) {
+                    throw new IOException("run 파일이 잘림 : " + path);
+                }
+            }
+
+            return readBuffer.getLong(0);
+        }
+
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new ItemStreamException("key run 파일을 삭제할 수 없음 : " + path, e);
+            }
+        }
+    }
+
+    // 병합 시 run을 앞에서부터 순서대로 읽음
+    private static class RunCursor {
+
+        private final Run run;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE).order(ByteOrder.nativeOrder());
+        private long position;
+        private long current;
+
+        RunCursor(Run run) {
+            this.run = run;
+            buffer.flip();
+        }
+
+        boolean advance() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+
+                long end = run.count * Long.BYTES;
+                while (buffer.hasRemaining() && position < end) {
+                    int read = run.channel.read(buffer, position);
+
+                    if (read < 0) {
+                        throw new IOException("run 파일이 잘림 : " + run.path);
+                    }
+
+                    position += read;
+                }
+
+                buffer.flip();
+
+                if (!buffer.hasRemaining()) {
+                    return false;
+                }
+            }
+
+            this.current = buffer.getLong();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package cocoball.springbatchstudy.part5;
+
+import org.springframework.batch.item.file.transform.LineAggregator;
+
+import java.time.LocalDate;
+
+/**
+ * OrderStatistics를 "금액,yyyy-MM-dd" 한 줄로 변환
+ * BeanWrapperFieldExtractor + DelimitedLineAggregator는 건마다 리플렉션으로 필드를 꺼내고 Object[], 필드별 String을 만들지만,
+ * 여기서는 재사용하는 StringBuilder에 long 금액과 날짜의 연, 월, 일 숫자를 바로 append
+ * (FlatFileItemWriter와 마찬가지로 thread-safe 하지 않음)
+ */
+public class OrderStatisticsLineAggregator implements LineAggregator<OrderStatistics> {
+
+    private final StringBuilder line = new StringBuilder(32);
+
+    @Override
+    public String aggregate(OrderStatistics item) {
+        line.setLength(0);
+        line.append(item.getAmount()).append(',');
+        appendIsoDate(line, item.getEpochDay());
+
+        return line.toString();
+    }
+
+    // epoch day -> yyyy-MM-dd (LocalDate.toString()과 같은 형식)
+    // 날짜 계산은 LocalDate에 맡기고, toString()의 문자열 생성 없이 연, 월, 일 숫자만 append
+    static void appendIsoDate(StringBuilder sb, long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int year = date.getYear();
+
+        if (year < 1_000 || year > 9_999) {
+            sb.append(date); // 4자리가 아닌 연도는 LocalDate 형식을 그대로 사용
+            return;
+        }
+
+        sb.append(year).append('-');
+        appendTwoDigits(sb, date.getMonthValue()).append('-');
+        appendTwoDigits(sb, date.getDayOfMonth());
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
@@ -17,8 +17,6 @@ import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuild
 import org.springframework.batch.item.database.builder.JpaPagingItemReaderBuilder;
 import org.springframework.batch.item.file.FlatFileItemWriter;
 import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
-import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -28,7 +26,6 @@ import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -154,8 +151,8 @@ public class UserConfiguration {
         JdbcPagingItemReader itemReader = new JdbcPagingItemReaderBuilder<OrderStatistics>()
                 .dataSource(dataSource)
                 .rowMapper((resultSet, i) -> OrderStatistics.builder()
-                        .amount(resultSet.getString(1))
-                        .date(LocalDate.parse(resultSet.getString(2), DateTimeFormatter.ISO_DATE))
+                        .amount(resultSet.getLong(1))
+                        .epochDay(resultSet.getObject(2, LocalDate.class).toEpochDay())
                         .build())
                 .pageSize(CHUNK_SIZE)
                 .name("orderStatisticsItemReader")
@@ -178,16 +175,9 @@ public class UserConfiguration {
 
         String fileName = yearMonth.getYear() + "년_" + yearMonth.getMonthValue() + "월_일별_주문_금액.csv";
 
-        BeanWrapperFieldExtractor<OrderStatistics> fieldExtractor = new BeanWrapperFieldExtractor<>();
-        fieldExtractor.setNames(new String[] {"amount", "date"});
-
-        DelimitedLineAggregator<OrderStatistics> lineAggregator = new DelimitedLineAggregator<>();
-        lineAggregator.setDelimiter(",");
-        lineAggregator.setFieldExtractor(fieldExtractor);
-
         FlatFileItemWriter<OrderStatistics> itemWriter = new FlatFileItemWriterBuilder<OrderStatistics>()
                 .resource(new FileSystemResource("output/" + fileName))
-                .lineAggregator(lineAggregator)
+                .lineAggregator(new OrderStatisticsLineAggregator()) // 리플렉션 없이 금액, 날짜를 바로 한 줄로 변환
                 .name("orderStatisticsItemWriter")
                 .encoding("UTF-8")
                 .headerCallback(writer -> writer.write("total_amount, date"))
@@ -0,0 +1,130 @@
+package cocoball.springbatchstudy.part6;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OFFSET/LIMIT 대신 마지막으로 읽은 id 다음부터 seek 하는 keyset(seek) 페이징 Reader
+ * (where id > :lastId order by id) -> 테이블이 커져도 페이지 조회 비용이 일정함
+ * - 마지막으로 반환한 id를 ExecutionContext에 저장하고, 재시작 시 그 다음 id부터 읽음
+ * - 멀티 스레드 step에서는 마지막으로 반환한 id가 다른 스레드의 롤백된 chunk보다 뒤일 수 있으므로
+ *   저장한 id로 재시작하면 해당 chunk를 건너뜀 -> saveState = false로 설정 (재시작 시 minId부터 다시 읽음)
+ * - 멀티 스레드 step에서 여러 스레드가 동시에 호출하므로 lock으로 보호
+ *   synchronized 안에서 JDBC 대기(fetchPage)를 하면 virtual thread가 carrier thread에 고정(pinning)되어
+ *   대기하는 동안 다른 virtual thread가 해당 carrier thread를 쓰지 못하므로 ReentrantLock 사용
+ */
+public abstract class AbstractKeysetItemReader<T> extends AbstractItemStreamItemReader<T> {
+
+    private static final String LAST_ID_KEY = "lastId";
+
+    private final int pageSize;
+    private final long minId;
+    private final long maxId;
+
+    private final Deque<T> page = new ArrayDeque<>();
+
+    private long lastFetchedId; // 다음 페이지 조회 시 seek 기준이 되는 id
+    private long lastReadId; // 실제로 read()가 반환한 마지막 id (재시작 기준)
+
+    private boolean saveState = true;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // minId, maxId 모두 포함
+    protected AbstractKeysetItemReader(String name, int pageSize, long minId, long maxId) {
+        setName(name);
+        this.pageSize = pageSize;
+        this.minId = minId;
+        this.maxId = maxId;
+    }
+
+    // lastId 초과, maxId 이하의 데이터를 id 순으로 최대 pageSize 만큼 조회
+    protected abstract List<T> fetchPage(long lastId, long maxId, int pageSize);
+
+    protected abstract long getId(T item);
+
+    // false 이면 위치를 저장하지 않고, 저장된 위치도 사용하지 않음 (멀티 스레드 step용)
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        lock.lock();
+
+        try {
+            super.open(executionContext);
+
+            String key = getExecutionContextKey(LAST_ID_KEY);
+
+            // 재시작인 경우 마지막으로 처리한 id 이후부터 다시 읽음
+            this.lastReadId = saveState && executionContext.containsKey(key) ? executionContext.getLong(key) : minId - 1;
+            this.lastFetchedId = this.lastReadId;
+            this.page.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T read() {
+        lock.lock();
+
+        try {
+            if (page.isEmpty()) {
+                List<T> items = fetchPage(lastFetchedId, maxId, pageSize);
+
+                if (!items.isEmpty()) {
+                    this.lastFetchedId = getId(items.get(items.size() - 1));
+                }
+
+                page.addAll(items);
+            }
+
+            T item = page.poll();
+
+            if (item == null) {
+                return null; // 더 이상 읽을 데이터가 없음
+            }
+
+            this.lastReadId = getId(item);
+
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        lock.lock();
+
+        try {
+            super.update(executionContext);
+
+            if (saveState) {
+                executionContext.putLong(getExecutionContextKey(LAST_ID_KEY), lastReadId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        lock.lock();
+
+        try {
+            super.close();
+            page.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
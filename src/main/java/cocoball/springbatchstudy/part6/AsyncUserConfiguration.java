@@ -1,5 +1,6 @@
 package cocoball.springbatchstudy.part6;
 
+import cocoball.springbatchstudy.BufferedCsvItemWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
@@ -12,15 +13,6 @@ import org.springframework.batch.integration.async.AsyncItemWriter;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.database.JdbcPagingItemReader;
-import org.springframework.batch.item.database.JpaPagingItemReader;
-import org.springframework.batch.item.database.Order;
-import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
-import org.springframework.batch.item.database.builder.JpaPagingItemReaderBuilder;
-import org.springframework.batch.item.file.FlatFileItemWriter;
-import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
-import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -29,11 +21,7 @@ import org.springframework.core.task.TaskExecutor;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
-import java.time.LocalDate;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.Future;
 
 @Configuration
@@ -70,11 +58,12 @@ public class AsyncUserConfiguration {
                 .incrementer(new RunIdIncrementer())
                 .start(this.saveUserStep()) // 유저 저장 step
                 .next(this.userLevelUpStep()) // 유저 레벨업 step
-                .next(this.orderStatisticsStep(null)) // 월별 주문 금액 합계 step
+                .next(this.dailyOrderAmountRollupStep()) // 일별 주문 금액 집계 반영 step
+                .next(this.orderStatisticsStep(null, null)) // 월별 주문 금액 합계 step
                 .listener(new LevelUpJobExecutionListener(userRepostiory)) // JobExecutionListener
                 .next(new JobParametersDecide("date")) // date 파라미터가 있는지 검증
                     .on(JobParametersDecide.CONTINUE.getName()) // Decider가 CONTINUE를 반환하는지 (CONTINUE 상태가 아니면 실행이 안됨)
-                    .to(this.orderStatisticsStep(null)) // 해당 스텝에 대해
+                    .to(this.orderStatisticsStep(null, null)) // 해당 스텝에 대해
                     .build()
                 .build();
     }
@@ -82,7 +71,14 @@ public class AsyncUserConfiguration {
     @Bean(JOB_NAME + "_saveUserStep")
     public Step saveUserStep() {
         return this.stepBuilderFactory.get(JOB_NAME + "_saveUserStep")
-                .tasklet(new SaveUserTasklet(userRepostiory)) // 유저 저장 tasklet
+                .tasklet(new UserBulkLoadTasklet(dataSource)) // 유저 대량 적재 tasklet (적재 건수 : userCount 파라미터)
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_dailyOrderAmountRollupStep")
+    public Step dailyOrderAmountRollupStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_dailyOrderAmountRollupStep")
+                .tasklet(new DailyOrderAmountRollupTasklet(dataSource)) // 새로 추가된 주문만 daily_order_amount에 반영
                 .build();
     }
 
@@ -98,27 +94,20 @@ public class AsyncUserConfiguration {
 
     @Bean(JOB_NAME + "_orderStatisticsStep")
     @JobScope
-    public Step orderStatisticsStep(@Value("#{jobParameters[date]}") String date) throws Exception {
+    public Step orderStatisticsStep(@Value("#{jobParameters[date]}") String date,
+                                    @Value("#{jobParameters[compression]}") String compression) throws Exception {
         return this.stepBuilderFactory.get(JOB_NAME + "_orderStatisticsStep")
                 .<OrderStatistics, OrderStatistics>chunk(CHUNK_SIZE)
                 .reader(orderStatisticsItemReader(date))
-                .writer(orderStatisticsItemWriter(date))
+                .writer(orderStatisticsItemWriter(date, compression)) // compression=gzip 이면 .csv.gz로 압축해서 기록
                 .build();
     }
 
 
-    private ItemReader<? extends User> itemReader() throws Exception {
-
-        JpaPagingItemReader itemReader = new JpaPagingItemReaderBuilder<User>()
-                .queryString("select u from User u")
-                .entityManagerFactory(entityManagerFactory)
-                .pageSize(CHUNK_SIZE) // 보통 chunk 사이즈와 동일하게
-                .name(JOB_NAME + "_userItemReader")
-                .build();
+    private ItemReader<? extends User> itemReader() {
 
-        itemReader.afterPropertiesSet();
-
-        return itemReader;
+        // OFFSET 기반 JpaPagingItemReader 대신 id 기준 keyset 페이징
+        return new UserKeysetItemReader(JOB_NAME + "_userItemReader", entityManagerFactory, CHUNK_SIZE);
 
     }
 
@@ -144,14 +133,8 @@ public class AsyncUserConfiguration {
 
 
     private AsyncItemWriter<User> itemWriter() {
-        ItemWriter<User> itemWriter = users -> {
-
-            users.forEach(x -> {
-                x.levelUp();
-                userRepostiory.save(x);
-            });
-
-        };
+        // user 1건씩 save(merge) 하지 않고 변경될 Level 별로 모아서 JDBC batch update
+        ItemWriter<User> itemWriter = UserLevelUpItemWriter.forUser(dataSource);
 
         AsyncItemWriter<User> asyncItemWriter = new AsyncItemWriter<>();
         asyncItemWriter.setDelegate(itemWriter);
@@ -159,63 +142,33 @@ public class AsyncUserConfiguration {
         return asyncItemWriter;
     }
 
-    private ItemReader<? extends OrderStatistics> orderStatisticsItemReader(String date) throws Exception {
+    private ItemReader<? extends OrderStatistics> orderStatisticsItemReader(String date) {
 
         YearMonth yearMonth = YearMonth.parse(date); // date의 연, 월 parse
 
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("startDate", yearMonth.atDay(1)); // 해당 월의 1일
-        parameters.put("endDate", yearMonth.atEndOfMonth()); // 해당 월의 말일
-
-        Map<String, Order> sortKey = new HashMap<>();
-        sortKey.put("created_date", Order.ASCENDING); // sort 정렬 기준
-
-        JdbcPagingItemReader itemReader = new JdbcPagingItemReaderBuilder<OrderStatistics>()
-                .dataSource(dataSource)
-                .rowMapper((resultSet, i) -> OrderStatistics.builder()
-                        .amount(resultSet.getString(1))
-                        .date(LocalDate.parse(resultSet.getString(2), DateTimeFormatter.ISO_DATE))
-                        .build())
-                .pageSize(CHUNK_SIZE)
-                .name(JOB_NAME + "_orderStatisticsItemReader")
-                .selectClause("sum(amount), created_date") // select절
-                .fromClause("orders") // from절
-                .whereClause("created_date >= :startDate and created_date <= :endDate") // where절
-                .groupClause("created_date") // group절
-                .parameterValues(parameters) // 파라미터 설정
-                .sortKeys(sortKey) // 정렬
-                .build();
-
-        itemReader.afterPropertiesSet();
-
-        return itemReader;
+        // orders를 매번 group by 하지 않고 미리 집계된 daily_order_amount에서 해당 월의 날짜 수 만큼만 읽음
+        return OrderStatisticsItemReader.fromDailyOrderAmount(JOB_NAME + "_orderStatisticsItemReader", dataSource,
+                yearMonth.atDay(1), yearMonth.atEndOfMonth()); // 해당 월의 1일 ~ 말일
     }
 
-    private ItemWriter<? super OrderStatistics> orderStatisticsItemWriter(String date) throws Exception {
+    private ItemWriter<? super OrderStatistics> orderStatisticsItemWriter(String date, String compression) {
 
         YearMonth yearMonth = YearMonth.parse(date); // date의 연, 월 parse
 
-        String fileName = yearMonth.getYear() + "년_" + yearMonth.getMonthValue() + "월_일별_주문_금액.csv";
-
-        BeanWrapperFieldExtractor<OrderStatistics> fieldExtractor = new BeanWrapperFieldExtractor<>();
-        fieldExtractor.setNames(new String[] {"amount", "date"});
+        BufferedCsvItemWriter.Compression fileCompression = BufferedCsvItemWriter.Compression.from(compression);
 
-        DelimitedLineAggregator<OrderStatistics> lineAggregator = new DelimitedLineAggregator<>();
-        lineAggregator.setDelimiter(",");
-        lineAggregator.setFieldExtractor(fieldExtractor);
+        String fileName = fileCompression.fileName(yearMonth.getYear() + "년_" + yearMonth.getMonthValue() + "월_일별_주문_금액.csv");
 
-        FlatFileItemWriter<OrderStatistics> itemWriter = new FlatFileItemWriterBuilder<OrderStatistics>()
-                .resource(new FileSystemResource("output/" + fileName))
-                .lineAggregator(lineAggregator)
+        // FlatFileItemWriter 대신 람다로 필드를 꺼내서 chunk 단위로 FileChannel에 기록하는 csv writer
+        return BufferedCsvItemWriter.<OrderStatistics>builder()
                 .name(JOB_NAME + "_orderStatisticsItemWriter")
-                .encoding("UTF-8")
-                .headerCallback(writer -> writer.write("total_amount, date"))
+                .resource(new FileSystemResource("output/" + fileName))
+                .compression(fileCompression) // chunk commit 마다 gzip member 하나
+                .header("total_amount, date")
+                .longColumn(OrderStatistics::getAmount)
+                .epochDayColumn(OrderStatistics::getEpochDay)
                 .build();
 
-        itemWriter.afterPropertiesSet();
-
-        return itemWriter;
-
     }
 
 
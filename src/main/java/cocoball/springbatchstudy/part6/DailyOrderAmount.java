@@ -0,0 +1,25 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDate;
+
+/**
+ * 일별 주문 금액 합계 (daily_order_amount)
+ * DailyOrderAmountRollupTasklet이 orders에 새로 추가된 주문만 집계해서 누적
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+public class DailyOrderAmount {
+
+    @Id
+    private LocalDate date;
+
+    private long totalAmount;
+
+    private long orderCount;
+}
@@ -0,0 +1,82 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * daily_order_amount 집계 테이블 관리
+ * - dailyOrderAmountJob : 마지막 실행 이후 추가된 주문만 반영 (user job들도 orderStatisticsStep 전에 같은 tasklet을 실행)
+ * - dailyOrderAmountRebuildJob : 집계 결과와 watermark를 초기화하고 orders 전체를 다시 집계 (주문 수정 / 삭제 등으로 생긴 차이 보정)
+ */
+@Configuration
+@Slf4j
+public class DailyOrderAmountConfiguration {
+
+    private final String JOB_NAME = "dailyOrderAmountJob";
+    private final String REBUILD_JOB_NAME = "dailyOrderAmountRebuildJob";
+    private final JobBuilderFactory jobBuilderFactory;
+    private final StepBuilderFactory stepBuilderFactory;
+    private final DataSource dataSource;
+
+
+    public DailyOrderAmountConfiguration(JobBuilderFactory jobBuilderFactory,
+                                         StepBuilderFactory stepBuilderFactory,
+                                         DataSource dataSource) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.dataSource = dataSource;
+    }
+
+    @Bean(JOB_NAME)
+    public Job dailyOrderAmountJob() {
+        return this.jobBuilderFactory.get(JOB_NAME)
+                .incrementer(new RunIdIncrementer())
+                .start(this.rollupStep()) // 새로 추가된 주문 반영 step
+                .build();
+    }
+
+    @Bean(REBUILD_JOB_NAME)
+    public Job dailyOrderAmountRebuildJob() {
+        return this.jobBuilderFactory.get(REBUILD_JOB_NAME)
+                .incrementer(new RunIdIncrementer())
+                .start(this.resetStep()) // 집계 결과 초기화 step
+                .next(this.rebuildStep()) // orders 전체 집계 step
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_rollupStep")
+    public Step rollupStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_rollupStep")
+                .tasklet(new DailyOrderAmountRollupTasklet(dataSource))
+                .build();
+    }
+
+    @Bean(REBUILD_JOB_NAME + "_resetStep")
+    public Step resetStep() {
+        DailyOrderAmountRollupTasklet rollupTasklet = new DailyOrderAmountRollupTasklet(dataSource);
+
+        return this.stepBuilderFactory.get(REBUILD_JOB_NAME + "_resetStep")
+                .tasklet((contribution, chunkContext) -> {
+                    rollupTasklet.reset();
+                    return RepeatStatus.FINISHED;
+                })
+                .build();
+    }
+
+    // 초기화 이후 watermark가 0이므로 rollup tasklet이 orders 전체를 batchSize 단위로 다시 집계
+    @Bean(REBUILD_JOB_NAME + "_rebuildStep")
+    public Step rebuildStep() {
+        return this.stepBuilderFactory.get(REBUILD_JOB_NAME + "_rebuildStep")
+                .tasklet(new DailyOrderAmountRollupTasklet(dataSource))
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.util.List;
+
+/**
+ * orders에 새로 추가된 주문만 일별로 집계해서 daily_order_amount에 누적하는 tasklet
+ * - rollup_watermark에 마지막으로 반영한 orders id를 저장하고, 다음 실행에서는 그 이후 id만 집계
+ * - batchSize 만큼의 id 범위가 하나의 트랜잭션(CONTINUABLE 반복)이고 집계 반영과 watermark 갱신이 같은 트랜잭션이므로 중간에 실패해도 중복 반영되지 않음
+ * - IDENTITY id 순서로 반영하므로 주문 수정 / 삭제나 늦게 commit 된 작은 id는 반영되지 않음 -> reset() 후 다시 집계 (rebuild job)
+ * - 동시에 실행되는 rollup(다른 job 실행, rebuild job)이 같은 범위를 중복 반영하지 않도록 watermark를 select ... for update로 잠그고,
+ *   갱신할 때도 읽은 값과 같을 때만 변경 (트랜잭션 밖에서 실행되어도 중복 반영 대신 실패)
+ * - id가 commit 순서대로 할당된다고 가정 (orders를 insert 하는 트랜잭션이 짧고 동시에 실행되지 않음)
+ *   -> step 시작 시 watermark 이하 주문 수와 반영된 주문 수(order_count 합계)를 비교해서 가정이 깨졌으면(늦게 commit 된 주문, 삭제) 실패
+ */
+@Slf4j
+public class DailyOrderAmountRollupTasklet implements Tasklet {
+
+    public static final String WATERMARK_NAME = "daily_order_amount";
+
+    private static final int DEFAULT_BATCH_SIZE = 100_000;
+
+    private static final String VERIFIED_KEY = "rollup.verified";
+
+    private static final String SELECT_WATERMARK = "select last_order_id from rollup_watermark where name = ? for update";
+    private static final String INSERT_WATERMARK = "insert into rollup_watermark(name, last_order_id) values (?, 0)";
+    private static final String UPDATE_WATERMARK = "update rollup_watermark set last_order_id = ? where name = ? and last_order_id = ?";
+
+    private static final String COUNT_ORDERS = "select count(*) from orders where id <= ?";
+    private static final String COUNT_ROLLED_UP = "select coalesce(sum(order_count), 0) from daily_order_amount";
+
+    private static final String AGGREGATE = "select created_date, sum(amount), count(*) " +
+            "from orders " +
+            "where id > ? and id <= ? " +
+            "group by created_date";
+
+    private static final String UPDATE_AMOUNT = "update daily_order_amount " +
+            "set total_amount = total_amount + ?, order_count = order_count + ? " +
+            "where date = ?";
+    private static final String INSERT_AMOUNT = "insert into daily_order_amount(date, total_amount, order_count) values (?, ?, ?)";
+
+    private static final RowMapper<Object[]> DELTA_ROW_MAPPER = (resultSet, i) -> new Object[] {
+            resultSet.getDate(1), resultSet.getLong(2), resultSet.getLong(3)
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public DailyOrderAmountRollupTasklet(DataSource dataSource) {
+        this(dataSource, DEFAULT_BATCH_SIZE);
+    }
+
+    public DailyOrderAmountRollupTasklet(DataSource dataSource, int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+
+        long watermark = watermark();
+
+        // step 당 한 번 : 반영이 끝난 범위에 나중에 commit 된 주문이 없는지 확인
+        ExecutionContext executionContext = contribution.getStepExecution().getExecutionContext();
+
+        if (!executionContext.containsKey(VERIFIED_KEY)) {
+            verify(watermark);
+            executionContext.putString(VERIFIED_KEY, "true");
+        }
+
+        Long maxOrderId = jdbcTemplate.queryForObject("select max(id) from orders", Long.class);
+
+        if (maxOrderId == null || watermark >= maxOrderId) {
+            log.info("daily_order_amount 반영할 주문 없음 (watermark : {})", watermark);
+            return RepeatStatus.FINISHED;
+        }
+
+        long upperId = Math.min(watermark + batchSize, maxOrderId);
+
+        // (watermark, upperId] 범위의 주문을 일별로 집계해서 기존 합계에 더함 (범위 내 주문일 수 만큼의 row)
+        List<Object[]> deltas = jdbcTemplate.query(AGGREGATE, DELTA_ROW_MAPPER, watermark, upperId);
+
+        for (Object[] delta : deltas) {
+            Date date = (Date) delta[0];
+
+            if (jdbcTemplate.update(UPDATE_AMOUNT, delta[1], delta[2], date) == 0) {
+                jdbcTemplate.update(INSERT_AMOUNT, date, delta[1], delta[2]);
+            }
+        }
+
+        updateWatermark(watermark, upperId);
+        contribution.incrementWriteCount(deltas.size());
+
+        log.info("daily_order_amount 반영 : orders id {} ~ {}, 주문일 {}건", watermark + 1, upperId, deltas.size());
+
+        return upperId < maxOrderId ? RepeatStatus.CONTINUABLE : RepeatStatus.FINISHED;
+    }
+
+    // 집계 결과와 watermark를 초기화 (이후 실행에서 orders 전체를 다시 집계)
+    public void reset() {
+        long watermark = watermark(); // 실행 중인 rollup이 끝날 때까지 대기
+        int deleted = jdbcTemplate.update("delete from daily_order_amount");
+        updateWatermark(watermark, 0L);
+
+        log.info("daily_order_amount 초기화 : {}건 삭제", deleted);
+    }
+
+    private long watermark() {
+        List<Long> watermarks = jdbcTemplate.queryForList(SELECT_WATERMARK, Long.class, WATERMARK_NAME);
+
+        if (watermarks.isEmpty()) {
+            jdbcTemplate.update(INSERT_WATERMARK, WATERMARK_NAME);
+            return 0L;
+        }
+
+        return watermarks.get(0);
+    }
+
+    // 읽은 뒤 다른 실행이 watermark를 옮겼으면 같은 범위를 중복 반영하게 되므로 롤백
+    private void updateWatermark(long expected, long watermark) {
+        if (jdbcTemplate.update(UPDATE_WATERMARK, watermark, WATERMARK_NAME, expected) == 0) {
+            throw new OptimisticLockingFailureException("rollup_watermark가 다른 실행에서 변경됨 (" + WATERMARK_NAME + " : " + expected + ")");
+        }
+    }
+
+    private void verify(long watermark) {
+        long orderCount = jdbcTemplate.queryForObject(COUNT_ORDERS, Long.class, watermark);
+        long rolledUpCount = jdbcTemplate.queryForObject(COUNT_ROLLED_UP, Long.class);
+
+        if (orderCount != rolledUpCount) {
+            throw new IllegalStateException("watermark(" + watermark + ") 이하 주문 " + orderCount + "건 중 " + rolledUpCount
+                    + "건만 반영됨 (늦게 commit 된 주문 또는 삭제) -> dailyOrderAmountRebuildJob으로 다시 집계 필요");
+        }
+    }
+}
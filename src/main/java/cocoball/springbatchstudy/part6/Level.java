@@ -17,7 +17,7 @@ public enum Level {
         this.nextLevel = nextLevel;
     }
 
-    public static boolean availableLevelUp(Level level, int totalAmount) {
+    public static boolean availableLevelUp(Level level, long totalAmount) {
 
         if (Objects.isNull(level)) {
             return false;
@@ -30,7 +30,7 @@ public enum Level {
         return totalAmount >= level.nextAmout;
     }
 
-    public static Level getNextLevel(int totalAmount) {
+    public static Level getNextLevel(long totalAmount) {
 
         if (totalAmount >= Level.VIP.nextAmout) {
             return VIP;
@@ -1,5 +1,7 @@
 package cocoball.springbatchstudy.part6;
 
+import cocoball.springbatchstudy.AdaptiveChunkSizePolicy;
+import cocoball.springbatchstudy.BufferedCsvItemWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
@@ -10,28 +12,18 @@ import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.database.JdbcPagingItemReader;
-import org.springframework.batch.item.database.JpaPagingItemReader;
-import org.springframework.batch.item.database.Order;
-import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
-import org.springframework.batch.item.database.builder.JpaPagingItemReaderBuilder;
-import org.springframework.batch.item.file.FlatFileItemWriter;
-import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
-import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
+import org.springframework.batch.repeat.CompletionPolicy;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
-import java.time.LocalDate;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Map;
 
 @Configuration
 @Slf4j
@@ -39,6 +31,7 @@ public class MultiThreadUserConfiguration {
 
     private final String JOB_NAME = "multiThreadUserJob";
     private final int CHUNK_SIZE = 1000;
+    private final String PROJECTION_READ_MODE = "projection";
     private final JobBuilderFactory jobBuilderFactory;
     private final StepBuilderFactory stepBuilderFactory;
     private final UserRepostiory userRepostiory;
@@ -66,12 +59,13 @@ public class MultiThreadUserConfiguration {
         return this.jobBuilderFactory.get(JOB_NAME)
                 .incrementer(new RunIdIncrementer())
                 .start(this.saveUserStep()) // 유저 저장 step
-                .next(this.userLevelUpStep()) // 유저 레벨업 step
-                .next(this.orderStatisticsStep(null)) // 월별 주문 금액 합계 step
+                .next(this.userLevelUpStep(null, null)) // 유저 레벨업 step
+                .next(this.dailyOrderAmountRollupStep()) // 일별 주문 금액 집계 반영 step
+                .next(this.orderStatisticsStep(null, null)) // 월별 주문 금액 합계 step
                 .listener(new LevelUpJobExecutionListener(userRepostiory)) // JobExecutionListener
                 .next(new JobParametersDecide("date")) // date 파라미터가 있는지 검증
                     .on(JobParametersDecide.CONTINUE.getName()) // Decider가 CONTINUE를 반환하는지 (CONTINUE 상태가 아니면 실행이 안됨)
-                    .to(this.orderStatisticsStep(null)) // 해당 스텝에 대해
+                    .to(this.orderStatisticsStep(null, null)) // 해당 스텝에 대해
                     .build()
                 .build();
     }
@@ -79,17 +73,43 @@ public class MultiThreadUserConfiguration {
     @Bean(JOB_NAME + "_saveUserStep")
     public Step saveUserStep() {
         return this.stepBuilderFactory.get(JOB_NAME + "_saveUserStep")
-                .tasklet(new SaveUserTasklet(userRepostiory)) // 유저 저장 tasklet
+                .tasklet(new UserBulkLoadTasklet(dataSource)) // 유저 대량 적재 tasklet (적재 건수 : userCount 파라미터)
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_dailyOrderAmountRollupStep")
+    public Step dailyOrderAmountRollupStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_dailyOrderAmountRollupStep")
+                .tasklet(new DailyOrderAmountRollupTasklet(dataSource)) // 새로 추가된 주문만 daily_order_amount에 반영
                 .build();
     }
 
     @Bean(JOB_NAME + "_userLevelUpStep")
-    public Step userLevelUpStep() throws Exception {
+    @JobScope
+    public Step userLevelUpStep(@Value("#{jobParameters[readMode]}") String readMode,
+                                @Value("#{jobParameters[targetCommitMillis]}") String targetCommitMillis) throws Exception {
+
+        CompletionPolicy completionPolicy = completionPolicy(targetCommitMillis);
+
+        // readMode=projection : User 엔티티 대신 (userId, level, totalAmount)만 group by로 조회
+        if (PROJECTION_READ_MODE.equals(readMode)) {
+            return this.stepBuilderFactory.get(JOB_NAME + "_userLevelUpStep")
+                    .<UserTotalAmount, UserTotalAmount>chunk(completionPolicy)
+                    .reader(userTotalAmountItemReader())
+                    .processor(userTotalAmountItemProcessor())
+                    .writer(userTotalAmountItemWriter())
+                    .listener(completionPolicy) // adaptive 모드일 때 chunk 시간 측정용 리스너
+                    .taskExecutor(this.taskExecutor) // 멀티 스레드 적용을 위한 taskExecutor 주입
+                    .throttleLimit(8) // 몇개의 스레드로 chunk를 동시에 처리할지? 기본값 : 4
+                    .build();
+        }
+
         return this.stepBuilderFactory.get(JOB_NAME + "_userLevelUpStep")
-                .<User, User>chunk(CHUNK_SIZE)
+                .<User, User>chunk(completionPolicy)
                 .reader(itemReader())
                 .processor(itemProcessor())
                 .writer(itemWriter())
+                .listener(completionPolicy) // adaptive 모드일 때 chunk 시간 측정용 리스너
                 .taskExecutor(this.taskExecutor) // 멀티 스레드 적용을 위한 taskExecutor 주입
                 .throttleLimit(8) // 몇개의 스레드로 chunk를 동시에 처리할지? 기본값 : 4
                 .build();
@@ -97,25 +117,31 @@ public class MultiThreadUserConfiguration {
 
     @Bean(JOB_NAME + "_orderStatisticsStep")
     @JobScope
-    public Step orderStatisticsStep(@Value("#{jobParameters[date]}") String date) throws Exception {
+    public Step orderStatisticsStep(@Value("#{jobParameters[date]}") String date,
+                                    @Value("#{jobParameters[compression]}") String compression) throws Exception {
         return this.stepBuilderFactory.get(JOB_NAME + "_orderStatisticsStep")
                 .<OrderStatistics, OrderStatistics>chunk(CHUNK_SIZE)
                 .reader(orderStatisticsItemReader(date))
-                .writer(orderStatisticsItemWriter(date))
+                .writer(orderStatisticsItemWriter(date, compression)) // compression=gzip 이면 .csv.gz로 압축해서 기록
                 .build();
     }
 
 
-    private ItemReader<? extends User> itemReader() throws Exception {
+    private CompletionPolicy completionPolicy(String targetCommitMillis) {
 
-        JpaPagingItemReader itemReader = new JpaPagingItemReaderBuilder<User>()
-                .queryString("select u from User u")
-                .entityManagerFactory(entityManagerFactory)
-                .pageSize(CHUNK_SIZE) // 보통 chunk 사이즈와 동일하게
-                .name(JOB_NAME + "_userItemReader")
-                .build();
+        // targetCommitMillis 파라미터가 있으면 chunk commit 시간이 해당 값에 가까워지도록 chunk 사이즈를 조절
+        if (StringUtils.hasText(targetCommitMillis)) {
+            return new AdaptiveChunkSizePolicy(CHUNK_SIZE, Long.parseLong(targetCommitMillis));
+        }
+
+        return new SimpleCompletionPolicy(CHUNK_SIZE);
+    }
 
-        itemReader.afterPropertiesSet();
+    private ItemReader<? extends User> itemReader() {
+
+        // OFFSET 기반 JpaPagingItemReader 대신 id 기준 keyset 페이징
+        UserKeysetItemReader itemReader = new UserKeysetItemReader(JOB_NAME + "_userItemReader", entityManagerFactory, CHUNK_SIZE);
+        itemReader.setSaveState(false); // 여러 스레드가 읽으므로 마지막으로 읽은 id로는 재시작할 수 없음
 
         return itemReader;
 
@@ -137,72 +163,65 @@ public class MultiThreadUserConfiguration {
 
 
     private ItemWriter<? super User> itemWriter() {
-        return users -> {
 
-            users.forEach(x -> {
-                x.levelUp();
-                userRepostiory.save(x);
-            });
+        // user 1건씩 save(merge) 하지 않고 변경될 Level 별로 모아서 JDBC batch update
+        return UserLevelUpItemWriter.forUser(dataSource);
 
-        };
     }
 
-    private ItemReader<? extends OrderStatistics> orderStatisticsItemReader(String date) throws Exception {
+    private ItemReader<? extends UserTotalAmount> userTotalAmountItemReader() {
+        UserTotalAmountItemReader itemReader = new UserTotalAmountItemReader(JOB_NAME + "_userTotalAmountItemReader", dataSource, CHUNK_SIZE);
+        itemReader.setSaveState(false); // 여러 스레드가 읽으므로 마지막으로 읽은 id로는 재시작할 수 없음
 
-        YearMonth yearMonth = YearMonth.parse(date); // date의 연, 월 parse
+        return itemReader;
+    }
 
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("startDate", yearMonth.atDay(1)); // 해당 월의 1일
-        parameters.put("endDate", yearMonth.atEndOfMonth()); // 해당 월의 말일
-
-        Map<String, Order> sortKey = new HashMap<>();
-        sortKey.put("created_date", Order.ASCENDING); // sort 정렬 기준
-
-        JdbcPagingItemReader itemReader = new JdbcPagingItemReaderBuilder<OrderStatistics>()
-                .dataSource(dataSource)
-                .rowMapper((resultSet, i) -> OrderStatistics.builder()
-                        .amount(resultSet.getString(1))
-                        .date(LocalDate.parse(resultSet.getString(2), DateTimeFormatter.ISO_DATE))
-                        .build())
-                .pageSize(CHUNK_SIZE)
-                .name(JOB_NAME + "_orderStatisticsItemReader")
-                .selectClause("sum(amount), created_date") // select절
-                .fromClause("orders") // from절
-                .whereClause("created_date >= :startDate and created_date <= :endDate") // where절
-                .groupClause("created_date") // group절
-                .parameterValues(parameters) // 파라미터 설정
-                .sortKeys(sortKey) // 정렬
-                .build();
+    private ItemProcessor<? super UserTotalAmount, ? extends UserTotalAmount> userTotalAmountItemProcessor() {
+        return userTotalAmount -> {
+
+            // 상향 대상 여부 체크
+            if (userTotalAmount.availableLevelUp()) {
+                return userTotalAmount;
+            }
 
-        itemReader.afterPropertiesSet();
+            return null;
+
+        };
+    }
+
+    private ItemWriter<? super UserTotalAmount> userTotalAmountItemWriter() {
+
+        // 엔티티가 없으므로 변경될 Level 별로 모아서 JDBC batch update
+        return UserLevelUpItemWriter.forUserTotalAmount(dataSource);
 
-        return itemReader;
     }
 
-    private ItemWriter<? super OrderStatistics> orderStatisticsItemWriter(String date) throws Exception {
+    private ItemReader<? extends OrderStatistics> orderStatisticsItemReader(String date) {
 
         YearMonth yearMonth = YearMonth.parse(date); // date의 연, 월 parse
 
-        String fileName = yearMonth.getYear() + "년_" + yearMonth.getMonthValue() + "월_일별_주문_금액.csv";
+        // orders를 매번 group by 하지 않고 미리 집계된 daily_order_amount에서 해당 월의 날짜 수 만큼만 읽음
+        return OrderStatisticsItemReader.fromDailyOrderAmount(JOB_NAME + "_orderStatisticsItemReader", dataSource,
+                yearMonth.atDay(1), yearMonth.atEndOfMonth()); // 해당 월의 1일 ~ 말일
+    }
 
-        BeanWrapperFieldExtractor<OrderStatistics> fieldExtractor = new BeanWrapperFieldExtractor<>();
-        fieldExtractor.setNames(new String[] {"amount", "date"});
+    private ItemWriter<? super OrderStatistics> orderStatisticsItemWriter(String date, String compression) {
 
-        DelimitedLineAggregator<OrderStatistics> lineAggregator = new DelimitedLineAggregator<>();
-        lineAggregator.setDelimiter(",");
-        lineAggregator.setFieldExtractor(fieldExtractor);
+        YearMonth yearMonth = YearMonth.parse(date); // date의 연, 월 parse
 
-        FlatFileItemWriter<OrderStatistics> itemWriter = new FlatFileItemWriterBuilder<OrderStatistics>()
-                .resource(new FileSystemResource("output/" + fileName))
-                .lineAggregator(lineAggregator)
-                .name(JOB_NAME + "_orderStatisticsItemWriter")
-                .encoding("UTF-8")
-                .headerCallback(writer -> writer.write("total_amount, date"))
-                .build();
+        BufferedCsvItemWriter.Compression fileCompression = BufferedCsvItemWriter.Compression.from(compression);
 
-        itemWriter.afterPropertiesSet();
+        String fileName = fileCompression.fileName(yearMonth.getYear() + "년_" + yearMonth.getMonthValue() + "월_일별_주문_금액.csv");
 
-        return itemWriter;
+        // FlatFileItemWriter 대신 람다로 필드를 꺼내서 chunk 단위로 FileChannel에 기록하는 csv writer
+        return BufferedCsvItemWriter.<OrderStatistics>builder()
+                .name(JOB_NAME + "_orderStatisticsItemWriter")
+                .resource(new FileSystemResource("output/" + fileName))
+                .compression(fileCompression) // chunk commit 마다 gzip member 하나
+                .header("total_amount, date")
+                .longColumn(OrderStatistics::getAmount)
+                .epochDayColumn(OrderStatistics::getEpochDay)
+                .build();
 
     }
 
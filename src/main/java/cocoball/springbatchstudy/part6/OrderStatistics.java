@@ -5,15 +5,23 @@ import lombok.Getter;
 
 import java.time.LocalDate;
 
+/**
+ * 일별 주문 금액 합계
+ * 수백만 건을 export 할 때 String 변환 / 날짜 parse 없이 그대로 쓸 수 있도록 금액은 long, 날짜는 epoch day로 보관
+ */
 @Getter
 public class OrderStatistics {
 
-    private String amount;
-    private LocalDate date;
+    private final long amount;
+    private final long epochDay; // 1970-01-01 부터의 일 수
 
     @Builder
-    private OrderStatistics(String amount, LocalDate date) {
+    private OrderStatistics(long amount, long epochDay) {
         this.amount = amount;
-        this.date = date;
+        this.epochDay = epochDay;
+    }
+
+    public LocalDate getDate() {
+        return LocalDate.ofEpochDay(epochDay);
     }
 }
@@ -0,0 +1,145 @@
+package cocoball.springbatchstudy.part6;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DailyOrderAmountRollupTasklet이 미리 집계한 daily_order_amount에서 기간 내 일별 주문 금액 합계를 읽는 cursor Reader
+ * 한 달치라도 날짜 수(최대 31건) 만큼만 읽으므로 쿼리 1번, fetch 1번으로 끝남
+ *
+ * 재시작 시에는 마지막으로 반환한 날짜 다음 날부터 다시 읽음
+ * 멀티 스레드 step에서 여러 스레드가 동시에 호출하므로 lock으로 보호 (cursor fetch 대기 중 virtual thread pinning이 없도록 synchronized 대신 ReentrantLock)
+ */
+public class OrderStatisticsItemReader extends AbstractItemStreamItemReader<OrderStatistics> {
+
+    private static final String LAST_DATE_KEY = "lastDate";
+    private static final long NOT_READ = Long.MIN_VALUE;
+    private static final int FETCH_SIZE = 31; // 한 달의 최대 날짜 수
+
+    // 1번째 컬럼 : 금액 합계, 2번째 컬럼 : 날짜 (날짜 순 정렬)
+    private static final String QUERY = "select total_amount, date " +
+            "from daily_order_amount " +
+            "where date >= ? and date <= ? " +
+            "order by date";
+
+    private final DataSource dataSource;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    private Connection connection;
+    private PreparedStatement preparedStatement;
+    private ResultSet resultSet;
+
+    private long lastEpochDay = NOT_READ; // 실제로 read()가 반환한 마지막 날짜 (재시작 기준)
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private OrderStatisticsItemReader(String name, DataSource dataSource, LocalDate startDate, LocalDate endDate) {
+        setName(name);
+        this.dataSource = dataSource;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    // startDate, endDate 모두 포함 (DailyOrderAmountRollupTasklet이 먼저 실행되어 있어야 함)
+    public static OrderStatisticsItemReader fromDailyOrderAmount(String name, DataSource dataSource, LocalDate startDate, LocalDate endDate) {
+        return new OrderStatisticsItemReader(name, dataSource, startDate, endDate);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        lock.lock();
+
+        try {
+            super.open(executionContext);
+
+            String key = getExecutionContextKey(LAST_DATE_KEY);
+
+            // 재시작인 경우 마지막으로 처리한 날짜 이후부터 다시 읽음
+            this.lastEpochDay = executionContext.getLong(key, NOT_READ);
+            LocalDate fromDate = lastEpochDay != NOT_READ ? LocalDate.ofEpochDay(lastEpochDay + 1) : startDate;
+
+            try {
+                // chunk 트랜잭션과 별개의 커넥션으로 step이 끝날 때까지 cursor 유지
+                this.connection = dataSource.getConnection();
+                this.preparedStatement = connection.prepareStatement(QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                this.preparedStatement.setFetchSize(FETCH_SIZE);
+                this.preparedStatement.setDate(1, Date.valueOf(fromDate));
+                this.preparedStatement.setDate(2, Date.valueOf(endDate));
+                this.resultSet = preparedStatement.executeQuery();
+            } catch (SQLException e) {
+                close();
+                throw new ItemStreamException("주문 통계 cursor를 열 수 없음", e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public OrderStatistics read() throws SQLException {
+        lock.lock();
+
+        try {
+            if (resultSet == null || !resultSet.next()) {
+                return null; // 더 이상 읽을 데이터가 없음
+            }
+
+            OrderStatistics orderStatistics = OrderStatistics.builder()
+                    .amount(resultSet.getLong(1))
+                    .epochDay(resultSet.getObject(2, LocalDate.class).toEpochDay())
+                    .build();
+
+            this.lastEpochDay = orderStatistics.getEpochDay();
+
+            return orderStatistics;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        lock.lock();
+
+        try {
+            super.update(executionContext);
+
+            if (lastEpochDay != NOT_READ) {
+                executionContext.putLong(getExecutionContextKey(LAST_DATE_KEY), lastEpochDay);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        lock.lock();
+
+        try {
+            super.close();
+
+            JdbcUtils.closeResultSet(resultSet);
+            JdbcUtils.closeStatement(preparedStatement);
+            JdbcUtils.closeConnection(connection);
+
+            this.resultSet = null;
+            this.preparedStatement = null;
+            this.connection = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * from ~ to 월을 한 달에 하나씩 파티션으로 나누는 Partitioner
+ * 파티션 이름이 월 기준으로 고정되므로 재시작 시 COMPLETED인 월은 건너뛰고 실패한 월만 다시 실행됨
+ * (gridSize는 사용하지 않음, 동시 실행 수는 TaskExecutor가 결정)
+ */
+@Slf4j
+public class OrderStatisticsMonthPartitioner implements Partitioner {
+
+    public static final String MONTH_KEY = "month";
+
+    private final YearMonth from;
+    private final YearMonth to;
+
+    // from, to 모두 포함
+    public OrderStatisticsMonthPartitioner(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from(" + from + ")이 to(" + to + ") 보다 이후임");
+        }
+
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            ExecutionContext executionContext = new ExecutionContext();
+            executionContext.putString(MONTH_KEY, month.toString()); // yyyy-MM
+
+            result.put("month" + month, executionContext);
+        }
+
+        log.info("주문 통계 월별 파티션 : {} ~ {}, {}개", from, to, result.size());
+
+        return result;
+    }
+}
@@ -0,0 +1,153 @@
+package cocoball.springbatchstudy.part6;
+
+import cocoball.springbatchstudy.BufferedCsvItemWriter;
+import cocoball.springbatchstudy.ColumnarItemWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.CompositeJobParametersValidator;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskExecutor;
+
+import javax.sql.DataSource;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+/**
+ * from ~ to 월의 일별 주문 금액 합계를 월별 파일로 export (--job.name=orderStatisticsRangeJob from=2020-01 to=2020-12 path=output/ compression=gzip)
+ * - format=columnar 이면 csv 대신 분석용 columnar binary 파일(.colb)로 기록 (ColumnarItemReader로 다시 읽음)
+ *   columnar 파일은 압축하지 않으므로 compression=gzip과 함께 지정하면 job 시작 전에 실패
+ * - 월 하나가 파티션 하나이고, 파티션들은 taskExecutor에서 동시에 실행되어 월별 파일을 각자 작성
+ * - 월별 진행 상태가 job repository에 worker StepExecution으로 남고, 재시작 시 실패한 월만 다시 실행
+ */
+@Configuration
+@Slf4j
+public class OrderStatisticsRangeConfiguration {
+
+    private final String JOB_NAME = "orderStatisticsRangeJob";
+    private final int CHUNK_SIZE = 1000;
+    private final String COLUMNAR_FORMAT = "columnar";
+    private final JobBuilderFactory jobBuilderFactory;
+    private final StepBuilderFactory stepBuilderFactory;
+    private final DataSource dataSource;
+    private final TaskExecutor taskExecutor;
+
+
+    public OrderStatisticsRangeConfiguration(JobBuilderFactory jobBuilderFactory,
+                                             StepBuilderFactory stepBuilderFactory,
+                                             DataSource dataSource,
+                                             TaskExecutor taskExecutor) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.dataSource = dataSource;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Bean(JOB_NAME)
+    public Job orderStatisticsRangeJob() {
+        return this.jobBuilderFactory.get(JOB_NAME)
+                .incrementer(new RunIdIncrementer())
+                .validator(jobParametersValidator())
+                .start(this.dailyOrderAmountRollupStep()) // 일별 주문 금액 집계 반영 step
+                .next(this.orderStatisticsManagerStep(null, null)) // 월별 주문 금액 합계 step의 마스터 step
+                .build();
+    }
+
+    JobParametersValidator jobParametersValidator() {
+        CompositeJobParametersValidator validator = new CompositeJobParametersValidator();
+        validator.setValidators(Arrays.asList(
+                new DefaultJobParametersValidator(new String[] {"from", "to"}, new String[] {"path", "compression", "format", "run.id"}),
+                parameters -> {
+                    // columnar writer에는 압축 옵션이 없으므로 compression을 조용히 무시하지 않고 거부
+                    if (parameters != null && COLUMNAR_FORMAT.equals(parameters.getString("format"))
+                            && BufferedCsvItemWriter.Compression.from(parameters.getString("compression")) != BufferedCsvItemWriter.Compression.NONE) {
+                        throw new JobParametersInvalidException("format=columnar 는 compression을 지원하지 않음 : compression=" + parameters.getString("compression"));
+                    }
+                }));
+
+        return validator;
+    }
+
+    @Bean(JOB_NAME + "_dailyOrderAmountRollupStep")
+    public Step dailyOrderAmountRollupStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_dailyOrderAmountRollupStep")
+                .tasklet(new DailyOrderAmountRollupTasklet(dataSource)) // 새로 추가된 주문만 daily_order_amount에 반영
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_orderStatisticsStep.manager")
+    @JobScope
+    public Step orderStatisticsManagerStep(@Value("#{jobParameters[from]}") String from,
+                                           @Value("#{jobParameters[to]}") String to) {
+        return this.stepBuilderFactory.get(JOB_NAME + "_orderStatisticsStep.manager")
+                .partitioner(JOB_NAME + "_orderStatisticsStep", new OrderStatisticsMonthPartitioner(YearMonth.parse(from), YearMonth.parse(to)))
+                .step(orderStatisticsStep())
+                .taskExecutor(this.taskExecutor) // 월별 파티션을 동시에 실행
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_orderStatisticsStep")
+    public Step orderStatisticsStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_orderStatisticsStep")
+                .<OrderStatistics, OrderStatistics>chunk(CHUNK_SIZE)
+                .reader(orderStatisticsItemReader(null))
+                .writer(orderStatisticsItemWriter(null, null, null, null))
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_orderStatisticsItemReader")
+    @StepScope
+    OrderStatisticsItemReader orderStatisticsItemReader(@Value("#{stepExecutionContext[month]}") String month) {
+
+        YearMonth yearMonth = YearMonth.parse(month); // 파티션에 할당된 월
+
+        return OrderStatisticsItemReader.fromDailyOrderAmount(JOB_NAME + "_orderStatisticsItemReader", dataSource,
+                yearMonth.atDay(1), yearMonth.atEndOfMonth()); // 해당 월의 1일 ~ 말일
+    }
+
+    @Bean(JOB_NAME + "_orderStatisticsItemWriter")
+    @StepScope
+    ItemStreamWriter<OrderStatistics> orderStatisticsItemWriter(@Value("#{stepExecutionContext[month]}") String month,
+                                                                @Value("#{jobParameters[path]}") String path,
+                                                                @Value("#{jobParameters[compression]}") String compression,
+                                                                @Value("#{jobParameters[format]}") String format) {
+
+        YearMonth yearMonth = YearMonth.parse(month); // 파티션에 할당된 월
+
+        if (COLUMNAR_FORMAT.equals(format)) {
+            String fileName = yearMonth.getYear() + "년_" + yearMonth.getMonthValue() + "월_일별_주문_금액.colb";
+
+            return ColumnarItemWriter.<OrderStatistics>builder() // chunk 하나가 row group 하나
+                    .name(JOB_NAME + "_orderStatisticsColumnarItemWriter")
+                    .resource(new FileSystemResource((path != null ? path : "output/") + fileName))
+                    .longColumn("total_amount", OrderStatistics::getAmount)
+                    .longColumn("date", OrderStatistics::getEpochDay) // 날짜 순이므로 delta가 대부분 1
+                    .build();
+        }
+
+        BufferedCsvItemWriter.Compression fileCompression = BufferedCsvItemWriter.Compression.from(compression);
+
+        String fileName = fileCompression.fileName(yearMonth.getYear() + "년_" + yearMonth.getMonthValue() + "월_일별_주문_금액.csv");
+
+        return BufferedCsvItemWriter.<OrderStatistics>builder() // 파티션(스레드)마다 별도 writer
+                .name(JOB_NAME + "_orderStatisticsItemWriter")
+                .resource(new FileSystemResource((path != null ? path : "output/") + fileName))
+                .compression(fileCompression) // 없으면 압축하지 않음, gzip이면 chunk commit 마다 gzip member 하나
+                .header("total_amount, date")
+                .longColumn(OrderStatistics::getAmount)
+                .epochDayColumn(OrderStatistics::getEpochDay)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package cocoball.springbatchstudy.part6;
 
+import cocoball.springbatchstudy.BufferedCsvItemWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
@@ -10,31 +11,21 @@ import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.partition.PartitionHandler;
 import org.springframework.batch.core.partition.support.TaskExecutorPartitionHandler;
+import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.database.JdbcPagingItemReader;
-import org.springframework.batch.item.database.JpaPagingItemReader;
-import org.springframework.batch.item.database.Order;
-import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
-import org.springframework.batch.item.database.builder.JpaPagingItemReaderBuilder;
-import org.springframework.batch.item.file.FlatFileItemWriter;
-import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
-import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
-import java.time.LocalDate;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Map;
 
 @Configuration
 @Slf4j
@@ -42,12 +33,15 @@ public class PartitionUserConfiguration {
 
     private final String JOB_NAME = "partitionUserJob";
     private final int CHUNK_SIZE = 1000;
+    private final int SLICE_COUNT = 64;
+    private final String WORK_STEALING_PARTITION_MODE = "workStealing";
     private final JobBuilderFactory jobBuilderFactory;
     private final StepBuilderFactory stepBuilderFactory;
     private final UserRepostiory userRepostiory;
     private final EntityManagerFactory entityManagerFactory;
     private final DataSource dataSource;
     private final TaskExecutor taskExecutor;
+    private final JobRepository jobRepository;
 
 
     public PartitionUserConfiguration(JobBuilderFactory jobBuilderFactory,
@@ -55,13 +49,15 @@ public class PartitionUserConfiguration {
                                       UserRepostiory userRepostiory,
                                       EntityManagerFactory entityManagerFactory,
                                       DataSource dataSource,
-                                      TaskExecutor taskExecutor) {
+                                      TaskExecutor taskExecutor,
+                                      JobRepository jobRepository) {
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
         this.userRepostiory = userRepostiory;
         this.entityManagerFactory = entityManagerFactory;
         this.dataSource = dataSource;
         this.taskExecutor = taskExecutor;
+        this.jobRepository = jobRepository;
     }
 
     @Bean(JOB_NAME)
@@ -69,12 +65,13 @@ public class PartitionUserConfiguration {
         return this.jobBuilderFactory.get(JOB_NAME)
                 .incrementer(new RunIdIncrementer())
                 .start(this.saveUserStep()) // 유저 저장 step
-                .next(this.userLevelUpManagerStep()) // 유저 레벨업 step의 마스터 step
-                .next(this.orderStatisticsStep(null)) // 월별 주문 금액 합계 step
+                .next(this.userLevelUpManagerStep(null)) // 유저 레벨업 step의 마스터 step
+                .next(this.dailyOrderAmountRollupStep()) // 일별 주문 금액 집계 반영 step
+                .next(this.orderStatisticsStep(null, null)) // 월별 주문 금액 합계 step
                 .listener(new LevelUpJobExecutionListener(userRepostiory)) // JobExecutionListener
                 .next(new JobParametersDecide("date")) // date 파라미터가 있는지 검증
                     .on(JobParametersDecide.CONTINUE.getName()) // Decider가 CONTINUE를 반환하는지 (CONTINUE 상태가 아니면 실행이 안됨)
-                    .to(this.orderStatisticsStep(null)) // 해당 스텝에 대해
+                    .to(this.orderStatisticsStep(null, null)) // 해당 스텝에 대해
                     .build()
                 .build();
     }
@@ -82,7 +79,14 @@ public class PartitionUserConfiguration {
     @Bean(JOB_NAME + "_saveUserStep")
     public Step saveUserStep() {
         return this.stepBuilderFactory.get(JOB_NAME + "_saveUserStep")
-                .tasklet(new SaveUserTasklet(userRepostiory)) // 유저 저장 tasklet
+                .tasklet(new UserBulkLoadTasklet(dataSource)) // 유저 대량 적재 tasklet (적재 건수 : userCount 파라미터)
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_dailyOrderAmountRollupStep")
+    public Step dailyOrderAmountRollupStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_dailyOrderAmountRollupStep")
+                .tasklet(new DailyOrderAmountRollupTasklet(dataSource)) // 새로 추가된 주문만 daily_order_amount에 반영
                 .build();
     }
 
@@ -98,22 +102,30 @@ public class PartitionUserConfiguration {
 
     // 마스터 스텝
     @Bean(JOB_NAME + "_userLevelUpStep.manager")
-    public Step userLevelUpManagerStep() throws Exception {
+    @JobScope
+    public Step userLevelUpManagerStep(@Value("#{jobParameters[partitionMode]}") String partitionMode) throws Exception {
+
+        // partitionMode=workStealing : 잘게 나눈 slice를 worker들이 큐에서 가져가며 처리
+        PartitionHandler partitionHandler = WORK_STEALING_PARTITION_MODE.equals(partitionMode)
+                ? workStealingPartitionHandler()
+                : taskExecutorPartitionHandler();
+
         return this.stepBuilderFactory.get(JOB_NAME + "_userLevelUpStep.manager")
-                .partitioner(JOB_NAME + "_userLevelUpStep", new UserLevelUpPartitioner(userRepostiory))
+                .partitioner(JOB_NAME + "_userLevelUpStep", new UserLevelUpQuantilePartitioner(dataSource)) // id 분포 기준으로 row 수가 비슷하게 분할
                 .step(userLevelUpStep()) // slave step 설정
-                .partitionHandler(taskExecutorPartitionHandler())
+                .partitionHandler(partitionHandler)
                 .build();
     }
 
 
     @Bean(JOB_NAME + "_orderStatisticsStep")
     @JobScope
-    public Step orderStatisticsStep(@Value("#{jobParameters[date]}") String date) throws Exception {
+    public Step orderStatisticsStep(@Value("#{jobParameters[date]}") String date,
+                                    @Value("#{jobParameters[compression]}") String compression) throws Exception {
         return this.stepBuilderFactory.get(JOB_NAME + "_orderStatisticsStep")
                 .<OrderStatistics, OrderStatistics>chunk(CHUNK_SIZE)
                 .reader(orderStatisticsItemReader(date))
-                .writer(orderStatisticsItemWriter(date))
+                .writer(orderStatisticsItemWriter(date, compression)) // compression=gzip 이면 .csv.gz로 압축해서 기록
                 .build();
     }
 
@@ -121,25 +133,12 @@ public class PartitionUserConfiguration {
     @Bean(JOB_NAME + "_userItemReader")
     @StepScope // Thread-Safe를 위해 설정
     // 명확하게 ItemReader 타입을 명시해야 함 (StepScope의 경우 Proxy 모드로 설정이 되므로)
-    JpaPagingItemReader<? extends User> itemReader(@Value("#{stepExecutionContext[minId]}") Long minId,
-                                          @Value("#{stepExecutionContext[maxId]}") Long maxId) throws Exception {
-
-        // 한 개의 step에서 사용할 파라미터 (@Value 어노테이션에서 받아와서 주입)
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("minId", minId);
-        parameters.put("maxId", maxId);
-
-        JpaPagingItemReader itemReader = new JpaPagingItemReaderBuilder<User>()
-                .queryString("select u from User u where u.id between :minId and :maxId")
-                .parameterValues(parameters)
-                .entityManagerFactory(entityManagerFactory)
-                .pageSize(CHUNK_SIZE) // 보통 chunk 사이즈와 동일하게
-                .name(JOB_NAME + "_userItemReader")
-                .build();
-
-        itemReader.afterPropertiesSet();
+    UserKeysetItemReader itemReader(@Value("#{stepExecutionContext[minId]}") Long minId,
+                                    @Value("#{stepExecutionContext[maxId]}") Long maxId) {
 
-        return itemReader;
+        // 한 개의 step에서 사용할 id 범위 (@Value 어노테이션에서 받아와서 주입)
+        // 범위 안에서도 OFFSET 없이 id 기준 keyset 페이징
+        return new UserKeysetItemReader(JOB_NAME + "_userItemReader", entityManagerFactory, CHUNK_SIZE, minId, maxId);
 
     }
 
@@ -159,73 +158,39 @@ public class PartitionUserConfiguration {
 
 
     private ItemWriter<? super User> itemWriter() {
-        return users -> {
 
-            users.forEach(x -> {
-                x.levelUp();
-                userRepostiory.save(x);
-            });
+        // user 1건씩 save(merge) 하지 않고 변경될 Level 별로 모아서 JDBC batch update
+        return UserLevelUpItemWriter.forUser(dataSource);
 
-        };
     }
 
-    private ItemReader<? extends OrderStatistics> orderStatisticsItemReader(String date) throws Exception {
+    private ItemReader<? extends OrderStatistics> orderStatisticsItemReader(String date) {
 
         YearMonth yearMonth = YearMonth.parse(date); // date의 연, 월 parse
 
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("startDate", yearMonth.atDay(1)); // 해당 월의 1일
-        parameters.put("endDate", yearMonth.atEndOfMonth()); // 해당 월의 말일
-
-        Map<String, Order> sortKey = new HashMap<>();
-        sortKey.put("created_date", Order.ASCENDING); // sort 정렬 기준
-
-        JdbcPagingItemReader itemReader = new JdbcPagingItemReaderBuilder<OrderStatistics>()
-                .dataSource(dataSource)
-                .rowMapper((resultSet, i) -> OrderStatistics.builder()
-                        .amount(resultSet.getString(1))
-                        .date(LocalDate.parse(resultSet.getString(2), DateTimeFormatter.ISO_DATE))
-                        .build())
-                .pageSize(CHUNK_SIZE)
-                .name(JOB_NAME + "_orderStatisticsItemReader")
-                .selectClause("sum(amount), created_date") // select절
-                .fromClause("orders") // from절
-                .whereClause("created_date >= :startDate and created_date <= :endDate") // where절
-                .groupClause("created_date") // group절
-                .parameterValues(parameters) // 파라미터 설정
-                .sortKeys(sortKey) // 정렬
-                .build();
-
-        itemReader.afterPropertiesSet();
-
-        return itemReader;
+        // orders를 매번 group by 하지 않고 미리 집계된 daily_order_amount에서 해당 월의 날짜 수 만큼만 읽음
+        return OrderStatisticsItemReader.fromDailyOrderAmount(JOB_NAME + "_orderStatisticsItemReader", dataSource,
+                yearMonth.atDay(1), yearMonth.atEndOfMonth()); // 해당 월의 1일 ~ 말일
     }
 
-    private ItemWriter<? super OrderStatistics> orderStatisticsItemWriter(String date) throws Exception {
+    private ItemWriter<? super OrderStatistics> orderStatisticsItemWriter(String date, String compression) {
 
         YearMonth yearMonth = YearMonth.parse(date); // date의 연, 월 parse
 
-        String fileName = yearMonth.getYear() + "년_" + yearMonth.getMonthValue() + "월_일별_주문_금액.csv";
+        BufferedCsvItemWriter.Compression fileCompression = BufferedCsvItemWriter.Compression.from(compression);
 
-        BeanWrapperFieldExtractor<OrderStatistics> fieldExtractor = new BeanWrapperFieldExtractor<>();
-        fieldExtractor.setNames(new String[] {"amount", "date"});
+        String fileName = fileCompression.fileName(yearMonth.getYear() + "년_" + yearMonth.getMonthValue() + "월_일별_주문_금액.csv");
 
-        DelimitedLineAggregator<OrderStatistics> lineAggregator = new DelimitedLineAggregator<>();
-        lineAggregator.setDelimiter(",");
-        lineAggregator.setFieldExtractor(fieldExtractor);
-
-        FlatFileItemWriter<OrderStatistics> itemWriter = new FlatFileItemWriterBuilder<OrderStatistics>()
-                .resource(new FileSystemResource("output/" + fileName))
-                .lineAggregator(lineAggregator)
+        // FlatFileItemWriter 대신 람다로 필드를 꺼내서 chunk 단위로 FileChannel에 기록하는 csv writer
+        return BufferedCsvItemWriter.<OrderStatistics>builder()
                 .name(JOB_NAME + "_orderStatisticsItemWriter")
-                .encoding("UTF-8")
-                .headerCallback(writer -> writer.write("total_amount, date"))
+                .resource(new FileSystemResource("output/" + fileName))
+                .compression(fileCompression) // chunk commit 마다 gzip member 하나
+                .header("total_amount, date")
+                .longColumn(OrderStatistics::getAmount)
+                .epochDayColumn(OrderStatistics::getEpochDay)
                 .build();
 
-        itemWriter.afterPropertiesSet();
-
-        return itemWriter;
-
     }
 
     @Bean(JOB_NAME + "_taskExecutorPartitionHandler")
@@ -239,5 +204,34 @@ public class PartitionUserConfiguration {
         return handler;
     }
 
+    @Bean(JOB_NAME + "_workStealingPartitionHandler")
+    PartitionHandler workStealingPartitionHandler() throws Exception {
+        WorkStealingPartitionHandler handler = new WorkStealingPartitionHandler();
+
+        handler.setStep(userLevelUpStep());
+        handler.setTaskExecutor(this.taskExecutor);
+        handler.setGridSize(SLICE_COUNT); // slice 개수 (worker 수보다 충분히 크게)
+        handler.setWorkerCount(workerCount());
+        handler.setJobRepository(this.jobRepository); // 처리되지 못한 slice를 FAILED로 저장
+        handler.afterPropertiesSet();
+
+        return handler;
+    }
+
+    private int workerCount() {
+
+        // 큐 용량이 무제한인 ThreadPoolTaskExecutor는 core 사이즈 이상으로 스레드를 늘리지 않으므로 core 사이즈 만큼만 worker 생성
+        if (this.taskExecutor instanceof ThreadPoolTaskExecutor) {
+            return ((ThreadPoolTaskExecutor) this.taskExecutor).getCorePoolSize();
+        }
+
+        // virtual thread TaskExecutor는 동시 실행 제한(커넥션 풀 크기) 만큼 worker 생성
+        if (this.taskExecutor instanceof SimpleAsyncTaskExecutor && ((SimpleAsyncTaskExecutor) this.taskExecutor).isThrottleActive()) {
+            return ((SimpleAsyncTaskExecutor) this.taskExecutor).getConcurrencyLimit();
+        }
+
+        return Runtime.getRuntime().availableProcessors();
+    }
+
 
 }
@@ -0,0 +1,170 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.step.item.SimpleChunkProcessor;
+import org.springframework.batch.integration.chunk.ChunkMessageChannelItemWriter;
+import org.springframework.batch.integration.chunk.ChunkProcessorChunkHandler;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.handler.ServiceActivatingHandler;
+import org.springframework.integration.transaction.TransactionInterceptorBuilder;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.PollableChannel;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+
+/**
+ * Remote Chunking
+ * manager는 reader로 (userId, level, totalAmount)를 읽어서 chunk 단위로 requests 채널에 보내고,
+ * worker는 chunk를 받아서 레벨업 processor, writer를 실행한 뒤 처리 결과(ack)를 replies 채널로 응답
+ * manager는 응답을 받지 못한 chunk 수(in-flight)가 maxInFlightChunks 파라미터(기본 4)를 넘으면 응답이 올 때까지 대기
+ *
+ * 로컬에서는 requests 채널을 ExecutorChannel, replies 채널을 QueueChannel(in-memory)로 두어 같은 JVM에서 동작
+ * 여러 노드로 확장할 때는 두 채널을 브로커 adapter로 연결 (chunk 아이템은 Serializable 이어야 함)
+ */
+@Configuration
+@Slf4j
+public class RemoteChunkingUserConfiguration {
+
+    private final String JOB_NAME = "remoteChunkingUserJob";
+    private final String REQUESTS_CHANNEL = JOB_NAME + "_requests";
+    private final String REPLIES_CHANNEL = JOB_NAME + "_replies";
+    private final int CHUNK_SIZE = 1000;
+    private final long DEFAULT_MAX_IN_FLIGHT_CHUNKS = 4;
+    private final long RECEIVE_TIMEOUT = 2000L;
+    private final JobBuilderFactory jobBuilderFactory;
+    private final StepBuilderFactory stepBuilderFactory;
+    private final UserRepostiory userRepostiory;
+    private final DataSource dataSource;
+    private final TaskExecutor taskExecutor;
+
+
+    public RemoteChunkingUserConfiguration(JobBuilderFactory jobBuilderFactory,
+                                           StepBuilderFactory stepBuilderFactory,
+                                           UserRepostiory userRepostiory,
+                                           DataSource dataSource,
+                                           TaskExecutor taskExecutor) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.userRepostiory = userRepostiory;
+        this.dataSource = dataSource;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Bean(JOB_NAME)
+    public Job userJob() throws Exception {
+        return this.jobBuilderFactory.get(JOB_NAME)
+                .incrementer(new RunIdIncrementer())
+                .start(this.saveUserStep()) // 유저 저장 step
+                .next(this.userLevelUpManagerStep()) // 유저 레벨업 step (chunk를 worker에게 전송)
+                .listener(new LevelUpJobExecutionListener(userRepostiory)) // JobExecutionListener
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_saveUserStep")
+    public Step saveUserStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_saveUserStep")
+                .tasklet(new UserBulkLoadTasklet(dataSource)) // 유저 대량 적재 tasklet (적재 건수 : userCount 파라미터)
+                .build();
+    }
+
+    // ===== manager =====
+
+    @Bean(JOB_NAME + "_userLevelUpStep.manager")
+    public Step userLevelUpManagerStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_userLevelUpStep.manager")
+                .<UserTotalAmount, UserTotalAmount>chunk(CHUNK_SIZE)
+                .reader(itemReader())
+                .writer(chunkMessageChannelItemWriter(null)) // 직접 write 하지 않고 chunk를 메시지로 전송
+                .build();
+    }
+
+    private ItemReader<? extends UserTotalAmount> itemReader() {
+        return new UserTotalAmountItemReader(JOB_NAME + "_userTotalAmountItemReader", dataSource, CHUNK_SIZE);
+    }
+
+    @Bean(JOB_NAME + "_chunkMessageChannelItemWriter")
+    @StepScope
+    ChunkMessageChannelItemWriter<UserTotalAmount> chunkMessageChannelItemWriter(
+            @Value("#{jobParameters[maxInFlightChunks]}") Long maxInFlightChunks) {
+
+        MessagingTemplate messagingTemplate = new MessagingTemplate(requests());
+        messagingTemplate.setReceiveTimeout(RECEIVE_TIMEOUT); // 응답 대기 시간 (무한 대기 방지)
+
+        ChunkMessageChannelItemWriter<UserTotalAmount> itemWriter = new ChunkMessageChannelItemWriter<>();
+        itemWriter.setMessagingOperations(messagingTemplate);
+        itemWriter.setReplyChannel(replies());
+        itemWriter.setThrottleLimit(maxInFlightChunks != null ? maxInFlightChunks : DEFAULT_MAX_IN_FLIGHT_CHUNKS); // 응답 대기 중인 최대 chunk 수
+
+        return itemWriter;
+    }
+
+    // in-memory 브로커 대용 : chunk 요청을 taskExecutor 스레드로 넘겨서 worker가 병렬로 처리
+    @Bean(REQUESTS_CHANNEL)
+    MessageChannel requests() {
+        return new ExecutorChannel(this.taskExecutor);
+    }
+
+    @Bean(REPLIES_CHANNEL)
+    PollableChannel replies() {
+        return new QueueChannel();
+    }
+
+    // ===== worker =====
+
+    // worker : chunk를 받아서 processor, writer를 하나의 트랜잭션으로 실행하고 처리 결과를 replies 채널로 응답
+    @Bean(JOB_NAME + "_chunkRequestActivator")
+    @ServiceActivator(inputChannel = REQUESTS_CHANNEL)
+    MessageHandler chunkRequestActivator() {
+        ServiceActivatingHandler handler = new ServiceActivatingHandler(chunkProcessorChunkHandler(), "handleChunk");
+        handler.setOutputChannel(replies());
+        handler.setAdviceChain(Collections.singletonList(new TransactionInterceptorBuilder(true)
+                .transactionManager(new DataSourceTransactionManager(dataSource)) // writer가 JDBC만 사용하므로 DataSource 트랜잭션
+                .build()));
+
+        return handler;
+    }
+
+    @Bean(JOB_NAME + "_chunkProcessorChunkHandler")
+    ChunkProcessorChunkHandler<UserTotalAmount> chunkProcessorChunkHandler() {
+        ChunkProcessorChunkHandler<UserTotalAmount> handler = new ChunkProcessorChunkHandler<>();
+        handler.setChunkProcessor(new SimpleChunkProcessor<>(itemProcessor(), itemWriter()));
+
+        return handler;
+    }
+
+    private ItemProcessor<UserTotalAmount, UserTotalAmount> itemProcessor() {
+        return userTotalAmount -> {
+
+            // 상향 대상 여부 체크
+            if (userTotalAmount.availableLevelUp()) {
+                return userTotalAmount;
+            }
+
+            return null;
+
+        };
+    }
+
+    private ItemWriter<UserTotalAmount> itemWriter() {
+        return UserLevelUpItemWriter.forUserTotalAmount(dataSource);
+    }
+}
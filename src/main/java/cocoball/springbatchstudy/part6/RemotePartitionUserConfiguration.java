@@ -0,0 +1,217 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.partition.PartitionHandler;
+import org.springframework.batch.core.step.StepLocator;
+import org.springframework.batch.integration.partition.BeanFactoryStepLocator;
+import org.springframework.batch.integration.partition.MessageChannelPartitionHandler;
+import org.springframework.batch.integration.partition.StepExecutionRequestHandler;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.handler.ServiceActivatingHandler;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+/**
+ * Remote Partitioning
+ * manager는 파티션 요청(minId, maxId가 담긴 StepExecutionRequest)을 requests 채널로 보내고,
+ * worker는 요청을 받아서 userLevelUpStep을 실행한 뒤 결과(StepExecution)를 replies 채널로 응답
+ * manager는 job repository를 polling 해서 worker의 완료 여부를 확인하므로 reply 집계 없이도 동작
+ *
+ * 로컬에서는 requests 채널을 ExecutorChannel(in-memory 브로커 대용)로 두어 같은 JVM의 taskExecutor 스레드에서 worker가 실행됨
+ * 여러 노드로 확장할 때는 requests / replies 채널을 JMS, AMQP 등의 outbound(manager) / inbound(worker) adapter로 브로커에 연결하고,
+ * 모든 노드가 같은 job repository(DB)를 바라보게 하면 됨
+ *
+ * remote-partition.role 설정으로 노드의 역할을 정함 (설정하지 않으면 한 JVM에서 둘 다 실행)
+ * - manager : job, manager step, partition handler만 등록 (worker step, StepExecutionRequestHandler 없음)
+ * - worker : worker step, StepExecutionRequestHandler만 등록 (job 없음, requests 채널의 요청만 처리)
+ */
+@Configuration
+@Slf4j
+public class RemotePartitionUserConfiguration {
+
+    private final String JOB_NAME = "remotePartitionUserJob";
+    private final String REQUESTS_CHANNEL = JOB_NAME + "_requests";
+    private final String REPLIES_CHANNEL = JOB_NAME + "_replies";
+    private final String ROLE_PROPERTY = "remote-partition.role";
+    private final int CHUNK_SIZE = 1000;
+    private final int GRID_SIZE = 8;
+    private final long POLL_INTERVAL = 1000L;
+    private final JobBuilderFactory jobBuilderFactory;
+    private final StepBuilderFactory stepBuilderFactory;
+    private final UserRepostiory userRepostiory;
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSource dataSource;
+    private final TaskExecutor taskExecutor;
+    private final JobExplorer jobExplorer;
+
+
+    public RemotePartitionUserConfiguration(JobBuilderFactory jobBuilderFactory,
+                                            StepBuilderFactory stepBuilderFactory,
+                                            UserRepostiory userRepostiory,
+                                            EntityManagerFactory entityManagerFactory,
+                                            DataSource dataSource,
+                                            TaskExecutor taskExecutor,
+                                            JobExplorer jobExplorer) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.userRepostiory = userRepostiory;
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+        this.taskExecutor = taskExecutor;
+        this.jobExplorer = jobExplorer;
+    }
+
+    @Bean(JOB_NAME)
+    @ConditionalOnProperty(name = ROLE_PROPERTY, havingValue = "manager", matchIfMissing = true)
+    public Job userJob() throws Exception {
+        return this.jobBuilderFactory.get(JOB_NAME)
+                .incrementer(new RunIdIncrementer())
+                .start(this.saveUserStep()) // 유저 저장 step
+                .next(this.userLevelUpManagerStep()) // 유저 레벨업 step의 마스터 step (worker에게 파티션 요청)
+                .listener(new LevelUpJobExecutionListener(userRepostiory)) // JobExecutionListener
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_saveUserStep")
+    @ConditionalOnProperty(name = ROLE_PROPERTY, havingValue = "manager", matchIfMissing = true)
+    public Step saveUserStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_saveUserStep")
+                .tasklet(new UserBulkLoadTasklet(dataSource)) // 유저 대량 적재 tasklet (적재 건수 : userCount 파라미터)
+                .build();
+    }
+
+    // ===== manager =====
+
+    @Bean(JOB_NAME + "_userLevelUpStep.manager")
+    @ConditionalOnProperty(name = ROLE_PROPERTY, havingValue = "manager", matchIfMissing = true)
+    public Step userLevelUpManagerStep() throws Exception {
+        return this.stepBuilderFactory.get(JOB_NAME + "_userLevelUpStep.manager")
+                .partitioner(JOB_NAME + "_userLevelUpStep", new UserLevelUpQuantilePartitioner(dataSource))
+                .partitionHandler(messageChannelPartitionHandler()) // 파티션을 직접 실행하지 않고 메시지로 전송
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_partitionHandler")
+    @ConditionalOnProperty(name = ROLE_PROPERTY, havingValue = "manager", matchIfMissing = true)
+    PartitionHandler messageChannelPartitionHandler() {
+        MessageChannelPartitionHandler handler = new MessageChannelPartitionHandler();
+
+        handler.setStepName(JOB_NAME + "_userLevelUpStep"); // worker가 실행할 step 이름
+        handler.setGridSize(GRID_SIZE);
+        handler.setMessagingOperations(new MessagingTemplate(requests()));
+        handler.setJobExplorer(jobExplorer); // reply 대신 job repository를 polling 해서 worker 결과 확인
+        handler.setPollInterval(POLL_INTERVAL);
+
+        return handler;
+    }
+
+    // in-memory 브로커 대용 : 요청 메시지를 taskExecutor 스레드로 넘겨서 worker가 병렬로 처리 (manager, worker 공통)
+    @Bean(REQUESTS_CHANNEL)
+    MessageChannel requests() {
+        return new ExecutorChannel(this.taskExecutor);
+    }
+
+    // ===== worker =====
+
+    @Bean(JOB_NAME + "_userLevelUpStep")
+    @ConditionalOnProperty(name = ROLE_PROPERTY, havingValue = "worker", matchIfMissing = true)
+    public Step userLevelUpStep() {
+        return this.stepBuilderFactory.get(JOB_NAME + "_userLevelUpStep")
+                .<User, User>chunk(CHUNK_SIZE)
+                .reader(itemReader(null, null))
+                .processor(itemProcessor())
+                .writer(itemWriter())
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_userItemReader")
+    @ConditionalOnProperty(name = ROLE_PROPERTY, havingValue = "worker", matchIfMissing = true)
+    @StepScope
+    UserKeysetItemReader itemReader(@Value("#{stepExecutionContext[minId]}") Long minId,
+                                    @Value("#{stepExecutionContext[maxId]}") Long maxId) {
+        return new UserKeysetItemReader(JOB_NAME + "_userItemReader", entityManagerFactory, CHUNK_SIZE, minId, maxId);
+    }
+
+    private ItemProcessor<? super User, ? extends User> itemProcessor() {
+        return user -> {
+
+            // 상향 대상 여부 체크
+            if (user.availableLevelUp()) {
+                return user;
+            }
+
+            return null;
+
+        };
+    }
+
+    private ItemWriter<? super User> itemWriter() {
+        return UserLevelUpItemWriter.forUser(dataSource);
+    }
+
+    // worker : requests 채널에서 StepExecutionRequest를 받아서 해당 step을 실행하고 결과를 replies 채널로 응답
+    @Bean(JOB_NAME + "_stepExecutionRequestActivator")
+    @ConditionalOnProperty(name = ROLE_PROPERTY, havingValue = "worker", matchIfMissing = true)
+    @ServiceActivator(inputChannel = REQUESTS_CHANNEL)
+    MessageHandler stepExecutionRequestActivator() {
+        ServiceActivatingHandler handler = new ServiceActivatingHandler(stepExecutionRequestHandler(), "handle");
+        handler.setOutputChannel(replies());
+
+        return handler;
+    }
+
+    @Bean(JOB_NAME + "_stepExecutionRequestHandler")
+    @ConditionalOnProperty(name = ROLE_PROPERTY, havingValue = "worker", matchIfMissing = true)
+    StepExecutionRequestHandler stepExecutionRequestHandler() {
+        StepExecutionRequestHandler handler = new StepExecutionRequestHandler();
+
+        handler.setJobExplorer(jobExplorer);
+        handler.setStepLocator(stepLocator()); // step 이름으로 worker step 빈을 찾음
+
+        return handler;
+    }
+
+    @Bean(JOB_NAME + "_stepLocator")
+    @ConditionalOnProperty(name = ROLE_PROPERTY, havingValue = "worker", matchIfMissing = true)
+    StepLocator stepLocator() {
+        return new BeanFactoryStepLocator();
+    }
+
+    @Bean(REPLIES_CHANNEL)
+    MessageChannel replies() {
+        return new DirectChannel();
+    }
+
+    // manager가 job repository를 polling 하므로 응답은 로그로만 남김 (브로커 연결 시 manager 쪽으로 전달)
+    // worker만 실행하는 노드에서도 replies 채널에 구독자가 있어야 응답 전송이 실패하지 않으므로 역할과 무관하게 등록
+    @Bean(JOB_NAME + "_replyLogger")
+    @ServiceActivator(inputChannel = REPLIES_CHANNEL)
+    MessageHandler replyLogger() {
+        return message -> {
+            StepExecution stepExecution = (StepExecution) message.getPayload();
+            log.info("worker reply : {} {}, write count {}",
+                    stepExecution.getStepName(), stepExecution.getStatus(), stepExecution.getWriteCount());
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 집계 테이블 별로 마지막으로 반영한 orders id (rollup_watermark)
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+public class RollupWatermark {
+
+    @Id
+    private String name;
+
+    private long lastOrderId;
+}
@@ -0,0 +1,171 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 엔티티 전체를 메모리에 올리고 saveAll 하는 대신 JDBC로 user, orders를 대량 적재하는 tasklet
+ * - user, orders를 필요한 만큼만 생성해서 multi-row insert로 batchSize 단위 저장 (메모리 사용량 일정)
+ * - user id는 직접 할당하지 않고 IDENTITY로 생성한 뒤, multi-row insert 한 번의 generated keys를 받아서 orders의 user_id로 사용
+ *   (id를 직접 넣으면 다른 insert와 충돌할 수 있고 H2/MySQL의 IDENTITY 값도 넘어가지 않아서 이후 JPA save가 중복 id로 실패)
+ * - batch 한 번이 하나의 트랜잭션(CONTINUABLE 반복)이고, 적재한 건수를 ExecutionContext에 저장하므로 실패 시 이어서 재시작 가능
+ */
+@Slf4j
+public class UserBulkLoadTasklet implements Tasklet {
+
+    public static final String USER_COUNT_PARAMETER = "userCount";
+
+    private static final String LOADED_COUNT_KEY = "bulkLoad.loadedCount";
+
+    private static final long DEFAULT_USER_COUNT = 40_000;
+    private static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    // 기존 테스트 데이터와 동일한 주문 금액 분포 (금액마다 주문일이 11월 1일 ~ 4일)
+    private static final int[] AMOUNTS = {1_000, 200_000, 300_000, 500_000};
+
+    private static final String USER_INSERT = "insert into user(username, level) values ";
+    private static final String USER_VALUES = "(?, ?)";
+    private static final String[] USER_KEY_COLUMNS = {"id"};
+    private static final String ORDERS_INSERT = "insert into orders(item_name, amount, created_date, user_id) values ";
+    private static final String ORDERS_VALUES = "(?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    // batchSize 만큼의 multi-row insert 문은 매번 만들지 않고 재사용
+    private final String userBatchSql;
+    private final String ordersBatchSql;
+
+    public UserBulkLoadTasklet(DataSource dataSource) {
+        this(dataSource, DEFAULT_BATCH_SIZE);
+    }
+
+    public UserBulkLoadTasklet(DataSource dataSource, int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.batchSize = batchSize;
+        this.userBatchSql = multiRowInsert(USER_INSERT, USER_VALUES, batchSize);
+        this.ordersBatchSql = multiRowInsert(ORDERS_INSERT, ORDERS_VALUES, batchSize);
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+
+        // 적재할 user 수는 job parameter로 설정 (기본값 40,000)
+        Long userCount = contribution.getStepExecution().getJobParameters().getLong(USER_COUNT_PARAMETER);
+        long totalCount = userCount != null ? userCount : DEFAULT_USER_COUNT;
+
+        ExecutionContext executionContext = contribution.getStepExecution().getExecutionContext();
+
+        long loadedCount = executionContext.getLong(LOADED_COUNT_KEY, 0L);
+
+        if (loadedCount >= totalCount) {
+            return RepeatStatus.FINISHED;
+        }
+
+        int size = (int) Math.min(batchSize, totalCount - loadedCount);
+
+        List<Map<String, Object>> userIds = insertUsers(loadedCount, size);
+        insertOrders(userIds, loadedCount, size);
+
+        loadedCount += size;
+        executionContext.putLong(LOADED_COUNT_KEY, loadedCount);
+        contribution.incrementWriteCount(size);
+
+        if (loadedCount % (batchSize * 100L) == 0) {
+            log.info("user 적재 {} / {}", loadedCount, totalCount);
+        }
+
+        return loadedCount >= totalCount ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+
+    // 생성된 user id 목록 (insert 한 순서)
+    private List<Map<String, Object>> insertUsers(long from, int size) {
+        String sql = sql(userBatchSql, USER_INSERT, USER_VALUES, size);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, USER_KEY_COLUMNS);
+            int index = 1;
+
+            for (long n = from; n < from + size; n++) {
+                ps.setString(index++, "test username" + n);
+                ps.setString(index++, Level.NORMAL.name());
+            }
+
+            return ps;
+        }, keyHolder);
+
+        List<Map<String, Object>> userIds = keyHolder.getKeyList();
+
+        if (userIds.size() != size) {
+            throw new IllegalStateException("생성된 user id 수가 다름 : " + userIds.size() + " / " + size);
+        }
+
+        return userIds;
+    }
+
+    private void insertOrders(List<Map<String, Object>> userIds, long from, int size) {
+        jdbcTemplate.update(sql(ordersBatchSql, ORDERS_INSERT, ORDERS_VALUES, size), ps -> {
+            int index = 1;
+
+            for (int i = 0; i < size; i++) {
+                index = setOrder(ps, index, userId(userIds.get(i)), from + i);
+            }
+        });
+    }
+
+    // generated key의 컬럼 이름은 DB마다 다르므로 (H2 : ID, MySQL : GENERATED_KEY) 첫 번째 값을 사용
+    private long userId(Map<String, Object> keys) {
+        return ((Number) keys.values().iterator().next()).longValue();
+    }
+
+    private int setOrder(PreparedStatement ps, int index, long userId, long n) throws SQLException {
+        int group = group(n);
+
+        ps.setString(index++, "item" + n);
+        ps.setInt(index++, AMOUNTS[group]);
+        ps.setDate(index++, Date.valueOf(LocalDate.of(2020, 11, group + 1)));
+        ps.setLong(index++, userId);
+
+        return index;
+    }
+
+    // 전체 목록을 shuffle 하는 대신, 순번을 섞어서 금액 그룹이 id 순서와 무관하게 고르게 분포되도록 함
+    private int group(long n) {
+        long mixed = (n + 1) * 0x9E3779B97F4A7C15L;
+        return (int) ((mixed >>> 32) % AMOUNTS.length);
+    }
+
+    private String sql(String batchSql, String insert, String values, int size) {
+        return size == batchSize ? batchSql : multiRowInsert(insert, values, size);
+    }
+
+    private static String multiRowInsert(String insert, String values, int rows) {
+        StringBuilder sql = new StringBuilder(insert.length() + (values.length() + 1) * rows);
+        sql.append(insert);
+
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(values);
+        }
+
+        return sql.toString();
+    }
+}
@@ -0,0 +1,148 @@
+package cocoball.springbatchstudy.part6;
+
+import cocoball.springbatchstudy.ColumnarItemReader;
+import cocoball.springbatchstudy.ColumnarItemWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 유저(id, username, level, updated_date)를 분석용 columnar binary 파일로 export (--job.name=userExportJob path=output/)
+ * - level은 row group 마다 dictionary encoding, id / updated_date는 delta encoding
+ * - export 후 ColumnarItemReader로 파일을 다시 읽어서 level별 인원을 집계 (결과는 summary step의 ExecutionContext에 level.NORMAL 등으로 기록)
+ */
+@Configuration
+@Slf4j
+public class UserExportConfiguration {
+
+    private final String JOB_NAME = "userExportJob";
+    private final int CHUNK_SIZE = 1000;
+    private final JobBuilderFactory jobBuilderFactory;
+    private final StepBuilderFactory stepBuilderFactory;
+    private final EntityManagerFactory entityManagerFactory;
+
+
+    public UserExportConfiguration(JobBuilderFactory jobBuilderFactory,
+                                   StepBuilderFactory stepBuilderFactory,
+                                   EntityManagerFactory entityManagerFactory) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Bean(JOB_NAME)
+    public Job userExportJob() {
+        return this.jobBuilderFactory.get(JOB_NAME)
+                .incrementer(new RunIdIncrementer())
+                .validator(new DefaultJobParametersValidator(new String[0], new String[] {"path", "run.id"}))
+                .start(this.userExportStep(null)) // 유저 export step
+                .next(this.userExportSummaryStep(null)) // export 한 파일을 다시 읽어 level별 인원 집계 step
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_userExportStep")
+    @JobScope
+    public Step userExportStep(@Value("#{jobParameters[path]}") String path) {
+        return this.stepBuilderFactory.get(JOB_NAME + "_userExportStep")
+                .<User, User>chunk(CHUNK_SIZE)
+                .reader(new UserKeysetItemReader(JOB_NAME + "_userItemReader", entityManagerFactory, CHUNK_SIZE)) // id 순으로 조회
+                .writer(userItemWriter(path))
+                .build();
+    }
+
+    @Bean(JOB_NAME + "_userExportSummaryStep")
+    @JobScope
+    public Step userExportSummaryStep(@Value("#{jobParameters[path]}") String path) {
+        LevelCountItemWriter levelCountItemWriter = new LevelCountItemWriter();
+
+        return this.stepBuilderFactory.get(JOB_NAME + "_userExportSummaryStep")
+                .<String, String>chunk(CHUNK_SIZE)
+                .reader(userLevelItemReader(path))
+                .writer(levelCountItemWriter) // ItemStream으로 자동 등록 (commit 마다 집계 중인 인원을 저장)
+                .listener(new StepExecutionListenerSupport() {
+                    @Override
+                    public ExitStatus afterStep(StepExecution stepExecution) {
+                        log.info("export 된 유저 {}명, level별 인원 {}", stepExecution.getReadCount(), levelCountItemWriter.levelCounts);
+                        return null;
+                    }
+                })
+                .build();
+    }
+
+    private ColumnarItemWriter<User> userItemWriter(String path) {
+        return ColumnarItemWriter.<User>builder() // chunk 하나가 row group 하나
+                .name(JOB_NAME + "_userItemWriter")
+                .resource(usersFile(path))
+                .nullableLongColumn("id", User::getId)
+                .stringColumn("username", User::getUsername)
+                .enumColumn("level", User::getLevel)
+                .dateColumn("updated_date", User::getUpdatedDate) // 레벨업 하지 않은 유저는 null
+                .build();
+    }
+
+    // level이 없는 유저는 "null"로 집계 (rowMapper가 null을 반환하면 파일 끝으로 처리되므로)
+    private ColumnarItemReader<String> userLevelItemReader(String path) {
+        return ColumnarItemReader.<String>builder()
+                .name(JOB_NAME + "_userLevelItemReader")
+                .resource(usersFile(path))
+                .rowMapper(row -> {
+                    String level = row.getString(row.getColumnIndex("level")); // dictionary의 enum 이름
+                    return level != null ? level : "null";
+                })
+                .build();
+    }
+
+    private FileSystemResource usersFile(String path) {
+        return new FileSystemResource((path != null ? path : "output/") + "users.colb");
+    }
+
+    // level별 인원을 ExecutionContext(level.NORMAL 등)에 commit 마다 저장
+    // reader가 재시작 시 마지막 commit 위치부터 이어서 읽으므로 인원도 저장된 값부터 이어서 집계
+    static class LevelCountItemWriter extends ItemStreamSupport implements ItemStreamWriter<String> {
+
+        private static final String KEY_PREFIX = "level.";
+
+        private final Map<String, Long> levelCounts = new TreeMap<>();
+
+        @Override
+        public void open(ExecutionContext executionContext) {
+            levelCounts.clear();
+
+            for (Map.Entry<String, Object> entry : executionContext.entrySet()) {
+                if (entry.getKey().startsWith(KEY_PREFIX)) {
+                    levelCounts.put(entry.getKey().substring(KEY_PREFIX.length()), (Long) entry.getValue());
+                }
+            }
+        }
+
+        @Override
+        public void write(List<? extends String> levels) {
+            levels.forEach(level -> levelCounts.merge(level, 1L, Long::sum));
+        }
+
+        @Override
+        public void update(ExecutionContext executionContext) {
+            levelCounts.forEach((level, count) -> executionContext.putLong(KEY_PREFIX + level, count));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package cocoball.springbatchstudy.part6;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * User 엔티티(orders 포함)를 keyset 페이징으로 조회하는 Reader
+ */
+public class UserKeysetItemReader extends AbstractKeysetItemReader<User> {
+
+    private static final String QUERY = "select u from User u where u.id > :lastId and u.id <= :maxId order by u.id";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public UserKeysetItemReader(String name, EntityManagerFactory entityManagerFactory, int pageSize) {
+        this(name, entityManagerFactory, pageSize, 1L, Long.MAX_VALUE);
+    }
+
+    // 파티션 step 처럼 id 범위가 정해져 있는 경우 (minId, maxId 모두 포함)
+    public UserKeysetItemReader(String name, EntityManagerFactory entityManagerFactory, int pageSize, long minId, long maxId) {
+        super(name, pageSize, minId, maxId);
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    protected List<User> fetchPage(long lastId, long maxId, int pageSize) {
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+        try {
+            return entityManager.createQuery(QUERY, User.class)
+                    .setParameter("lastId", lastId)
+                    .setParameter("maxId", maxId)
+                    .setMaxResults(pageSize) // offset 없이 limit만 사용
+                    .getResultList();
+        } finally {
+            entityManager.close(); // 조회한 엔티티는 detach 상태로 writer에서 save(merge) 됨
+        }
+    }
+
+    @Override
+    protected long getId(User item) {
+        return item.getId();
+    }
+}
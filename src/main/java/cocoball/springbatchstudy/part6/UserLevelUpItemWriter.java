@@ -0,0 +1,93 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 레벨업 대상 user를 JPA save(merge) 대신 JDBC batch update로 반영하는 Writer
+ * chunk의 아이템을 변경될 Level 별로 묶어서 Level 당 batch 1번만 실행
+ * (MySQL의 경우 rewriteBatchedStatements=true 설정으로 batch가 하나의 요청으로 전송됨)
+ */
+@Slf4j
+public class UserLevelUpItemWriter<T> implements ItemWriter<T> {
+
+    private static final String SQL = "update user set level = ?, updated_date = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ToLongFunction<T> idExtractor;
+    private final Function<T, Level> levelUpFunction;
+
+    public UserLevelUpItemWriter(DataSource dataSource, ToLongFunction<T> idExtractor, Function<T, Level> levelUpFunction) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.idExtractor = idExtractor;
+        this.levelUpFunction = levelUpFunction;
+    }
+
+    // User 엔티티 : levelUp()으로 엔티티 상태도 함께 변경
+    public static UserLevelUpItemWriter<User> forUser(DataSource dataSource) {
+        return new UserLevelUpItemWriter<>(dataSource, User::getId, User::levelUp);
+    }
+
+    // projection : 주문 금액 합계로 계산한 다음 Level
+    public static UserLevelUpItemWriter<UserTotalAmount> forUserTotalAmount(DataSource dataSource) {
+        return new UserLevelUpItemWriter<>(dataSource, UserTotalAmount::getUserId, UserTotalAmount::getNextLevel);
+    }
+
+    @Override
+    public void write(List<? extends T> items) {
+
+        Map<Level, List<Long>> idsByLevel = new EnumMap<>(Level.class);
+
+        for (T item : items) {
+            idsByLevel.computeIfAbsent(levelUpFunction.apply(item), level -> new ArrayList<>())
+                    .add(idExtractor.applyAsLong(item));
+        }
+
+        Date updatedDate = Date.valueOf(LocalDate.now());
+
+        idsByLevel.forEach((level, ids) -> {
+            int[][] updateCounts = jdbcTemplate.batchUpdate(SQL, ids, ids.size(), (ps, id) -> {
+                ps.setString(1, level.name());
+                ps.setDate(2, updatedDate);
+                ps.setLong(3, id);
+            });
+
+            assertUpdates(level, ids, updateCounts[0]);
+        });
+    }
+
+    // 업데이트 되지 않은 row가 있으면 실패 처리 (JdbcBatchItemWriter의 assertUpdates와 동일)
+    private void assertUpdates(Level level, List<Long> ids, int[] updateCounts) {
+
+        int mismatch = 0;
+
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                continue; // rewriteBatchedStatements 사용 시 드라이버가 row 수를 알려주지 않는 경우
+            }
+
+            if (updateCounts[i] != 1) {
+                log.warn("level : {}, id : {}, updated rows : {}", level, ids.get(i), updateCounts[i]);
+                mismatch++;
+            }
+        }
+
+        if (mismatch > 0) {
+            throw new EmptyResultDataAccessException(
+                    mismatch + " of " + ids.size() + " users did not update exactly one row (level : " + level + ")", 1);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * id 범위를 균등하게 나누는 UserLevelUpPartitioner와 달리, 실제 데이터 분포(NTILE 분위수)로 나누는 Partitioner
+ * 삭제된 user, id 공백이 있어도 각 파티션의 row 수가 비슷하므로 가장 느린 slave step에 전체 시간이 끌려가지 않음
+ */
+@Slf4j
+public class UserLevelUpQuantilePartitioner implements Partitioner {
+
+    public static final String EXPECTED_SIZE_KEY = "expectedSize";
+
+    // id 인덱스를 한 번 스캔해서 gridSize 개의 분위 구간별 (최소 id, 최대 id, row 수)를 구함
+    private static final String QUERY = "select min(id), max(id), count(*) " +
+            "from (select id, ntile(?) over (order by id) as bucket from user) t " +
+            "group by bucket " +
+            "order by bucket";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserLevelUpQuantilePartitioner(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+
+        List<long[]> buckets = jdbcTemplate.query(QUERY,
+                (resultSet, i) -> new long[]{resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3)},
+                gridSize);
+
+        Map<String, ExecutionContext> result = new HashMap<>();
+
+        for (int number = 0; number < buckets.size(); number++) {
+            long[] bucket = buckets.get(number);
+
+            // 구간 사이의 빈 id도 빠짐없이 포함되도록 maxId는 다음 구간의 minId - 1 까지
+            long minId = bucket[0];
+            long maxId = number + 1 < buckets.size() ? buckets.get(number + 1)[0] - 1 : bucket[1];
+
+            ExecutionContext value = new ExecutionContext();
+            value.putLong("minId", minId);
+            value.putLong("maxId", maxId);
+            value.putLong(EXPECTED_SIZE_KEY, bucket[2]); // 파티션별 예상 처리 건수 (skew 확인용)
+
+            result.put("partition" + number, value);
+
+            log.info("partition{} : id {} ~ {}, expected size {}", number, minId, maxId, bucket[2]);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,36 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * 레벨업 판단에 필요한 값만 담는 projection
+ * User 엔티티와 orders 전체를 로딩하지 않고 group by 결과(userId, level, 주문 금액 합계)만 사용
+ * remote chunking 시 메시지로 worker에게 전달되므로 Serializable
+ */
+@Getter
+public class UserTotalAmount implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long userId;
+    private final Level level;
+    private final long totalAmount;
+
+    @Builder
+    private UserTotalAmount(long userId, Level level, long totalAmount) {
+        this.userId = userId;
+        this.level = level;
+        this.totalAmount = totalAmount;
+    }
+
+    public boolean availableLevelUp() {
+        return Level.availableLevelUp(this.level, this.totalAmount);
+    }
+
+    public Level getNextLevel() {
+        return Level.getNextLevel(this.totalAmount);
+    }
+}
@@ -0,0 +1,49 @@
+package cocoball.springbatchstudy.part6;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * user, orders를 한 번의 group by join으로 집계해서 (userId, level, totalAmount)만 읽는 Reader
+ * EAGER 로딩으로 인한 N+1 조회 없이 페이지 당 쿼리 1번
+ */
+public class UserTotalAmountItemReader extends AbstractKeysetItemReader<UserTotalAmount> {
+
+    // keyset 조건을 group by 안쪽에 두어서 해당 페이지의 user만 집계
+    private static final String QUERY = "select u.id, u.level, coalesce(sum(o.amount), 0) " +
+            "from user u left join orders o on o.user_id = u.id " +
+            "where u.id > ? and u.id <= ? " +
+            "group by u.id, u.level " +
+            "order by u.id " +
+            "limit ?";
+
+    private static final RowMapper<UserTotalAmount> ROW_MAPPER = (resultSet, i) -> UserTotalAmount.builder()
+            .userId(resultSet.getLong(1))
+            .level(Level.valueOf(resultSet.getString(2)))
+            .totalAmount(resultSet.getLong(3))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserTotalAmountItemReader(String name, DataSource dataSource, int pageSize) {
+        this(name, dataSource, pageSize, 1L, Long.MAX_VALUE);
+    }
+
+    public UserTotalAmountItemReader(String name, DataSource dataSource, int pageSize, long minId, long maxId) {
+        super(name, pageSize, minId, maxId);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    protected List<UserTotalAmount> fetchPage(long lastId, long maxId, int pageSize) {
+        return jdbcTemplate.query(QUERY, ROW_MAPPER, lastId, maxId, pageSize);
+    }
+
+    @Override
+    protected long getId(UserTotalAmount item) {
+        return item.getUserId();
+    }
+}
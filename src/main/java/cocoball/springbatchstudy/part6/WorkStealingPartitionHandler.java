@@ -0,0 +1,151 @@
+package cocoball.springbatchstudy.part6;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobInterruptedException;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.partition.support.AbstractPartitionHandler;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * TaskExecutorPartitionHandler는 파티션 1개 = 스레드 1개로 고정 할당하므로, 느린 파티션이 있으면 나머지 스레드가 놀게 됨
+ * 이 핸들러는 id 공간을 잘게 나눈 slice(gridSize 개)를 공유 큐에 넣고, workerCount 개의 worker가 큐가 빌 때까지 slice를 가져가서 처리
+ * slice 마다 StepExecution이 따로 기록되므로 실패한 slice만 재시작 가능
+ * (처리되지 못한 slice, step 밖으로 예외를 던진 slice는 핸들러가 FAILED로 job repository에 기록)
+ */
+@Slf4j
+public class WorkStealingPartitionHandler extends AbstractPartitionHandler implements InitializingBean {
+
+    private Step step;
+    private TaskExecutor taskExecutor;
+    private JobRepository jobRepository;
+    private int workerCount = 1;
+
+    public void setStep(Step step) {
+        this.step = step;
+    }
+
+    public void setTaskExecutor(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    // 핸들러가 실패 처리한 slice의 상태 저장
+    public void setJobRepository(JobRepository jobRepository) {
+        this.jobRepository = jobRepository;
+    }
+
+    // 동시에 slice를 처리할 worker 수 (보통 TaskExecutor의 스레드 수)
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(step, "A Step must be provided.");
+        Assert.notNull(taskExecutor, "A TaskExecutor must be provided.");
+        Assert.notNull(jobRepository, "A JobRepository must be provided.");
+        Assert.isTrue(workerCount > 0, "workerCount must be greater than 0.");
+    }
+
+    @Override
+    protected Set<StepExecution> doHandle(StepExecution managerStepExecution,
+                                          Set<StepExecution> partitionStepExecutions) throws Exception {
+
+        Queue<StepExecution> slices = new ConcurrentLinkedQueue<>(partitionStepExecutions);
+        List<FutureTask<Integer>> workers = new ArrayList<>();
+
+        for (int i = 0; i < Math.min(workerCount, partitionStepExecutions.size()); i++) {
+            FutureTask<Integer> worker = new FutureTask<>(() -> work(slices));
+
+            try {
+                taskExecutor.execute(worker);
+                workers.add(worker);
+            } catch (TaskRejectedException e) {
+                log.warn("TaskExecutor rejected worker {}", i);
+            }
+        }
+
+        // 한 worker가 예외로 끝나도 나머지 worker가 끝날 때까지 기다린 뒤 예외를 다시 던짐
+        // (먼저 던지면 아직 실행 중인 slice의 StepExecution이 manager step 종료 후에도 갱신됨)
+        Throwable failure = null;
+        int worker = 0;
+
+        for (FutureTask<Integer> task : workers) {
+            try {
+                log.debug("worker{} processed {} slices", worker, task.get());
+            } catch (ExecutionException e) {
+                log.error("worker{} failed", worker, e.getCause());
+
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+
+            worker++;
+        }
+
+        // worker가 모두 거절되었거나 중단되어 처리되지 못한 slice는 실패 처리 (재시작 시 다시 실행됨)
+        StepExecution remaining;
+
+        while ((remaining = slices.poll()) != null) {
+            fail(remaining, ExitStatus.FAILED.addExitDescription("No worker was available for this slice."));
+        }
+
+        if (failure instanceof Exception) {
+            throw (Exception) failure;
+        }
+
+        if (failure != null) {
+            throw (Error) failure;
+        }
+
+        return partitionStepExecutions;
+    }
+
+    // 큐가 빌 때까지 slice를 하나씩 가져가서 실행
+    private int work(Queue<StepExecution> slices) throws JobInterruptedException {
+
+        int processed = 0;
+        StepExecution slice;
+
+        while ((slice = slices.poll()) != null) {
+            try {
+                step.execute(slice);
+            } catch (JobInterruptedException | RuntimeException | Error e) {
+                // step이 상태를 기록하지 못하고 예외를 던진 경우 실행 중 상태로 남지 않도록 실패 처리
+                if (slice.getStatus().isRunning()) {
+                    fail(slice, ExitStatus.FAILED.addExitDescription(e));
+                }
+
+                throw e;
+            }
+
+            processed++;
+        }
+
+        return processed;
+    }
+
+    // 실행 중 상태(STARTING)로 저장된 slice를 실패로 갱신 (저장하지 않으면 재시작 시 실행 중인 slice로 남음)
+    private void fail(StepExecution slice, ExitStatus exitStatus) {
+        slice.setStatus(BatchStatus.FAILED);
+        slice.setExitStatus(exitStatus);
+        slice.setEndTime(new Date());
+        jobRepository.update(slice);
+    }
+}
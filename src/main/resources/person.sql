@@ -1,10 +1,10 @@
 -- create table person (
---    id bigint primary key auto_increment,
+--    id bigint primary key, -- person_id_seq (increment by 100)
 --    name varchar(255),
 --    age varchar(255),
 --    address varchar(255)
 -- );
 
-insert into person(name, age, address) values ('이경원' ,'32', '인천');
-insert into person(name, age, address) values ('홍길동' ,'30', '서울');
-insert into person(name, age, address) values ('아무개' ,'25', '강원');
\ No newline at end of file
+insert into person(id, name, age, address) values (next value for person_id_seq, '이경원' ,'32', '인천');
+insert into person(id, name, age, address) values (next value for person_id_seq, '홍길동' ,'30', '서울');
+insert into person(id, name, age, address) values (next value for person_id_seq, '아무개' ,'25', '강원');
\ No newline at end of file
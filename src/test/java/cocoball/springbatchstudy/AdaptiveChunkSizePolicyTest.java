@@ -0,0 +1,290 @@
+package cocoball.springbatchstudy;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AdaptiveChunkSizePolicyTest {
+
+    private StepExecution stepExecution;
+    private ChunkContext chunkContext;
+
+    private EmbeddedDatabase dataSource; // TaskletStep으로 실행하는 테스트의 job repository
+    private JobRepository jobRepository;
+
+    @BeforeEach
+    void setUp() {
+        stepExecution = new StepExecution("adaptiveStep", null);
+        chunkContext = new ChunkContext(new StepContext(stepExecution));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        if (dataSource != null) {
+            dataSource.shutdown();
+        }
+    }
+
+    @Test
+    void grow_when_commit_is_faster_than_target() {
+
+        // Given
+        AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(1000, 10_000);
+        policy.beforeStep(stepExecution);
+
+        // When
+        commitChunk(policy, 1000, 0);
+
+        // Then : 한 번에 최대 2배까지만 증가
+        Assertions.assertThat(policy.getChunkSize()).isEqualTo(2000);
+        Assertions.assertThat(stepExecution.getExecutionContext().getInt(AdaptiveChunkSizePolicy.CURRENT_SIZE_KEY)).isEqualTo(2000);
+        Assertions.assertThat(stepExecution.getExecutionContext().getInt(AdaptiveChunkSizePolicy.MIN_SIZE_KEY)).isEqualTo(1000);
+        Assertions.assertThat(stepExecution.getExecutionContext().getInt(AdaptiveChunkSizePolicy.MAX_SIZE_KEY)).isEqualTo(2000);
+    }
+
+    @Test
+    void shrink_when_commit_is_slower_than_target() {
+
+        // Given
+        AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(100, 100, 10, 1000);
+        policy.beforeStep(stepExecution);
+
+        // When : 10건에 50ms 이상 -> 1건당 5ms 이상이므로 100ms 목표면 20건 이하
+        commitChunk(policy, 10, 50);
+
+        // Then
+        Assertions.assertThat(policy.getChunkSize()).isBetween(10, 20);
+        Assertions.assertThat(stepExecution.getExecutionContext().getLong(AdaptiveChunkSizePolicy.LAST_COMMIT_MILLIS_KEY)).isGreaterThanOrEqualTo(50L);
+    }
+
+    @Test
+    void back_off_on_lock_timeout() {
+
+        // Given
+        AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(1000, 1000);
+        policy.beforeStep(stepExecution);
+
+        chunkContext.setAttribute(ChunkListener.ROLLBACK_EXCEPTION_KEY,
+                new IllegalStateException(new CannotAcquireLockException("Lock wait timeout exceeded")));
+
+        // When
+        policy.afterChunkError(chunkContext);
+
+        // Then
+        Assertions.assertThat(policy.getChunkSize()).isEqualTo(500);
+        Assertions.assertThat(stepExecution.getExecutionContext().getInt(AdaptiveChunkSizePolicy.MIN_SIZE_KEY)).isEqualTo(500);
+    }
+
+    @Test
+    void keep_size_on_other_errors() {
+
+        // Given
+        AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(1000, 1000);
+        policy.beforeStep(stepExecution);
+
+        chunkContext.setAttribute(ChunkListener.ROLLBACK_EXCEPTION_KEY, new IllegalArgumentException("invalid item"));
+
+        // When
+        policy.afterChunkError(chunkContext);
+
+        // Then
+        Assertions.assertThat(policy.getChunkSize()).isEqualTo(1000);
+    }
+
+    @Test
+    void restore_size_on_restart() {
+
+        // Given
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.putInt(AdaptiveChunkSizePolicy.CURRENT_SIZE_KEY, 300);
+        stepExecution.setExecutionContext(executionContext);
+
+        AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(1000, 1000);
+
+        // When
+        policy.beforeStep(stepExecution);
+
+        // Then
+        Assertions.assertThat(policy.getChunkSize()).isEqualTo(300);
+    }
+
+    @Test
+    void adjust_in_tasklet_step() throws Exception {
+
+        // Given : 10건으로 시작, commit 마다 30ms 걸리는 리소스 (목표 10초보다 훨씬 빠름)
+        AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(10, 10_000, 10, 1000);
+        List<Integer> chunkSizes = new ArrayList<>();
+
+        ItemWriter<Integer> itemWriter = items -> {
+            chunkSizes.add(items.size());
+
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    sleep(30);
+                }
+            });
+        };
+
+        Step step = stepBuilderFactory().get("adaptiveStep")
+                .<Integer, Integer>chunk(policy)
+                .reader(itemReader(1000))
+                .writer(itemWriter)
+                .listener(policy)
+                .build();
+
+        // When
+        StepExecution result = execute(step);
+
+        // Then : commit 마다 2배씩 증가, commit 시간(beforeCommit ~ afterCompletion)도 측정됨
+        Assertions.assertThat(result.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        Assertions.assertThat(result.getWriteCount()).isEqualTo(1000);
+        Assertions.assertThat(chunkSizes).startsWith(10, 20, 40, 80, 160, 320);
+        Assertions.assertThat(result.getExecutionContext().getLong(AdaptiveChunkSizePolicy.LAST_TRANSACTION_COMMIT_MILLIS_KEY))
+                .isGreaterThanOrEqualTo(30L);
+    }
+
+    @Test
+    void adjust_in_multi_threaded_step() throws Exception {
+
+        // Given : 4개 스레드가 같은 policy를 공유
+        AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(10, 10_000, 10, 200);
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+
+        ItemWriter<Integer> itemWriter = items -> {
+            chunkSizes.add(items.size());
+            written.addAll(items);
+        };
+
+        Step step = stepBuilderFactory().get("adaptiveStep")
+                .<Integer, Integer>chunk(policy)
+                .reader(itemReader(5000))
+                .writer(itemWriter)
+                .listener(policy)
+                .taskExecutor(new SimpleAsyncTaskExecutor("adaptive-"))
+                .throttleLimit(4)
+                .build();
+
+        // When
+        StepExecution result = execute(step);
+
+        // Then : 모든 아이템이 한 번씩 처리되고, chunk 사이즈는 항상 min ~ max 범위
+        Assertions.assertThat(result.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        Assertions.assertThat(written).hasSize(5000).doesNotHaveDuplicates();
+        Assertions.assertThat(chunkSizes).allSatisfy(size -> Assertions.assertThat(size).isBetween(1, 200));
+        Assertions.assertThat(policy.getChunkSize()).isEqualTo(200);
+        Assertions.assertThat(result.getExecutionContext().getInt(AdaptiveChunkSizePolicy.MIN_SIZE_KEY)).isEqualTo(10);
+        Assertions.assertThat(result.getExecutionContext().getInt(AdaptiveChunkSizePolicy.MAX_SIZE_KEY)).isEqualTo(200);
+    }
+
+    // 1 ~ count를 순서대로 반환 (멀티 스레드 step에서도 중복 없음)
+    private ItemReader<Integer> itemReader(int count) {
+        AtomicInteger sequence = new AtomicInteger();
+
+        return () -> {
+            int next = sequence.incrementAndGet();
+            return next <= count ? next : null;
+        };
+    }
+
+    private StepBuilderFactory stepBuilderFactory() throws Exception {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:org/springframework/batch/core/schema-h2.sql")
+                .build();
+
+        PlatformTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        JobRepositoryFactoryBean factoryBean = new JobRepositoryFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setTransactionManager(transactionManager);
+        factoryBean.afterPropertiesSet();
+        jobRepository = factoryBean.getObject();
+
+        return new StepBuilderFactory(jobRepository, transactionManager);
+    }
+
+    private StepExecution execute(Step step) throws Exception {
+        JobExecution jobExecution = jobRepository.createJobExecution("adaptiveJob", new JobParameters());
+
+        StepExecution execution = jobExecution.createStepExecution(step.getName());
+        jobRepository.add(execution);
+
+        step.execute(execution);
+
+        return execution;
+    }
+
+    // TaskletStep과 같은 순서로 chunk 1개를 실행 : beforeChunk -> read(update) -> write -> commit(beforeCommit -> afterCompletion) -> afterChunk
+    private void commitChunk(AdaptiveChunkSizePolicy policy, int items, long sleepMillis) {
+        TransactionSynchronizationManager.initSynchronization();
+
+        policy.beforeChunk(chunkContext);
+
+        RepeatContext repeatContext = policy.start(new RepeatContextSupport(null));
+        for (int i = 0; i < items; i++) {
+            policy.update(repeatContext);
+        }
+
+        policy.beforeWrite(Collections.emptyList());
+        sleep(sleepMillis);
+        policy.afterWrite(Collections.emptyList());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.beforeCommit(false);
+        }
+
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package cocoball.springbatchstudy;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * benchmark 테스트(-Dbenchmark=true)에서 반복 중 가장 적게 걸린 시간과 item 당 할당량을 기록
+ * (현재 thread 기준, HotSpot의 com.sun.management.ThreadMXBean 사용)
+ */
+public class BenchmarkResult {
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int itemCount;
+
+    private long millis = Long.MAX_VALUE;
+    private long bytesPerItem = Long.MAX_VALUE;
+
+    public BenchmarkResult(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public void measure(Task task) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        task.run();
+
+        this.millis = Math.min(millis, (System.nanoTime() - start) / 1_000_000);
+        this.bytesPerItem = Math.min(bytesPerItem, (threadMXBean.getThreadAllocatedBytes(threadId) - allocated) / itemCount);
+    }
+
+    @Override
+    public String toString() {
+        return millis + " ms, " + bytesPerItem + " byte/item";
+    }
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+}
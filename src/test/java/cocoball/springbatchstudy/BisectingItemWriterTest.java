@@ -0,0 +1,259 @@
+package cocoball.springbatchstudy;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.step.skip.SkipLimitExceededException;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class BisectingItemWriterTest {
+
+    private final List<Integer> items = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+    private final List<Integer> badItems = Arrays.asList(137, 600);
+
+    private final List<List<Integer>> writes = new ArrayList<>();
+    private final List<Integer> skipped = new ArrayList<>();
+
+    private EmbeddedDatabase dataSource; // TaskletStep으로 실행하는 테스트의 job repository
+    private JobRepository jobRepository;
+    private PlatformTransactionManager transactionManager;
+
+    // 실패 item이 포함된 chunk는 통째로 실패하는 delegate
+    private final ItemWriter<Integer> delegate = chunk -> {
+        writes.add(new ArrayList<>(chunk));
+
+        for (Integer item : chunk) {
+            if (badItems.contains(item)) {
+                throw new IllegalArgumentException("bad item : " + item);
+            }
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        if (dataSource != null) {
+            dataSource.shutdown();
+        }
+    }
+
+    @Test
+    void isolate_failed_items_on_retry() throws Exception {
+
+        // Given
+        BisectingItemWriter<Integer> itemWriter = itemWriter(IllegalArgumentException.class);
+
+        // When : 첫 기록 실패 -> step retry
+        Assertions.assertThatThrownBy(() -> itemWriter.write(items))
+                .isInstanceOf(BisectingItemWriter.IsolationRequiredException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+
+        writes.clear();
+        itemWriter.write(items);
+
+        // Then : 마지막 기록은 실패 item을 뺀 나머지 전체, 실패 item은 skipSink로
+        List<Integer> expected = new ArrayList<>(items);
+        expected.removeAll(badItems);
+
+        Assertions.assertThat(writes.get(writes.size() - 1)).isEqualTo(expected);
+        Assertions.assertThat(skipped).isEqualTo(badItems);
+
+        // item 단위 scan(1000번) 대신 실패 item 수 x log2(1000) 정도의 시험 기록
+        Assertions.assertThat(writes.size()).isLessThanOrEqualTo(2 * badItems.size() * 10 + 2);
+    }
+
+    @Test
+    void write_chunk_once_when_no_failure() throws Exception {
+
+        // Given
+        BisectingItemWriter<Integer> itemWriter = itemWriter(IllegalArgumentException.class);
+        List<Integer> goodItems = items.subList(0, 100);
+
+        // When
+        itemWriter.write(goodItems);
+
+        // Then
+        Assertions.assertThat(writes).containsExactly(goodItems);
+        Assertions.assertThat(skipped).isEmpty();
+    }
+
+    @Test
+    void rethrow_not_isolated_exception() {
+
+        // Given
+        BisectingItemWriter<Integer> itemWriter = itemWriter(IllegalStateException.class);
+
+        // When, Then
+        Assertions.assertThatThrownBy(() -> itemWriter.write(items))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void throw_when_skip_limit_exceeded() throws Exception {
+
+        // Given : 실패 item 2개, skipLimit 1
+        BisectingItemWriter<Integer> itemWriter = BisectingItemWriter.<Integer>builder()
+                .delegate(delegate)
+                .transactionManager(new ResourcelessTransactionManager())
+                .skipSink((item, cause) -> skipped.add(item))
+                .isolateOn(IllegalArgumentException.class)
+                .skipLimit(1)
+                .build();
+
+        Assertions.assertThatThrownBy(() -> itemWriter.write(items))
+                .isInstanceOf(BisectingItemWriter.IsolationRequiredException.class);
+
+        // When, Then : skipSink로 보내기 전에 실패
+        Assertions.assertThatThrownBy(() -> itemWriter.write(items))
+                .isInstanceOf(SkipLimitExceededException.class);
+        Assertions.assertThat(skipped).isEmpty();
+    }
+
+    // step의 retry(IsolationRequiredException)로 롤백 후 같은 chunk를 다시 기록하고, 분리한 item은 step의 write skip으로 집계
+    @Test
+    void retry_same_chunk_in_step() throws Exception {
+
+        // Given : 1 ~ 25, chunk 10, 실패 item은 첫 번째, 두 번째 chunk에 1개씩
+        List<Integer> badItems = Arrays.asList(7, 18);
+        List<List<Integer>> chunkWrites = new ArrayList<>();
+
+        Step step = faultTolerantStep(itemReader(25), items -> {
+            chunkWrites.add(new ArrayList<>(items));
+
+            for (Integer item : items) {
+                if (badItems.contains(item)) {
+                    throw new IllegalArgumentException("bad item : " + item);
+                }
+            }
+        }, 3);
+
+        // When
+        StepExecution result = execute(step);
+
+        // Then : 실패한 chunk를 그대로 다시 기록 (두 번째 기록은 분리를 위한 chunk 전체 시험 기록)
+        List<Integer> firstChunk = IntStream.rangeClosed(1, 10).boxed().collect(Collectors.toList());
+
+        Assertions.assertThat(result.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        Assertions.assertThat(chunkWrites.get(0)).isEqualTo(firstChunk);
+        Assertions.assertThat(chunkWrites.get(1)).isEqualTo(firstChunk);
+        Assertions.assertThat(result.getRollbackCount()).isEqualTo(badItems.size());
+
+        Assertions.assertThat(skipped).isEqualTo(badItems);
+        Assertions.assertThat(result.getWriteCount()).isEqualTo(25 - badItems.size());
+        Assertions.assertThat(result.getWriteSkipCount()).isEqualTo(badItems.size());
+        Assertions.assertThat(result.getSkipCount()).isEqualTo(badItems.size());
+    }
+
+    @Test
+    void fail_step_when_skip_limit_exceeded() throws Exception {
+
+        // Given : 첫 번째 chunk에 실패 item 4개, skipLimit 3
+        List<Integer> badItems = Arrays.asList(2, 4, 6, 8);
+
+        Step step = faultTolerantStep(itemReader(25), items -> {
+            for (Integer item : items) {
+                if (badItems.contains(item)) {
+                    throw new IllegalArgumentException("bad item : " + item);
+                }
+            }
+        }, 3);
+
+        // When
+        StepExecution result = execute(step);
+
+        // Then
+        Assertions.assertThat(result.getStatus()).isEqualTo(BatchStatus.FAILED);
+        Assertions.assertThat(result.getFailureExceptions())
+                .anySatisfy(e -> Assertions.assertThat(e).hasStackTraceContaining(SkipLimitExceededException.class.getName()));
+        Assertions.assertThat(skipped).isEmpty();
+        Assertions.assertThat(result.getWriteCount()).isZero();
+        Assertions.assertThat(result.getWriteSkipCount()).isZero();
+    }
+
+    private BisectingItemWriter<Integer> itemWriter(Class<? extends Throwable> isolatedException) {
+        return BisectingItemWriter.<Integer>builder()
+                .delegate(delegate)
+                .transactionManager(new ResourcelessTransactionManager())
+                .skipSink((item, cause) -> skipped.add(item))
+                .isolateOn(isolatedException)
+                .build();
+    }
+
+    // SavePersonConfiguration.savePersonStep과 같은 retry 설정
+    private Step faultTolerantStep(ItemReader<Integer> itemReader, ItemWriter<Integer> delegate, int skipLimit) throws Exception {
+        StepBuilderFactory stepBuilderFactory = stepBuilderFactory();
+
+        BisectingItemWriter<Integer> itemWriter = BisectingItemWriter.<Integer>builder()
+                .delegate(delegate)
+                .transactionManager(transactionManager)
+                .skipSink((item, cause) -> skipped.add(item))
+                .isolateOn(IllegalArgumentException.class)
+                .skipLimit(skipLimit)
+                .build();
+
+        return stepBuilderFactory.get("bisectingStep")
+                .<Integer, Integer>chunk(10)
+                .reader(itemReader)
+                .writer(itemWriter)
+                .faultTolerant()
+                .retry(BisectingItemWriter.IsolationRequiredException.class)
+                .retryLimit(2)
+                .build();
+    }
+
+    // 1 ~ count를 순서대로 반환
+    private ItemReader<Integer> itemReader(int count) {
+        Iterator<Integer> iterator = IntStream.rangeClosed(1, count).iterator();
+        return () -> iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private StepBuilderFactory stepBuilderFactory() throws Exception {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:org/springframework/batch/core/schema-h2.sql")
+                .build();
+
+        transactionManager = new DataSourceTransactionManager(dataSource);
+
+        JobRepositoryFactoryBean factoryBean = new JobRepositoryFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setTransactionManager(transactionManager);
+        factoryBean.afterPropertiesSet();
+        jobRepository = factoryBean.getObject();
+
+        return new StepBuilderFactory(jobRepository, transactionManager);
+    }
+
+    private StepExecution execute(Step step) throws Exception {
+        JobExecution jobExecution = jobRepository.createJobExecution("bisectingJob", new JobParameters());
+
+        StepExecution execution = jobExecution.createStepExecution(step.getName());
+        jobRepository.add(execution);
+
+        step.execute(execution);
+
+        return execution;
+    }
+}
@@ -0,0 +1,155 @@
+package cocoball.springbatchstudy;
+
+import cocoball.springbatchstudy.part3.Person;
+import cocoball.springbatchstudy.part6.OrderStatistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
+import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
+import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 기존 FlatFileItemWriter(BeanWrapperFieldExtractor + DelimitedLineAggregator)와 BufferedCsvItemWriter의 처리량 비교
+ * chunk마다 트랜잭션 commit을 흉내내서 (FlatFileItemWriter는 transactional 기본값 true) 실제 step과 같은 시점에 기록
+ * ./gradlew test -Dbenchmark=true 로 실행했을 때만 동작
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BufferedCsvItemWriterBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BufferedCsvItemWriterBenchmarkTest.class);
+
+    private static final int ITEM_COUNT = 2_000_000;
+    private static final int CHUNK_SIZE = 1000;
+    private static final int REPEAT = 5;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void person() throws Exception {
+
+        List<Person> items = new ArrayList<>(ITEM_COUNT);
+        for (int i = 1; i <= ITEM_COUNT; i++) {
+            items.add(new Person(i, "test name" + i, String.valueOf(i % 100), "서울"));
+        }
+
+        Path file = tempDir.resolve("person.csv");
+
+        compare("person", items, () -> {
+            BeanWrapperFieldExtractor<Person> fieldExtractor = new BeanWrapperFieldExtractor<>();
+            fieldExtractor.setNames(new String[]{"id", "name", "age", "address"});
+
+            DelimitedLineAggregator<Person> lineAggregator = new DelimitedLineAggregator<>();
+            lineAggregator.setFieldExtractor(fieldExtractor);
+
+            return new FlatFileItemWriterBuilder<Person>()
+                    .name("flatFileItemWriter")
+                    .encoding("UTF-8")
+                    .resource(new FileSystemResource(file.toFile()))
+                    .lineAggregator(lineAggregator)
+                    .build();
+        }, () -> BufferedCsvItemWriter.<Person>builder()
+                .name("bufferedCsvItemWriter")
+                .resource(new FileSystemResource(file.toFile()))
+                .longColumn(Person::getId)
+                .column(Person::getName)
+                .column(Person::getAge)
+                .column(Person::getAddress)
+                .build());
+    }
+
+    @Test
+    void order_statistics() throws Exception {
+
+        long startDay = LocalDate.of(2000, 1, 1).toEpochDay();
+
+        List<OrderStatistics> items = new ArrayList<>(ITEM_COUNT);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(OrderStatistics.builder().amount(i * 1_000L).epochDay(startDay + i % 10_000).build());
+        }
+
+        Path file = tempDir.resolve("statistics.csv");
+
+        compare("orderStatistics", items, () -> {
+            BeanWrapperFieldExtractor<OrderStatistics> fieldExtractor = new BeanWrapperFieldExtractor<>();
+            fieldExtractor.setNames(new String[]{"amount", "date"});
+
+            DelimitedLineAggregator<OrderStatistics> lineAggregator = new DelimitedLineAggregator<>();
+            lineAggregator.setFieldExtractor(fieldExtractor);
+
+            return new FlatFileItemWriterBuilder<OrderStatistics>()
+                    .name("flatFileItemWriter")
+                    .encoding("UTF-8")
+                    .resource(new FileSystemResource(file.toFile()))
+                    .lineAggregator(lineAggregator)
+                    .build();
+        }, () -> BufferedCsvItemWriter.<OrderStatistics>builder()
+                .name("bufferedCsvItemWriter")
+                .resource(new FileSystemResource(file.toFile()))
+                .longColumn(OrderStatistics::getAmount)
+                .epochDayColumn(OrderStatistics::getEpochDay)
+                .build());
+    }
+
+    private <T> void compare(String name,
+                             List<T> items,
+                             Supplier<ItemStreamWriter<T>> flatFileItemWriter,
+                             Supplier<ItemStreamWriter<T>> bufferedCsvItemWriter) throws Exception {
+
+        // warm up
+        run(flatFileItemWriter.get(), items);
+        run(bufferedCsvItemWriter.get(), items);
+
+        long flatFile = Long.MAX_VALUE;
+        long bufferedCsv = Long.MAX_VALUE;
+
+        for (int i = 0; i < REPEAT; i++) {
+            flatFile = Math.min(flatFile, run(flatFileItemWriter.get(), items));
+            bufferedCsv = Math.min(bufferedCsv, run(bufferedCsvItemWriter.get(), items));
+        }
+
+        log.info("[{}] {} items, FlatFileItemWriter : {} ms, BufferedCsvItemWriter : {} ms",
+                name, ITEM_COUNT, flatFile, bufferedCsv);
+    }
+
+    // chunk마다 트랜잭션 commit 시점의 TransactionSynchronization을 직접 호출하고 걸린 시간(ms)을 반환
+    private <T> long run(ItemStreamWriter<T> itemWriter, List<T> items) throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+
+        long start = System.nanoTime();
+        itemWriter.open(executionContext);
+
+        for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+            TransactionSynchronizationManager.initSynchronization();
+
+            try {
+                itemWriter.write(items.subList(from, Math.min(from + CHUNK_SIZE, items.size())));
+                itemWriter.update(executionContext);
+
+                List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+                synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        itemWriter.close();
+
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,288 @@
+package cocoball.springbatchstudy;
+
+import cocoball.springbatchstudy.part3.Person;
+import cocoball.springbatchstudy.part6.OrderStatistics;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+class BufferedCsvItemWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void write_header_lines_and_footer() throws Exception {
+
+        // Given
+        Path file = tempDir.resolve("person.csv");
+        BufferedCsvItemWriter<Person> itemWriter = personWriter(file, false);
+
+        // When
+        itemWriter.open(new ExecutionContext());
+        itemWriter.write(Arrays.asList(
+                new Person(1, "홍길동", "30", "서울"),
+                new Person(2, "kim", null, "busan")));
+        itemWriter.close();
+
+        // Then : 한글은 UTF-8, null은 빈 칸
+        Assertions.assertThat(Files.readAllLines(file, StandardCharsets.UTF_8))
+                .containsExactly("id,이름,나이,거주지", "1,홍길동,30,서울", "2,kim,,busan", "----------------");
+    }
+
+    @Test
+    void append_to_existing_file_without_header() throws Exception {
+
+        // Given
+        Path file = tempDir.resolve("person.csv");
+
+        BufferedCsvItemWriter<Person> first = personWriter(file, true);
+        first.open(new ExecutionContext());
+        first.write(Collections.singletonList(new Person(1, "a", "10", "x")));
+        first.close();
+
+        // When
+        BufferedCsvItemWriter<Person> second = personWriter(file, true);
+        second.open(new ExecutionContext());
+        second.write(Collections.singletonList(new Person(2, "b", "20", "y")));
+        second.close();
+
+        // Then
+        Assertions.assertThat(Files.readAllLines(file, StandardCharsets.UTF_8))
+                .containsExactly("id,이름,나이,거주지", "1,a,10,x", "----------------", "2,b,20,y", "----------------");
+    }
+
+    @Test
+    void rollback_discards_chunk() throws Exception {
+
+        // Given
+        Path file = tempDir.resolve("statistics.csv");
+        BufferedCsvItemWriter<OrderStatistics> itemWriter = statisticsWriter(file);
+        itemWriter.open(new ExecutionContext());
+
+        // When : 첫 번째 chunk는 commit, 두 번째 chunk는 롤백
+        writeChunk(itemWriter, statistics(1_000L, "2020-11-01"), true);
+        writeChunk(itemWriter, statistics(2_000L, "2020-11-02"), false);
+        writeChunk(itemWriter, statistics(3_000L, "2020-11-03"), true);
+        itemWriter.close();
+
+        // Then
+        Assertions.assertThat(Files.readAllLines(file, StandardCharsets.UTF_8))
+                .containsExactly("total_amount, date", "1000,2020-11-01", "3000,2020-11-03");
+    }
+
+    @Test
+    void restart_from_last_committed_position() throws Exception {
+
+        // Given : 1번째 chunk commit 후 2번째 chunk를 기록하다 중단 (update 되지 않은 내용이 파일에 남음)
+        Path file = tempDir.resolve("statistics.csv");
+        ExecutionContext executionContext = new ExecutionContext();
+
+        BufferedCsvItemWriter<OrderStatistics> itemWriter = statisticsWriter(file);
+        itemWriter.open(executionContext);
+        itemWriter.write(Collections.singletonList(statistics(1_000L, "2020-11-01")));
+        itemWriter.update(executionContext);
+        itemWriter.write(Collections.singletonList(statistics(2_000L, "2020-11-02")));
+        itemWriter.close();
+
+        // When
+        BufferedCsvItemWriter<OrderStatistics> restartedItemWriter = statisticsWriter(file);
+        restartedItemWriter.open(executionContext);
+        restartedItemWriter.write(Collections.singletonList(statistics(2_000L, "2020-11-02")));
+        restartedItemWriter.close();
+
+        // Then
+        Assertions.assertThat(Files.readAllLines(file, StandardCharsets.UTF_8))
+                .containsExactly("total_amount, date", "1000,2020-11-01", "2000,2020-11-02");
+    }
+
+    @Test
+    void accessor_failure_discards_partial_line() throws Exception {
+
+        // Given : 금액이 음수인 아이템은 날짜 column에서 예외 (금액은 이미 buffer에 기록된 상태)
+        Path file = tempDir.resolve("statistics.csv");
+        BufferedCsvItemWriter<OrderStatistics> itemWriter = BufferedCsvItemWriter.<OrderStatistics>builder()
+                .name("statisticsWriter")
+                .resource(new FileSystemResource(file.toFile()))
+                .longColumn(OrderStatistics::getAmount)
+                .epochDayColumn(item -> {
+                    if (item.getAmount() < 0) {
+                        throw new IllegalArgumentException("음수 금액");
+                    }
+                    return item.getEpochDay();
+                })
+                .build();
+        itemWriter.open(new ExecutionContext());
+
+        // When : 트랜잭션 안에서 실패한 chunk는 롤백, 트랜잭션 밖에서 실패한 write 다음에는 정상 write
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            Assertions.assertThatThrownBy(() -> itemWriter.write(Arrays.asList(statistics(1_000L, "2020-11-01"), statistics(-1L, "2020-11-02"))))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            // buffer를 채우기 전에 등록되어 있으므로 롤백 시 buffer를 비울 수 있음
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            Assertions.assertThat(synchronizations).hasSize(1);
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        writeChunk(itemWriter, statistics(2_000L, "2020-11-02"), true);
+
+        Assertions.assertThatThrownBy(() -> itemWriter.write(Collections.singletonList(statistics(-1L, "2020-11-03"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        itemWriter.write(Collections.singletonList(statistics(3_000L, "2020-11-03")));
+        itemWriter.close();
+
+        // Then : 중간까지 쓴 "1000,2020-11-01", "-1," 라인은 남지 않음
+        Assertions.assertThat(Files.readAllLines(file, StandardCharsets.UTF_8))
+                .containsExactly("2000,2020-11-02", "3000,2020-11-03");
+    }
+
+    @Test
+    void format_numbers_and_dates_like_to_string() throws Exception {
+
+        // Given : 음수, long 범위, 윤년, 세기 경계 포함
+        Path file = tempDir.resolve("statistics.csv");
+        List<OrderStatistics> items = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        expected.add("total_amount, date");
+
+        long[] amounts = {0L, -1L, 9L, 10L, Long.MAX_VALUE, Long.MIN_VALUE};
+        int index = 0;
+
+        for (LocalDate date = LocalDate.of(1899, 12, 25); date.isBefore(LocalDate.of(2101, 1, 10)); date = date.plusDays(1)) {
+            long amount = amounts[index++ % amounts.length];
+            items.add(OrderStatistics.builder().amount(amount).epochDay(date.toEpochDay()).build());
+            expected.add(amount + "," + date);
+        }
+
+        items.add(OrderStatistics.builder().amount(1L).epochDay(LocalDate.of(10_000, 1, 1).toEpochDay()).build());
+        expected.add("1," + LocalDate.of(10_000, 1, 1));
+
+        // When
+        BufferedCsvItemWriter<OrderStatistics> itemWriter = statisticsWriter(file);
+        itemWriter.open(new ExecutionContext());
+        itemWriter.write(items);
+        itemWriter.close();
+
+        // Then
+        Assertions.assertThat(Files.readAllLines(file, StandardCharsets.UTF_8)).isEqualTo(expected);
+    }
+
+    @Test
+    void gzip_member_per_commit_and_restart() throws Exception {
+
+        // Given : 1번째 chunk commit, 2번째 chunk 롤백, 3번째 chunk 기록 중 중단
+        Path file = tempDir.resolve("statistics.csv.gz");
+        ExecutionContext executionContext = new ExecutionContext();
+
+        BufferedCsvItemWriter<OrderStatistics> itemWriter = statisticsWriter(file, BufferedCsvItemWriter.Compression.GZIP);
+        itemWriter.open(executionContext);
+        writeChunk(itemWriter, statistics(1_000L, "2020-11-01"), true);
+        writeChunk(itemWriter, statistics(2_000L, "2020-11-02"), false);
+        itemWriter.update(executionContext);
+        itemWriter.write(Collections.singletonList(statistics(3_000L, "2020-11-03")));
+        itemWriter.close();
+
+        // When
+        BufferedCsvItemWriter<OrderStatistics> restartedItemWriter = statisticsWriter(file, BufferedCsvItemWriter.Compression.GZIP);
+        restartedItemWriter.open(executionContext);
+        writeChunk(restartedItemWriter, statistics(3_000L, "2020-11-03"), true);
+        restartedItemWriter.close();
+
+        // Then : 이어 붙인 gzip member들이 하나의 gzip 파일로 읽힘
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            Assertions.assertThat(reader.lines())
+                    .containsExactly("total_amount, date", "1000,2020-11-01", "3000,2020-11-03");
+        }
+    }
+
+    @Test
+    void compression_from_job_parameter() {
+        Assertions.assertThat(BufferedCsvItemWriter.Compression.from(null)).isEqualTo(BufferedCsvItemWriter.Compression.NONE);
+        Assertions.assertThat(BufferedCsvItemWriter.Compression.from("gzip")).isEqualTo(BufferedCsvItemWriter.Compression.GZIP);
+        Assertions.assertThat(BufferedCsvItemWriter.Compression.GZIP.fileName("test-output.csv")).isEqualTo("test-output.csv.gz");
+    }
+
+    // chunk 트랜잭션처럼 commit 직전 / 완료 시점의 TransactionSynchronization을 직접 호출
+    private void writeChunk(BufferedCsvItemWriter<OrderStatistics> itemWriter, OrderStatistics item, boolean commit) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            itemWriter.write(Collections.singletonList(item));
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+            if (commit) {
+                synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            }
+
+            int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private BufferedCsvItemWriter<Person> personWriter(Path file, boolean append) {
+        return BufferedCsvItemWriter.<Person>builder()
+                .name("personWriter")
+                .resource(new FileSystemResource(file.toFile()))
+                .header("id,이름,나이,거주지")
+                .footer("----------------")
+                .append(append)
+                .longColumn(Person::getId)
+                .column(Person::getName)
+                .column(Person::getAge)
+                .column(Person::getAddress)
+                .build();
+    }
+
+    private BufferedCsvItemWriter<OrderStatistics> statisticsWriter(Path file) {
+        return statisticsWriter(file, BufferedCsvItemWriter.Compression.NONE);
+    }
+
+    private BufferedCsvItemWriter<OrderStatistics> statisticsWriter(Path file, BufferedCsvItemWriter.Compression compression) {
+        return BufferedCsvItemWriter.<OrderStatistics>builder()
+                .name("statisticsWriter")
+                .resource(new FileSystemResource(file.toFile()))
+                .compression(compression)
+                .header("total_amount, date")
+                .bufferSize(16) // buffer가 늘어나는 경우도 확인
+                .longColumn(OrderStatistics::getAmount)
+                .epochDayColumn(OrderStatistics::getEpochDay)
+                .build();
+    }
+
+    private OrderStatistics statistics(long amount, String date) {
+        return OrderStatistics.builder().amount(amount).epochDay(LocalDate.parse(date).toEpochDay()).build();
+    }
+}
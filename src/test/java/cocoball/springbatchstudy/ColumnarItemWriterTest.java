@@ -0,0 +1,282 @@
+package cocoball.springbatchstudy;
+
+import cocoball.springbatchstudy.part6.Level;
+import cocoball.springbatchstudy.part6.OrderStatistics;
+import cocoball.springbatchstudy.part6.Orders;
+import cocoball.springbatchstudy.part6.User;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class ColumnarItemWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void write_and_read_order_statistics() throws Exception {
+
+        // Given : 3건씩 row group 2개
+        Path file = tempDir.resolve("statistics.colb");
+        List<OrderStatistics> items = statistics(6);
+
+        ColumnarItemWriter<OrderStatistics> itemWriter = statisticsWriter(file);
+        itemWriter.open(new ExecutionContext());
+
+        // When
+        writeChunk(itemWriter, items.subList(0, 3), true);
+        writeChunk(itemWriter, items.subList(3, 6), true);
+        itemWriter.close();
+
+        // Then
+        List<OrderStatistics> read = readAll(statisticsReader(file), new ExecutionContext());
+
+        Assertions.assertThat(read).extracting(OrderStatistics::getAmount).containsExactly(1_000L, 2_000L, 3_000L, 4_000L, 5_000L, 6_000L);
+        Assertions.assertThat(read).extracting(OrderStatistics::getDate)
+                .containsExactly(LocalDate.of(2020, 11, 1), LocalDate.of(2020, 11, 2), LocalDate.of(2020, 11, 3),
+                        LocalDate.of(2020, 11, 4), LocalDate.of(2020, 11, 5), LocalDate.of(2020, 11, 6));
+    }
+
+    @Test
+    void rollback_discards_row_group_and_restart_from_last_commit() throws Exception {
+
+        // Given : 1번째 chunk commit, 2번째 chunk 롤백, 3번째 chunk 기록 중 중단
+        Path file = tempDir.resolve("statistics.colb");
+        List<OrderStatistics> items = statistics(9);
+        ExecutionContext executionContext = new ExecutionContext();
+
+        ColumnarItemWriter<OrderStatistics> itemWriter = statisticsWriter(file);
+        itemWriter.open(executionContext);
+        writeChunk(itemWriter, items.subList(0, 3), true);
+        writeChunk(itemWriter, items.subList(3, 6), false);
+        itemWriter.update(executionContext);
+        itemWriter.write(items.subList(6, 9));
+        itemWriter.close();
+
+        // When
+        ColumnarItemWriter<OrderStatistics> restartedItemWriter = statisticsWriter(file);
+        restartedItemWriter.open(executionContext);
+        writeChunk(restartedItemWriter, items.subList(3, 9), true);
+        restartedItemWriter.close();
+
+        // Then
+        Assertions.assertThat(readAll(statisticsReader(file), new ExecutionContext()))
+                .extracting(OrderStatistics::getAmount)
+                .containsExactly(1_000L, 2_000L, 3_000L, 4_000L, 5_000L, 6_000L, 7_000L, 8_000L, 9_000L);
+    }
+
+    @Test
+    void accessor_failure_discards_partial_row_group() throws Exception {
+
+        // Given : 금액이 음수인 아이템은 날짜 column에서 예외 (금액 column block은 이미 buffer에 기록된 상태)
+        Path file = tempDir.resolve("statistics.colb");
+        List<OrderStatistics> items = statistics(4);
+        OrderStatistics invalid = OrderStatistics.builder().amount(-1L).epochDay(0).build();
+
+        ColumnarItemWriter<OrderStatistics> itemWriter = ColumnarItemWriter.<OrderStatistics>builder()
+                .name("statisticsWriter")
+                .resource(new FileSystemResource(file.toFile()))
+                .longColumn("total_amount", OrderStatistics::getAmount)
+                .longColumn("date", item -> {
+                    if (item.getAmount() < 0) {
+                        throw new IllegalArgumentException("음수 금액");
+                    }
+                    return item.getEpochDay();
+                })
+                .build();
+        itemWriter.open(new ExecutionContext());
+
+        // When : 트랜잭션 안에서 실패한 chunk는 롤백, 트랜잭션 밖에서 실패한 write 다음에는 정상 write
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            Assertions.assertThatThrownBy(() -> itemWriter.write(Arrays.asList(items.get(0), invalid)))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            // buffer를 채우기 전에 등록되어 있으므로 롤백 시 buffer를 비울 수 있음
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            Assertions.assertThat(synchronizations).hasSize(1);
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        writeChunk(itemWriter, items.subList(0, 2), true);
+
+        Assertions.assertThatThrownBy(() -> itemWriter.write(Arrays.asList(items.get(2), invalid)))
+                .isInstanceOf(IllegalArgumentException.class);
+        itemWriter.write(items.subList(2, 4));
+        itemWriter.close();
+
+        // Then : 중간까지 쓴 row group 없이 읽힘
+        Assertions.assertThat(readAll(statisticsReader(file), new ExecutionContext()))
+                .extracting(OrderStatistics::getAmount)
+                .containsExactly(1_000L, 2_000L, 3_000L, 4_000L);
+    }
+
+    @Test
+    void reader_restart_skips_read_items() throws Exception {
+
+        // Given : row group 3개 (3, 3, 3건)
+        Path file = tempDir.resolve("statistics.colb");
+        List<OrderStatistics> items = statistics(9);
+
+        ColumnarItemWriter<OrderStatistics> itemWriter = statisticsWriter(file);
+        itemWriter.open(new ExecutionContext());
+        itemWriter.write(items.subList(0, 3));
+        itemWriter.write(items.subList(3, 6));
+        itemWriter.write(items.subList(6, 9));
+        itemWriter.close();
+
+        // 4건 읽고 중단
+        ExecutionContext executionContext = new ExecutionContext();
+        ColumnarItemReader<OrderStatistics> itemReader = statisticsReader(file);
+        itemReader.open(executionContext);
+
+        for (int i = 0; i < 4; i++) {
+            itemReader.read();
+        }
+
+        itemReader.update(executionContext);
+        itemReader.close();
+
+        // When
+        List<OrderStatistics> read = readAll(statisticsReader(file), executionContext);
+
+        // Then : 두 번째 row group 중간부터 이어서 읽음
+        Assertions.assertThat(read).extracting(OrderStatistics::getAmount)
+                .containsExactly(5_000L, 6_000L, 7_000L, 8_000L, 9_000L);
+    }
+
+    @Test
+    void write_and_read_users_with_nulls() throws Exception {
+
+        // Given : 레벨업 하지 않은 유저는 updatedDate가 null, 저장 전이라 id도 null
+        Path file = tempDir.resolve("users.colb");
+
+        User normal = user("normal", 1_000);
+        User gold = user("gold", 400_000);
+        gold.levelUp();
+        User noName = user(null, 1_000);
+
+        ColumnarItemWriter<User> itemWriter = ColumnarItemWriter.<User>builder()
+                .name("userWriter")
+                .resource(new FileSystemResource(file.toFile()))
+                .nullableLongColumn("id", User::getId)
+                .stringColumn("username", User::getUsername)
+                .enumColumn("level", User::getLevel)
+                .dateColumn("updated_date", User::getUpdatedDate)
+                .build();
+
+        itemWriter.open(new ExecutionContext());
+        itemWriter.write(Arrays.asList(normal, gold, noName));
+        itemWriter.close();
+
+        // When
+        ColumnarItemReader<String> itemReader = ColumnarItemReader.<String>builder()
+                .name("userReader")
+                .resource(new FileSystemResource(file.toFile()))
+                .rowMapper(row -> row.getNullableLong(row.getColumnIndex("id"))
+                        + "," + row.getString(row.getColumnIndex("username"))
+                        + "," + row.getEnum(row.getColumnIndex("level"), Level.class)
+                        + "," + row.getDate(row.getColumnIndex("updated_date")))
+                .build();
+
+        // Then
+        Assertions.assertThat(readAll(itemReader, new ExecutionContext()))
+                .containsExactly("null,normal,NORMAL,null", "null,gold,GOLD," + LocalDate.now(), "null,null,NORMAL,null");
+    }
+
+    // chunk 트랜잭션처럼 commit 직전 / 완료 시점의 TransactionSynchronization을 직접 호출
+    private void writeChunk(ColumnarItemWriter<OrderStatistics> itemWriter, List<OrderStatistics> items, boolean commit) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            itemWriter.write(items);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+            if (commit) {
+                synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            }
+
+            int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private <T> List<T> readAll(ColumnarItemReader<T> itemReader, ExecutionContext executionContext) throws Exception {
+        List<T> items = new ArrayList<>();
+        itemReader.open(executionContext);
+
+        T item;
+        while ((item = itemReader.read()) != null) {
+            items.add(item);
+        }
+
+        itemReader.close();
+
+        return items;
+    }
+
+    private ColumnarItemWriter<OrderStatistics> statisticsWriter(Path file) {
+        return ColumnarItemWriter.<OrderStatistics>builder()
+                .name("statisticsWriter")
+                .resource(new FileSystemResource(file.toFile()))
+                .bufferSize(16) // buffer가 늘어나는 경우도 확인
+                .longColumn("total_amount", OrderStatistics::getAmount)
+                .longColumn("date", OrderStatistics::getEpochDay)
+                .build();
+    }
+
+    private ColumnarItemReader<OrderStatistics> statisticsReader(Path file) {
+        return ColumnarItemReader.<OrderStatistics>builder()
+                .name("statisticsReader")
+                .resource(new FileSystemResource(file.toFile()))
+                .bufferSize(16)
+                .rowMapper(row -> OrderStatistics.builder().amount(row.getLong(0)).epochDay(row.getLong(1)).build())
+                .build();
+    }
+
+    // 2020-11-01 부터 하루에 1건, 금액은 1000, 2000, ...
+    private List<OrderStatistics> statistics(int count) {
+        List<OrderStatistics> items = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            items.add(OrderStatistics.builder()
+                    .amount((i + 1) * 1_000L)
+                    .epochDay(LocalDate.of(2020, 11, 1).plusDays(i).toEpochDay())
+                    .build());
+        }
+
+        return items;
+    }
+
+    private User user(String username, int amount) {
+        return User.builder()
+                .username(username)
+                .orders(Collections.singletonList(Orders.builder().itemName("item").amount(amount).createdDate(LocalDate.of(2020, 11, 1)).build()))
+                .build();
+    }
+}
@@ -0,0 +1,234 @@
+package cocoball.springbatchstudy;
+
+import cocoball.springbatchstudy.part3.Person;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+class MappedCsvItemReaderTest {
+
+    private static final int LINE_COUNT = 1000;
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private List<String> expected;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = tempDir.resolve("person.csv");
+        expected = new ArrayList<>();
+
+        // header, \n / \r\n 혼합, 따옴표로 감싼 필드, 공백, 중간의 빈 라인, 마지막 줄바꿈 없음
+        StringBuilder csv = new StringBuilder("id,이름,나이,거주지\r\n");
+
+        for (int i = 1; i <= LINE_COUNT; i++) {
+            String name = i % 10 == 0 ? "\"홍, \"\"길동\"\"\"" : "이름" + i;
+
+            csv.append(i).append(',').append(name).append(", ").append(i % 90).append(" ,서울");
+            csv.append(i == LINE_COUNT ? "" : i % 3 == 0 ? "\r\n" : "\n");
+
+            if (i % 100 == 0 && i != LINE_COUNT) {
+                csv.append('\n');
+            }
+
+            expected.add(i + "," + (i % 10 == 0 ? "홍, \"길동\"" : "이름" + i) + "," + (i % 90) + ",서울");
+        }
+
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void read_whole_file() throws Exception {
+        Assertions.assertThat(readAll(reader(null, null, 256L * 1024 * 1024), new ExecutionContext())).isEqualTo(expected);
+    }
+
+    @Test
+    void read_lines_across_small_windows() throws Exception {
+        // 라인이 매핑 구간 끝에 걸치면 라인 시작부터 다시 매핑
+        Assertions.assertThat(readAll(reader(null, null, 64), new ExecutionContext())).isEqualTo(expected);
+    }
+
+    @Test
+    void read_partitions_in_order() throws Exception {
+
+        // Given
+        Map<String, ExecutionContext> partitions = new MappedCsvPartitioner(new FileSystemResource(file.toFile())).partition(7);
+
+        // When : 구간마다 별도 reader로 읽음
+        List<String> lines = new ArrayList<>();
+
+        for (ExecutionContext partition : partitions.values()) {
+            lines.addAll(readAll(reader(partition.getLong(MappedCsvPartitioner.START_OFFSET_KEY),
+                    partition.getLong(MappedCsvPartitioner.END_OFFSET_KEY), 100), new ExecutionContext()));
+        }
+
+        // Then : 구간이 라인 경계에서 나뉘어서 빠지거나 겹치는 라인이 없음 (header는 첫 구간에서만 건너뜀)
+        Assertions.assertThat(partitions).hasSize(7);
+        Assertions.assertThat(lines).isEqualTo(expected);
+    }
+
+    @Test
+    void partition_small_file_into_fewer_ranges() throws Exception {
+
+        // Given
+        Path small = tempDir.resolve("small.csv");
+        Files.write(small, "id,이름\n1,a\n".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        Map<String, ExecutionContext> partitions = new MappedCsvPartitioner(new FileSystemResource(small.toFile())).partition(10);
+
+        // Then
+        Assertions.assertThat(partitions).hasSize(2);
+        Assertions.assertThat(partitions.get("partition1").getLong(MappedCsvPartitioner.END_OFFSET_KEY)).isEqualTo(Files.size(small));
+    }
+
+    @Test
+    void restart_from_saved_offset() throws Exception {
+
+        // Given : 37건 읽고 중단
+        ExecutionContext executionContext = new ExecutionContext();
+
+        MappedCsvItemReader<String> itemReader = reader(null, null, 1024);
+        itemReader.open(executionContext);
+
+        for (int i = 0; i < 37; i++) {
+            itemReader.read();
+        }
+
+        itemReader.update(executionContext);
+        itemReader.close();
+
+        // When
+        List<String> lines = readAll(reader(null, null, 1024), executionContext);
+
+        // Then
+        Assertions.assertThat(lines).isEqualTo(expected.subList(37, LINE_COUNT));
+    }
+
+    // boot jar 안의 classpath 파일처럼 getFile()을 쓸 수 없는 resource는 InputStream으로 읽음
+    @Test
+    void read_resource_inside_jar() throws Exception {
+
+        // Given
+        Resource resource = jarResource();
+
+        // When
+        Map<String, ExecutionContext> partitions = new MappedCsvPartitioner(resource).partition(7);
+        ExecutionContext partition = partitions.get("partition0");
+
+        // Then : 나누지 않고 파티션 하나로 읽고, 라인이 읽는 구간 끝에 걸쳐도 이어서 읽음
+        Assertions.assertThat(resource.isFile()).isFalse();
+        Assertions.assertThat(partitions).hasSize(1);
+        Assertions.assertThat(readAll(reader(resource, partition.getLong(MappedCsvPartitioner.START_OFFSET_KEY), null, 64), new ExecutionContext()))
+                .isEqualTo(expected);
+        Assertions.assertThat(readAll(reader(resource, null, null, 256L * 1024 * 1024), new ExecutionContext()))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void restart_resource_inside_jar_from_saved_offset() throws Exception {
+
+        // Given : 37건 읽고 중단
+        Resource resource = jarResource();
+        ExecutionContext executionContext = new ExecutionContext();
+
+        MappedCsvItemReader<String> itemReader = reader(resource, null, null, 100);
+        itemReader.open(executionContext);
+
+        for (int i = 0; i < 37; i++) {
+            itemReader.read();
+        }
+
+        itemReader.update(executionContext);
+        itemReader.close();
+
+        // When : 저장된 위치까지 건너뛰고 읽음
+        List<String> lines = readAll(reader(resource, null, null, 100), executionContext);
+
+        // Then
+        Assertions.assertThat(lines).isEqualTo(expected.subList(37, LINE_COUNT));
+    }
+
+    @Test
+    void map_person() throws Exception {
+
+        // Given
+        MappedCsvItemReader<Person> itemReader = MappedCsvItemReader.<Person>builder()
+                .name("personReader")
+                .resource(new FileSystemResource(file.toFile()))
+                .linesToSkip(1)
+                .lineMapper(line -> new Person(line.getInt(0), line.getString(1), line.getString(2), line.getString(3)))
+                .build();
+
+        // When
+        itemReader.open(new ExecutionContext());
+        Person person = itemReader.read();
+        itemReader.close();
+
+        // Then
+        Assertions.assertThat(person.getId()).isEqualTo(1);
+        Assertions.assertThat(person.getName()).isEqualTo("이름1");
+        Assertions.assertThat(person.getAge()).isEqualTo("1");
+        Assertions.assertThat(person.getAddress()).isEqualTo("서울");
+    }
+
+    private MappedCsvItemReader<String> reader(Long startOffset, Long endOffset, long windowSize) {
+        return reader(new FileSystemResource(file.toFile()), startOffset, endOffset, windowSize);
+    }
+
+    private MappedCsvItemReader<String> reader(Resource resource, Long startOffset, Long endOffset, long windowSize) {
+        return MappedCsvItemReader.<String>builder()
+                .name("reader")
+                .resource(resource)
+                .linesToSkip(1)
+                .range(startOffset, endOffset)
+                .windowSize(windowSize)
+                .lineMapper(line -> line.getLong(0) + "," + line.getString(1) + "," + line.getInt(2) + "," + line.getString(3))
+                .build();
+    }
+
+    private <T> List<T> readAll(MappedCsvItemReader<T> itemReader, ExecutionContext executionContext) throws Exception {
+        List<T> items = new ArrayList<>();
+        itemReader.open(executionContext);
+
+        T item;
+        while ((item = itemReader.read()) != null) {
+            items.add(item);
+        }
+
+        itemReader.close();
+
+        return items;
+    }
+
+    // csv 파일을 jar에 넣고 jar: URL로 읽음 (java -jar로 실행한 boot jar의 ClassPathResource와 같은 형태)
+    private Resource jarResource() throws Exception {
+        Path jar = tempDir.resolve("person.jar");
+
+        try (OutputStream outputStream = Files.newOutputStream(jar);
+             JarOutputStream jarOutputStream = new JarOutputStream(outputStream)) {
+            jarOutputStream.putNextEntry(new JarEntry("person.csv"));
+            Files.copy(file, jarOutputStream);
+            jarOutputStream.closeEntry();
+        }
+
+        return new UrlResource("jar:" + jar.toUri() + "!/person.csv");
+    }
+}
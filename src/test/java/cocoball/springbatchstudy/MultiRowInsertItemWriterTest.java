@@ -0,0 +1,90 @@
+package cocoball.springbatchstudy;
+
+import cocoball.springbatchstudy.part3.Person;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class MultiRowInsertItemWriterTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:multi_row_insert;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table person (id bigint primary key, name varchar(255), age varchar(255), address varchar(255))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table person");
+    }
+
+    @Test
+    void write_multi_row_batches_and_remaining_rows() {
+
+        // Given : 100행 insert 2번(batch) + 나머지 50행
+        AtomicLong sequence = new AtomicLong();
+        MultiRowInsertItemWriter<Person> itemWriter = itemWriter(items -> items.stream()
+                .mapToLong(item -> sequence.incrementAndGet())
+                .toArray());
+
+        List<Person> persons = IntStream.range(0, 250)
+                .mapToObj(i -> new Person("name" + i, String.valueOf(i % 100), "address" + i))
+                .collect(Collectors.toList());
+
+        // When
+        itemWriter.write(persons);
+
+        // Then
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from person", Integer.class)).isEqualTo(250);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select max(id) from person", Long.class)).isEqualTo(250L);
+        Assertions.assertThat(jdbcTemplate.queryForMap("select name, age, address from person where id = 138"))
+                .containsEntry("NAME", "name137")
+                .containsEntry("AGE", "37")
+                .containsEntry("ADDRESS", "address137");
+    }
+
+    @Test
+    void write_empty_chunk() {
+
+        // Given
+        MultiRowInsertItemWriter<Person> itemWriter = itemWriter(items -> {
+            throw new IllegalStateException("빈 chunk는 id를 할당하지 않음");
+        });
+
+        // When
+        itemWriter.write(Collections.emptyList());
+
+        // Then
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from person", Integer.class)).isZero();
+    }
+
+    private MultiRowInsertItemWriter<Person> itemWriter(MultiRowInsertItemWriter.IdAllocator<Person> idAllocator) {
+        return MultiRowInsertItemWriter.<Person>builder()
+                .dataSource(dataSource)
+                .table("person")
+                .idColumn("id", idAllocator)
+                .columns("name", "age", "address")
+                .rowBinder((ps, index, person) -> {
+                    ps.setString(index++, person.getName());
+                    ps.setString(index++, person.getAge());
+                    ps.setString(index++, person.getAddress());
+                    return index;
+                })
+                .rowsPerStatement(100)
+                .build();
+    }
+}
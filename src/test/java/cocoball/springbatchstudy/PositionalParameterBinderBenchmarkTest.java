@@ -0,0 +1,160 @@
+package cocoball.springbatchstudy;
+
+import cocoball.springbatchstudy.part3.Person;
+import cocoball.springbatchstudy.part3.PersonParameterBinders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Person insert 파라미터 바인딩 비교 (JMH 대신 PersonLineMapperBenchmarkTest와 같은 방식으로 측정)
+ * - bind : DB 없이 바인딩만 (set* 호출을 무시하는 PreparedStatement proxy)
+ *   BeanPropertyItemSqlParameterSourceProvider는 JdbcBatchItemWriter(NamedParameterJdbcTemplate.batchUpdate)가 item 마다 하는 일과 동일하게
+ *   SqlParameterSource 생성 -> 값 배열 생성 -> PreparedStatementSetter로 바인딩
+ * - write : H2 메모리 DB에 JdbcBatchItemWriter로 기록 (chunk 1,000)
+ * ./gradlew test -Dbenchmark=true 로 실행했을 때만 동작
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PositionalParameterBinderBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PositionalParameterBinderBenchmarkTest.class);
+
+    private static final int ITEM_COUNT = 1_000_000;
+    private static final int WRITE_ITEM_COUNT = 200_000;
+    private static final int CHUNK_SIZE = 1_000;
+    private static final int REPEAT = 5;
+
+    private static final String NAMED_SQL = "insert into person(name, age, address) values (:name, :age, :address)";
+
+    private final List<Person> persons = IntStream.range(0, ITEM_COUNT)
+            .mapToObj(i -> new Person("test name" + i, String.valueOf(i % 100), "서울"))
+            .collect(Collectors.toList());
+
+    // set* 호출을 무시하는 PreparedStatement (바인딩 방식과 무관하게 같은 비용)
+    private final PreparedStatement preparedStatement = (PreparedStatement) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> null);
+
+    private EmbeddedDatabase dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table person (id bigint auto_increment primary key, name varchar(255), age varchar(255), address varchar(255))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void bind() throws Exception {
+        BeanPropertyItemSqlParameterSourceProvider<Person> provider = new BeanPropertyItemSqlParameterSourceProvider<>();
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(NAMED_SQL);
+        PreparedStatementCreatorFactory statementCreatorFactory = new PreparedStatementCreatorFactory(
+                NamedParameterUtils.substituteNamedParameters(parsedSql, provider.createSqlParameterSource(persons.get(0))),
+                NamedParameterUtils.buildSqlParameterList(parsedSql, provider.createSqlParameterSource(persons.get(0))));
+
+        PositionalParameterBinder<Person> parameterBinder = PersonParameterBinders.PERSON;
+
+        BenchmarkResult.Task beanProperty = () -> {
+            for (Person person : persons) {
+                SqlParameterSource parameterSource = provider.createSqlParameterSource(person);
+                Object[] values = NamedParameterUtils.buildValueArray(parsedSql, parameterSource, null);
+                statementCreatorFactory.newPreparedStatementSetter(values).setValues(preparedStatement);
+            }
+        };
+
+        BenchmarkResult.Task positional = () -> {
+            for (Person person : persons) {
+                parameterBinder.setValues(person, preparedStatement);
+            }
+        };
+
+        // warm up
+        for (int i = 0; i < 2; i++) {
+            beanProperty.run();
+            positional.run();
+        }
+
+        BenchmarkResult beanPropertyResult = new BenchmarkResult(ITEM_COUNT);
+        BenchmarkResult positionalResult = new BenchmarkResult(ITEM_COUNT);
+
+        for (int i = 0; i < REPEAT; i++) {
+            beanPropertyResult.measure(beanProperty);
+            positionalResult.measure(positional);
+        }
+
+        log.info("[bind] {} items, BeanPropertyItemSqlParameterSourceProvider : {}", ITEM_COUNT, beanPropertyResult);
+        log.info("[bind] {} items, PositionalParameterBinder : {}", ITEM_COUNT, positionalResult);
+    }
+
+    @Test
+    void write() throws Exception {
+        JdbcBatchItemWriter<Person> beanPropertyWriter = new JdbcBatchItemWriterBuilder<Person>()
+                .dataSource(dataSource)
+                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
+                .sql(NAMED_SQL)
+                .build();
+        beanPropertyWriter.afterPropertiesSet();
+
+        JdbcBatchItemWriter<Person> positionalWriter = new JdbcBatchItemWriterBuilder<Person>()
+                .dataSource(dataSource)
+                .itemPreparedStatementSetter(PersonParameterBinders.PERSON)
+                .sql(PersonParameterBinders.PERSON.insertSql("person"))
+                .build();
+        positionalWriter.afterPropertiesSet();
+
+        List<Person> items = persons.subList(0, WRITE_ITEM_COUNT);
+
+        // warm up
+        writeAll(beanPropertyWriter, items);
+        writeAll(positionalWriter, items);
+
+        BenchmarkResult beanPropertyResult = new BenchmarkResult(WRITE_ITEM_COUNT);
+        BenchmarkResult positionalResult = new BenchmarkResult(WRITE_ITEM_COUNT);
+
+        for (int i = 0; i < REPEAT; i++) {
+            beanPropertyResult.measure(() -> writeAll(beanPropertyWriter, items));
+            positionalResult.measure(() -> writeAll(positionalWriter, items));
+        }
+
+        log.info("[write] {} items, BeanPropertyItemSqlParameterSourceProvider : {}", WRITE_ITEM_COUNT, beanPropertyResult);
+        log.info("[write] {} items, PositionalParameterBinder : {}", WRITE_ITEM_COUNT, positionalResult);
+    }
+
+    private void writeAll(ItemWriter<Person> itemWriter, List<Person> items) throws Exception {
+        jdbcTemplate.execute("truncate table person");
+
+        for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+            itemWriter.write(items.subList(from, Math.min(from + CHUNK_SIZE, items.size())));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cocoball.springbatchstudy;
+
+import cocoball.springbatchstudy.part3.Person;
+import cocoball.springbatchstudy.part3.PersonParameterBinders;
+import cocoball.springbatchstudy.part6.Level;
+import cocoball.springbatchstudy.part6.Orders;
+import cocoball.springbatchstudy.part6.User;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+class PositionalParameterBinderTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:positional_parameter_binder;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table person (id bigint primary key, name varchar(255), age varchar(255), address varchar(255))");
+        jdbcTemplate.execute("create table users (username varchar(255), level varchar(255), updated_date date)");
+        jdbcTemplate.execute("create table orders (item_name varchar(255), amount int, created_date date)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table person");
+        jdbcTemplate.execute("drop table users");
+        jdbcTemplate.execute("drop table orders");
+    }
+
+    @Test
+    void person_with_id() throws Exception {
+
+        // Given
+        AtomicLong sequence = new AtomicLong(100);
+        PositionalParameterBinder<Person> parameterBinder = PersonParameterBinders.withId(person -> sequence.incrementAndGet());
+
+        // When
+        write(parameterBinder, "person", Arrays.asList(
+                new Person("홍길동", "30", "서울"),
+                new Person("아무개", "25", "강원")));
+
+        // Then
+        Assertions.assertThat(parameterBinder.insertSql("person"))
+                .isEqualTo("insert into person(id, name, age, address) values (?, ?, ?, ?)");
+        Assertions.assertThat(jdbcTemplate.queryForList("select id from person order by id", Long.class))
+                .containsExactly(101L, 102L);
+        Assertions.assertThat(jdbcTemplate.queryForList("select concat(name, ',', age, ',', address) from person order by id", String.class))
+                .containsExactly("홍길동,30,서울", "아무개,25,강원");
+    }
+
+    @Test
+    void user_enum_and_null_date() throws Exception {
+
+        // Given
+        PositionalParameterBinder<User> parameterBinder = PositionalParameterBinder.<User>builder()
+                .stringColumn("username", User::getUsername)
+                .enumColumn("level", User::getLevel)
+                .dateColumn("updated_date", User::getUpdatedDate)
+                .build();
+
+        // When
+        write(parameterBinder, "users", Collections.singletonList(new User("test username", Collections.emptyList())));
+
+        // Then
+        Map<String, Object> user = jdbcTemplate.queryForMap("select username, level, updated_date from users");
+
+        Assertions.assertThat(user.get("USERNAME")).isEqualTo("test username");
+        Assertions.assertThat(user.get("LEVEL")).isEqualTo(Level.NORMAL.name());
+        Assertions.assertThat(user.get("UPDATED_DATE")).isNull();
+    }
+
+    @Test
+    void orders_int_and_date() throws Exception {
+
+        // Given
+        PositionalParameterBinder<Orders> parameterBinder = PositionalParameterBinder.<Orders>builder()
+                .stringColumn("item_name", Orders::getItemName)
+                .intColumn("amount", Orders::getAmount)
+                .dateColumn("created_date", Orders::getCreatedDate)
+                .build();
+
+        // When
+        write(parameterBinder, "orders", Collections.singletonList(Orders.builder()
+                .itemName("item")
+                .amount(200_000)
+                .createdDate(LocalDate.of(2020, 11, 2))
+                .build()));
+
+        // Then
+        Map<String, Object> orders = jdbcTemplate.queryForMap("select item_name, amount, created_date from orders");
+
+        Assertions.assertThat(orders.get("ITEM_NAME")).isEqualTo("item");
+        Assertions.assertThat(orders.get("AMOUNT")).isEqualTo(200_000);
+        Assertions.assertThat(orders.get("CREATED_DATE")).isEqualTo(Date.valueOf(LocalDate.of(2020, 11, 2)));
+    }
+
+    private <T> void write(PositionalParameterBinder<T> parameterBinder, String table, List<T> items) throws Exception {
+        JdbcBatchItemWriter<T> itemWriter = new JdbcBatchItemWriterBuilder<T>()
+                .dataSource(dataSource)
+                .itemPreparedStatementSetter(parameterBinder)
+                .sql(parameterBinder.insertSql(table))
+                .build();
+
+        itemWriter.afterPropertiesSet();
+        itemWriter.write(items);
+    }
+}
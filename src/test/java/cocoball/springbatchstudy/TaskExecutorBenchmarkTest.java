@@ -0,0 +1,122 @@
+package cocoball.springbatchstudy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * multiThreadUserJob(chunk 단위 작업), asyncUserJob(아이템 단위 작업)처럼 대부분의 시간을 JDBC 대기로 보내는 작업을
+ * 기존 스레드 풀과 virtual thread TaskExecutor로 각각 실행해서 처리량 비교
+ * (JDBC 대기 패턴만 흉내냄, 실제 step 처리량은 part6.UserLevelUpStepBenchmarkTest)
+ * ./gradlew test -Dbenchmark=true 로 실행했을 때만 동작 (virtual thread는 Java 21 이상에서만 측정됨)
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TaskExecutorBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskExecutorBenchmarkTest.class);
+
+    private static final int POOL_SIZE = 10;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:task_executor_benchmark;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void chunk_tasks() throws Exception {
+        // multiThreadUserJob : chunk 1개 = 작업 1개, 작업마다 여러 번의 쿼리
+        compare("chunk", 200, 20);
+    }
+
+    @Test
+    void item_tasks() throws Exception {
+        // asyncUserJob : 아이템 1개 = 작업 1개, 작업마다 쿼리 1번
+        compare("item", 4_000, 1);
+    }
+
+    private void compare(String name, int taskCount, int queriesPerTask) throws Exception {
+
+        double platform = throughput(platformTaskExecutor(), taskCount, queriesPerTask);
+        log.info("[{}] platform thread pool : {} tasks/s", name, String.format("%.1f", platform));
+
+        Optional<TaskExecutor> virtual = VirtualThreadTaskExecutorFactory.create("benchmark_vthread-", POOL_SIZE - 1);
+
+        if (virtual.isPresent()) {
+            double virtualThroughput = throughput(virtual.get(), taskCount, queriesPerTask);
+            log.info("[{}] virtual thread : {} tasks/s", name, String.format("%.1f", virtualThroughput));
+        } else {
+            log.info("[{}] virtual thread : 지원하지 않는 JVM", name);
+        }
+    }
+
+    private double throughput(TaskExecutor taskExecutor, int taskCount, int queriesPerTask) throws InterruptedException {
+
+        CountDownLatch latch = new CountDownLatch(taskCount);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < taskCount; i++) {
+            taskExecutor.execute(() -> {
+                try {
+                    for (int q = 0; q < queriesPerTask; q++) {
+                        query();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        Assertions.assertThat(latch.await(5, TimeUnit.MINUTES)).isTrue();
+
+        return taskCount / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    // 커넥션을 잡은 채로 쿼리 + 2ms 대기 (네트워크, DB 처리 시간 대신)
+    private void query() {
+        jdbcTemplate.execute((ConnectionCallback<Object>) connection -> {
+            connection.createStatement().execute("select 1");
+
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return null;
+        });
+    }
+
+    private TaskExecutor platformTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(10);
+        taskExecutor.setMaxPoolSize(20);
+        taskExecutor.setThreadNamePrefix("benchmark_thread-");
+        taskExecutor.initialize();
+
+        return taskExecutor;
+    }
+}
@@ -0,0 +1,95 @@
+package cocoball.springbatchstudy.part3;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class CustomItemReaderTest {
+
+    private final List<Integer> items = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+    @Test
+    void restart_from_saved_index() throws Exception {
+        assertRestart(new CustomItemReader<>(items), new CustomItemReader<>(items));
+    }
+
+    @Test
+    void iterator_restart_skips_read_items() throws Exception {
+        assertRestart(new CustomIteratorItemReader<>(items::iterator),
+                CustomIteratorItemReader.fromSpliterator(() -> IntStream.range(0, 100).boxed().spliterator()));
+    }
+
+    @Test
+    void concurrent_reads_each_item_once() throws Exception {
+
+        // Given
+        List<Integer> many = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+        CustomItemReader<Integer> itemReader = new CustomItemReader<>(many, true);
+        itemReader.open(new ExecutionContext());
+
+        ConcurrentLinkedQueue<Integer> read = new ConcurrentLinkedQueue<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        // When
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+                futures.add(executorService.submit(() -> {
+                    Integer item;
+                    while ((item = itemReader.read()) != null) {
+                        read.add(item);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        // Then
+        List<Integer> sorted = new ArrayList<>(read);
+        Collections.sort(sorted);
+
+        Assertions.assertThat(sorted).isEqualTo(many);
+    }
+
+    // 30건 읽고 위치 저장 후 중단, 같은 ExecutionContext로 새 reader를 열면 31번째부터 읽음
+    private void assertRestart(ItemStreamReader<Integer> itemReader, ItemStreamReader<Integer> restartedItemReader) throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        itemReader.open(executionContext);
+
+        for (int i = 0; i < 30; i++) {
+            itemReader.read();
+        }
+
+        itemReader.update(executionContext);
+        itemReader.close();
+
+        restartedItemReader.open(executionContext);
+
+        List<Integer> read = new ArrayList<>();
+        Integer item;
+        while ((item = restartedItemReader.read()) != null) {
+            read.add(item);
+        }
+
+        restartedItemReader.close();
+
+        Assertions.assertThat(read).isEqualTo(items.subList(30, 100));
+    }
+}
@@ -0,0 +1,172 @@
+package cocoball.springbatchstudy.part3;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+class DuplicateValidationProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void key_pools_match_hash_set() {
+        assertSameAsHashSet(() -> new OffHeapKeyPool(16)); // segment가 늘어나는 경우
+        assertSameAsHashSet(() -> new SpillingKeyPool(tempDir, 1_000, 3)); // run 파일 기록, 병합
+        assertSameAsHashSet(() -> new BloomFilterKeyPool(new SpillingKeyPool(tempDir, 1_000), 10_000, 0.01));
+    }
+
+    @Test
+    void off_heap_key_pool_remove() {
+
+        // Given : 작은 table에 key를 채워서 같은 slot을 두고 충돌하도록 함
+        OffHeapKeyPool keyPool = new OffHeapKeyPool(16);
+        List<Long> keys = new ArrayList<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 10; i++) {
+            long key = random.nextLong() & ~0xFL | (i % 2); // 하위 bit를 겹치게 만듦
+            keys.add(key);
+            keyPool.add(key);
+        }
+
+        // When
+        for (int i = 0; i < keys.size(); i += 2) {
+            keyPool.remove(keys.get(i));
+        }
+
+        // Then
+        for (int i = 0; i < keys.size(); i++) {
+            Assertions.assertThat(keyPool.contains(keys.get(i))).isEqualTo(i % 2 == 1);
+        }
+        Assertions.assertThat(keyPool.size()).isEqualTo(5);
+    }
+
+    @Test
+    void rolled_back_keys_are_not_duplicates() throws Exception {
+
+        // Given
+        DuplicateValidationProcessor<String> processor = DuplicateValidationProcessor.<String>builder()
+                .keyExtractor(item -> item)
+                .build();
+        processor.open(new ExecutionContext());
+
+        // When : 1번째 chunk 롤백 후 같은 item으로 다시 처리, chunk 안의 중복은 commit 전에도 걸러짐
+        List<String> rolledBack = processChunk(processor, Arrays.asList("a", "b", "a"), false, null);
+        List<String> retried = processChunk(processor, Arrays.asList("a", "b", "c"), true, null);
+        List<String> next = processChunk(processor, Arrays.asList("c", "d"), true, null);
+
+        // Then
+        Assertions.assertThat(rolledBack).containsExactly("a", "b");
+        Assertions.assertThat(retried).containsExactly("a", "b", "c");
+        Assertions.assertThat(next).containsExactly("d");
+    }
+
+    @Test
+    void restart_keeps_committed_keys() throws Exception {
+
+        // Given : 1번째 chunk commit, 2번째 chunk 처리 중 중단 (update는 됐지만 commit 되지 않음)
+        Path checkpointFile = tempDir.resolve("keys/name.keys");
+        ExecutionContext executionContext = new ExecutionContext();
+
+        DuplicateValidationProcessor<String> processor = checkpointProcessor(checkpointFile);
+        processor.open(executionContext);
+        processChunk(processor, Arrays.asList("a", "b"), true, executionContext);
+        processChunk(processor, Arrays.asList("c"), false, null);
+        processor.close();
+
+        // When
+        DuplicateValidationProcessor<String> restarted = checkpointProcessor(checkpointFile);
+        restarted.open(executionContext);
+        List<String> processed = processChunk(restarted, Arrays.asList("a", "c", "b", "d"), true, executionContext);
+        restarted.close();
+
+        // Then : commit 된 a, b만 중복으로 걸러짐
+        Assertions.assertThat(processed).containsExactly("c", "d");
+        Assertions.assertThat(executionContext.getLong("duplicateValidationProcessor.position")).isEqualTo(4 * Long.BYTES);
+    }
+
+    private DuplicateValidationProcessor<String> checkpointProcessor(Path checkpointFile) {
+        return DuplicateValidationProcessor.<String>builder()
+                .keyExtractor(item -> item)
+                .keyPool(() -> new BloomFilterKeyPool(new SpillingKeyPool(tempDir.resolve("spill"), 2), 100, 0.01))
+                .checkpointFile(checkpointFile)
+                .build();
+    }
+
+    // chunk 트랜잭션처럼 process 후 update, commit 직전 / 완료 시점의 TransactionSynchronization을 직접 호출
+    private List<String> processChunk(DuplicateValidationProcessor<String> processor,
+                                      List<String> items,
+                                      boolean commit,
+                                      ExecutionContext executionContext) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            List<String> processed = new ArrayList<>();
+
+            for (String item : items) {
+                String result = processor.process(item);
+
+                if (result != null) {
+                    processed.add(result);
+                }
+            }
+
+            if (executionContext != null) {
+                processor.update(executionContext);
+            }
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+            if (commit) {
+                synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            }
+
+            int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+
+            return processed;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void assertSameAsHashSet(Supplier<DuplicateKeyPool> keyPoolFactory) {
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(7);
+
+        try (DuplicateKeyPool keyPool = keyPoolFactory.get()) {
+            for (int i = 0; i < 20_000; i++) {
+                long fingerprint = i % 1_000 == 0 ? 0 : DuplicateKeyPool.fingerprint("key" + random.nextInt(10_000));
+
+                Assertions.assertThat(keyPool.contains(fingerprint)).isEqualTo(expected.contains(fingerprint));
+
+                if (expected.add(fingerprint)) {
+                    keyPool.add(fingerprint);
+                }
+            }
+
+            Assertions.assertThat(keyPool.size()).isEqualTo(expected.size());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package cocoball.springbatchstudy.part3;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class PersonIdSequenceInitializerTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:person_id_seq;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // ddl-auto: update가 MySQL에서 만드는 것과 같은 구조 (새로 만들어진 sequence 테이블은 1부터 시작)
+        jdbcTemplate.execute("create table person (id bigint primary key, name varchar(255), age varchar(255), address varchar(255))");
+        jdbcTemplate.execute("create table person_id_seq (next_val bigint)");
+        jdbcTemplate.execute("insert into person_id_seq values (1)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table person_id_seq");
+        jdbcTemplate.execute("drop table person");
+    }
+
+    @Test
+    void move_sequence_after_existing_ids() {
+
+        // Given : IDENTITY로 저장된 기존 person
+        for (int id = 1; id <= 250; id++) {
+            jdbcTemplate.update("insert into person(id, name) values (?, ?)", id, "person" + id);
+        }
+
+        // When
+        new PersonIdSequenceInitializer(dataSource).afterPropertiesSet();
+
+        // Then
+        Assertions.assertThat(nextVal()).isEqualTo(250L + Person.ID_ALLOCATION_SIZE + 1);
+    }
+
+    @Test
+    void keep_sequence_already_ahead() {
+
+        // Given
+        jdbcTemplate.update("insert into person(id, name) values (1, 'person1')");
+        jdbcTemplate.update("update person_id_seq set next_val = 10000");
+
+        // When
+        new PersonIdSequenceInitializer(dataSource).afterPropertiesSet();
+
+        // Then
+        Assertions.assertThat(nextVal()).isEqualTo(10_000L);
+    }
+
+    private Long nextVal() {
+        return jdbcTemplate.queryForObject("select next_val from person_id_seq", Long.class);
+    }
+}
@@ -0,0 +1,120 @@
+package cocoball.springbatchstudy.part3;
+
+import cocoball.springbatchstudy.BenchmarkResult;
+import cocoball.springbatchstudy.MappedCsvItemReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * person csv 라인 변환의 item 당 할당량(byte)과 처리 시간 비교
+ * - DefaultLineMapper + DelimitedLineTokenizer + FieldSetMapper (기존 방식, 라인 String은 미리 만들어 둠)
+ * - PersonLineMapper (FlatFileItemReader에 LineMapper로 사용하는 경우, 라인 String은 미리 만들어 둠)
+ * - MappedCsvItemReader + PersonLineMapper (라인 String 없이 파일에서 바로 읽음)
+ * Person 1개와 컬럼 String 3개는 모든 방식에서 공통으로 할당됨
+ * ./gradlew test -Dbenchmark=true 로 실행했을 때만 동작
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PersonLineMapperBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PersonLineMapperBenchmarkTest.class);
+
+    private static final int ITEM_COUNT = 1_000_000;
+    private static final int REPEAT = 5;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void person() throws Exception {
+
+        List<String> lines = new ArrayList<>(ITEM_COUNT);
+        for (int i = 1; i <= ITEM_COUNT; i++) {
+            lines.add(i + ",test name" + i + "," + i % 100 + ",서울");
+        }
+
+        Path file = tempDir.resolve("person.csv");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
+        tokenizer.setNames("id", "name", "age", "address");
+
+        DefaultLineMapper<Person> defaultLineMapper = new DefaultLineMapper<>();
+        defaultLineMapper.setLineTokenizer(tokenizer);
+        defaultLineMapper.setFieldSetMapper(fieldSet -> new Person(
+                fieldSet.readInt("id"), fieldSet.readString("name"), fieldSet.readString("age"), fieldSet.readString("address")));
+
+        PersonLineMapper personLineMapper = new PersonLineMapper("id", "name", "age", "address");
+
+        // warm up
+        for (int i = 0; i < 2; i++) {
+            mapLines(defaultLineMapper, lines);
+            mapLines(personLineMapper, lines);
+            readFile(personLineMapper, file);
+        }
+
+        BenchmarkResult defaultResult = new BenchmarkResult(ITEM_COUNT);
+        BenchmarkResult personResult = new BenchmarkResult(ITEM_COUNT);
+        BenchmarkResult mappedResult = new BenchmarkResult(ITEM_COUNT);
+
+        for (int i = 0; i < REPEAT; i++) {
+            defaultResult.measure(() -> check(mapLines(defaultLineMapper, lines)));
+            personResult.measure(() -> check(mapLines(personLineMapper, lines)));
+            mappedResult.measure(() -> check(readFile(personLineMapper, file)));
+        }
+
+        log.info("[person] {} items, DefaultLineMapper : {}", ITEM_COUNT, defaultResult);
+        log.info("[person] {} items, PersonLineMapper : {}", ITEM_COUNT, personResult);
+        log.info("[person] {} items, MappedCsvItemReader + PersonLineMapper : {}", ITEM_COUNT, mappedResult);
+    }
+
+    private long mapLines(LineMapper<Person> lineMapper, List<String> lines) throws Exception {
+        long sum = 0;
+
+        for (int i = 0; i < lines.size(); i++) {
+            sum += lineMapper.mapLine(lines.get(i), i + 1).getId();
+        }
+
+        return sum;
+    }
+
+    private long readFile(PersonLineMapper lineMapper, Path file) throws Exception {
+        MappedCsvItemReader<Person> itemReader = MappedCsvItemReader.<Person>builder()
+                .name("personReader")
+                .resource(new FileSystemResource(file.toFile()))
+                .lineMapper(lineMapper)
+                .build();
+
+        long sum = 0;
+        itemReader.open(new ExecutionContext());
+
+        Person person;
+        while ((person = itemReader.read()) != null) {
+            sum += person.getId();
+        }
+
+        itemReader.close();
+
+        return sum;
+    }
+
+    // 모든 방식이 같은 Person을 만들었는지 확인 (id 1 ~ ITEM_COUNT의 합)
+    private void check(long sum) {
+        if (sum != (long) ITEM_COUNT * (ITEM_COUNT + 1) / 2) {
+            throw new IllegalStateException("변환 결과가 다름 : " + sum);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package cocoball.springbatchstudy.part3;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.IncorrectTokenCountException;
+
+class PersonLineMapperTest {
+
+    @Test
+    void map_same_as_delimited_line_tokenizer() throws Exception {
+
+        // Given
+        DefaultLineMapper<Person> defaultLineMapper = defaultLineMapper();
+        PersonLineMapper personLineMapper = new PersonLineMapper("id", "name", "age", "address");
+
+        String[] lines = {
+                "1,이경원,32,인천",
+                " 2 , 홍길동 ,30, 서울 ",
+                "3,\"홍, \"\"길동\"\"\",31,\"부산\"",
+                "4,,,"
+        };
+
+        // When, Then
+        for (int i = 0; i < lines.length; i++) {
+            Person expected = defaultLineMapper.mapLine(lines[i], i + 1);
+            Person actual = personLineMapper.mapLine(lines[i], i + 1);
+
+            Assertions.assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void map_without_id_column() {
+
+        // Given
+        PersonLineMapper personLineMapper = new PersonLineMapper("name", "age", "address");
+
+        // When
+        Person person = personLineMapper.map("홍길동,30,서울");
+
+        // Then
+        Assertions.assertThat(person).usingRecursiveComparison().isEqualTo(new Person("홍길동", "30", "서울"));
+    }
+
+    @Test
+    void reject_incorrect_token_count() {
+
+        PersonLineMapper personLineMapper = new PersonLineMapper("id", "name", "age", "address");
+
+        Assertions.assertThatThrownBy(() -> personLineMapper.map("1,홍길동,30"))
+                .isInstanceOf(IncorrectTokenCountException.class);
+        Assertions.assertThatThrownBy(() -> personLineMapper.map("1,홍길동,30,서울,부산"))
+                .isInstanceOf(IncorrectTokenCountException.class);
+        Assertions.assertThatThrownBy(() -> personLineMapper.map("a,홍길동,30,서울"))
+                .isInstanceOf(NumberFormatException.class);
+    }
+
+    // 기존 ItemReaderConfiguration의 csv LineMapper
+    private DefaultLineMapper<Person> defaultLineMapper() {
+        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
+        tokenizer.setNames("id", "name", "age", "address");
+
+        DefaultLineMapper<Person> lineMapper = new DefaultLineMapper<>();
+        lineMapper.setLineTokenizer(tokenizer);
+        lineMapper.setFieldSetMapper(fieldSet -> new Person(
+                fieldSet.readInt("id"), fieldSet.readString("name"), fieldSet.readString("age"), fieldSet.readString("address")));
+
+        return lineMapper;
+    }
+}
@@ -0,0 +1,65 @@
+package cocoball.springbatchstudy.part3;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PersonValidationRetryProcessorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void retry_deterministic_failure_until_exhausted() throws Exception {
+
+        // When
+        Person person = new PersonValidationRetryProcessor().process(new Person("", "30", "서울"));
+
+        // Then : 3번 실패 후 recovery
+        Assertions.assertThat(person.getName()).isEqualTo("UNKNOWN");
+        Assertions.assertThat(count("spring.batch.person.validation.failure", null)).isEqualTo(3);
+        Assertions.assertThat(count("spring.batch.person.validation.recovery", "exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void classified_permanent_failure_goes_straight_to_recovery() throws Exception {
+
+        // Given
+        PersonValidationRetryProcessor processor = new PersonValidationRetryProcessor(true, true);
+
+        // When
+        Person unknown = processor.process(new Person("", "30", "서울"));
+        Person valid = processor.process(new Person("홍길동", "30", "서울"));
+
+        // Then : 한 번만 실패하고 바로 recovery
+        Assertions.assertThat(unknown.getName()).isEqualTo("UNKNOWN");
+        Assertions.assertThat(valid.getName()).isEqualTo("홍길동");
+        Assertions.assertThat(count("spring.batch.person.validation.failure", null)).isEqualTo(1);
+        Assertions.assertThat(count("spring.batch.person.validation.recovery", "permanent")).isEqualTo(1);
+    }
+
+    @Test
+    void stackless_exception() {
+        Assertions.assertThat(new NotFoundNameException(false).getStackTrace()).isEmpty();
+        Assertions.assertThat(new NotFoundNameException().getStackTrace()).isNotEmpty();
+    }
+
+    // 다른 테스트에서 증가한 값이 있을 수 있으므로 이 테스트에서 추가한 registry 기준으로 확인
+    private double count(String name, String classification) {
+        return classification == null
+                ? meterRegistry.get(name).counter().count()
+                : meterRegistry.get(name).tag("classification", classification).counter().count();
+    }
+}
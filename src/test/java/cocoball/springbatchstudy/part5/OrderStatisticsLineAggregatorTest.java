@@ -0,0 +1,63 @@
+package cocoball.springbatchstudy.part5;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+class OrderStatisticsLineAggregatorTest {
+
+    private final OrderStatisticsLineAggregator aggregator = new OrderStatisticsLineAggregator();
+
+    @Test
+    void aggregate() {
+
+        // Given
+        OrderStatistics orderStatistics = OrderStatistics.builder()
+                .amount(3_000_000_000L) // int 범위를 넘는 합계
+                .epochDay(LocalDate.of(2020, 11, 1).toEpochDay())
+                .build();
+
+        // When
+        String line = aggregator.aggregate(orderStatistics);
+
+        // Then
+        Assertions.assertThat(line).isEqualTo("3000000000,2020-11-01");
+    }
+
+    @Test
+    void aggregate_reuses_buffer() {
+        Assertions.assertThat(aggregator.aggregate(statistics(123_456, LocalDate.of(2020, 12, 31)))).isEqualTo("123456,2020-12-31");
+        Assertions.assertThat(aggregator.aggregate(statistics(7, LocalDate.of(2021, 1, 1)))).isEqualTo("7,2021-01-01");
+    }
+
+    // 윤일, 연도 / 세기 경계, epoch 이전 날짜도 LocalDate.toString()과 같은 형식
+    @Test
+    void same_format_as_local_date() {
+        LocalDate[] dates = {
+                LocalDate.of(1970, 1, 1),
+                LocalDate.of(1969, 12, 31),
+                LocalDate.of(2000, 2, 29),
+                LocalDate.of(2024, 2, 29),
+                LocalDate.of(2100, 3, 1),
+                LocalDate.of(1000, 1, 1),
+                LocalDate.of(9999, 12, 31),
+                LocalDate.of(999, 12, 31), // 4자리가 아닌 연도
+                LocalDate.of(10_000, 1, 1)
+        };
+
+        for (LocalDate date : dates) {
+            StringBuilder sb = new StringBuilder();
+            OrderStatisticsLineAggregator.appendIsoDate(sb, date.toEpochDay());
+
+            Assertions.assertThat(sb.toString()).isEqualTo(date.toString());
+        }
+    }
+
+    private OrderStatistics statistics(long amount, LocalDate date) {
+        return OrderStatistics.builder()
+                .amount(amount)
+                .epochDay(date.toEpochDay())
+                .build();
+    }
+}
@@ -0,0 +1,225 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class DailyOrderAmountRollupTaskletTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DailyOrderAmountRollupTasklet tasklet;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:daily_order_amount;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table orders (id bigint auto_increment primary key, item_name varchar(255), amount int, created_date date, user_id bigint)");
+        jdbcTemplate.execute("create table daily_order_amount (date date primary key, total_amount bigint not null, order_count bigint not null)");
+        jdbcTemplate.execute("create table rollup_watermark (name varchar(255) primary key, last_order_id bigint not null)");
+
+        tasklet = new DailyOrderAmountRollupTasklet(dataSource, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table rollup_watermark");
+        jdbcTemplate.execute("drop table daily_order_amount");
+        jdbcTemplate.execute("drop table orders");
+    }
+
+    @Test
+    void rollup_only_new_orders() throws Exception {
+
+        // Given
+        insertOrder(1_000, "2020-11-01");
+        insertOrder(2_000, "2020-11-01");
+        insertOrder(3_000, "2020-11-02");
+        run();
+
+        // When : 이미 반영된 주문은 다시 집계하지 않음
+        insertOrder(4_000, "2020-11-02");
+        insertOrder(5_000, "2020-11-03");
+        int executeCount = run();
+
+        // Then
+        Assertions.assertThat(executeCount).isEqualTo(1);
+        Assertions.assertThat(totalAmount("2020-11-01")).isEqualTo(3_000L);
+        Assertions.assertThat(totalAmount("2020-11-02")).isEqualTo(7_000L);
+        Assertions.assertThat(totalAmount("2020-11-03")).isEqualTo(5_000L);
+        Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select order_count from daily_order_amount where date = '2020-11-02'", Long.class)).isEqualTo(2L);
+    }
+
+    @Test
+    void nothing_to_rollup() throws Exception {
+        Assertions.assertThat(run()).isEqualTo(1);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from daily_order_amount", Integer.class)).isZero();
+    }
+
+    @Test
+    void rebuild_after_reset() throws Exception {
+
+        // Given : 반영된 이후 주문 금액이 수정됨 (watermark 이전 id라 증분 반영 대상이 아님)
+        insertOrder(1_000, "2020-11-01");
+        insertOrder(2_000, "2020-11-02");
+        run();
+        jdbcTemplate.update("update orders set amount = 10000 where created_date = '2020-11-01'");
+
+        // When
+        tasklet.reset();
+        run();
+
+        // Then
+        Assertions.assertThat(totalAmount("2020-11-01")).isEqualTo(10_000L);
+        Assertions.assertThat(totalAmount("2020-11-02")).isEqualTo(2_000L);
+    }
+
+    // 늦게 commit 된 작은 id : 이미 지나간 범위라서 반영되지 않으므로 다음 실행에서 실패 (rebuild 필요)
+    @Test
+    void fail_when_order_committed_behind_watermark() throws Exception {
+
+        // Given : id 3이 commit 되기 전에 4까지 반영
+        insertOrder(1L, 1_000, "2020-11-01");
+        insertOrder(2L, 2_000, "2020-11-01");
+        insertOrder(4L, 4_000, "2020-11-02");
+        run();
+
+        insertOrder(3L, 3_000, "2020-11-01");
+
+        // When, Then
+        Assertions.assertThatThrownBy(this::run)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("dailyOrderAmountRebuildJob");
+
+        tasklet.reset();
+        run();
+        Assertions.assertThat(totalAmount("2020-11-01")).isEqualTo(6_000L);
+    }
+
+    // 같은 watermark를 읽은 두 실행이 같은 범위를 중복 반영하지 않음 (select ... for update)
+    @Test
+    void concurrent_rollup_counts_each_order_once() throws Exception {
+
+        // Given
+        run(); // watermark row 생성
+
+        for (int i = 0; i < 200; i++) {
+            insertOrder(i + 1, "2020-11-01");
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        // When : step처럼 execute 한 번이 하나의 트랜잭션
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            futures.add(executorService.submit(() -> {
+                StepContribution contribution = MetaDataInstanceFactory.createStepExecution().createStepContribution();
+                int executeCount = 0;
+                RepeatStatus status;
+
+                do {
+                    status = transactionTemplate.execute(transaction -> {
+                        try {
+                            return tasklet.execute(contribution, null);
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                    executeCount++;
+                } while (status.isContinuable());
+
+                return executeCount;
+            }));
+        }
+
+        for (Future<Integer> future : futures) {
+            future.get();
+        }
+
+        executorService.shutdown();
+
+        // Then
+        Assertions.assertThat(jdbcTemplate.queryForObject("select order_count from daily_order_amount", Long.class)).isEqualTo(200L);
+        Assertions.assertThat(totalAmount("2020-11-01")).isEqualTo(200L * 201 / 2);
+    }
+
+    @Test
+    void read_order_statistics_from_rollup() throws Exception {
+
+        // Given
+        insertOrder(1_000, "2020-10-31");
+        insertOrder(2_000, "2020-11-01");
+        insertOrder(3_000, "2020-11-01");
+        insertOrder(4_000, "2020-11-30");
+        run();
+
+        OrderStatisticsItemReader itemReader = OrderStatisticsItemReader.fromDailyOrderAmount(
+                "reader", dataSource, LocalDate.of(2020, 11, 1), LocalDate.of(2020, 11, 30));
+
+        // When
+        List<OrderStatistics> items = new ArrayList<>();
+        itemReader.open(new ExecutionContext());
+
+        OrderStatistics item;
+        while ((item = itemReader.read()) != null) {
+            items.add(item);
+        }
+
+        itemReader.close();
+
+        // Then
+        Assertions.assertThat(items).extracting(OrderStatistics::getDate)
+                .containsExactly(LocalDate.of(2020, 11, 1), LocalDate.of(2020, 11, 30));
+        Assertions.assertThat(items).extracting(OrderStatistics::getAmount)
+                .containsExactly(5_000L, 4_000L);
+    }
+
+    // step처럼 FINISHED가 될 때까지 반복 실행하고 실행 횟수를 반환
+    private int run() throws Exception {
+        StepContribution contribution = MetaDataInstanceFactory.createStepExecution().createStepContribution();
+
+        int executeCount = 0;
+        RepeatStatus status;
+
+        do {
+            status = tasklet.execute(contribution, null);
+            executeCount++;
+        } while (status.isContinuable());
+
+        return executeCount;
+    }
+
+    private Long totalAmount(String date) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("select total_amount from daily_order_amount where date = ?", date);
+        return rows.isEmpty() ? null : ((Number) rows.get(0).get("total_amount")).longValue();
+    }
+
+    private void insertOrder(int amount, String createdDate) {
+        jdbcTemplate.update("insert into orders(item_name, amount, created_date) values ('item', ?, ?)", amount, createdDate);
+    }
+
+    private void insertOrder(long id, int amount, String createdDate) {
+        jdbcTemplate.update("insert into orders(id, item_name, amount, created_date) values (?, 'item', ?, ?)", id, amount, createdDate);
+    }
+}
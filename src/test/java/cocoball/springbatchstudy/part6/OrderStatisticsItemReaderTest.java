@@ -0,0 +1,98 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+class OrderStatisticsItemReaderTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2020, 11, 1);
+    private static final LocalDate END_DATE = LocalDate.of(2020, 11, 30);
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:order_statistics;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table daily_order_amount (date date primary key, total_amount bigint not null, order_count bigint not null)");
+
+        // 11월 1일 ~ 3일 (입력 순서와 무관하게 날짜 순), 범위 밖 10월 31일, 12월 1일
+        insertDailyOrderAmount("2020-11-02", 7_000);
+        insertDailyOrderAmount("2020-11-01", 3_000);
+        insertDailyOrderAmount("2020-11-03", 11_000);
+        insertDailyOrderAmount("2020-10-31", 100_000);
+        insertDailyOrderAmount("2020-12-01", 100_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table daily_order_amount");
+    }
+
+    @Test
+    void read_daily_amount_in_date_order() throws Exception {
+
+        // Given
+        OrderStatisticsItemReader itemReader = OrderStatisticsItemReader.fromDailyOrderAmount("reader", dataSource, START_DATE, END_DATE);
+
+        // When
+        itemReader.open(new ExecutionContext());
+        List<OrderStatistics> items = readAll(itemReader);
+        itemReader.close();
+
+        // Then
+        Assertions.assertThat(items).extracting(OrderStatistics::getDate)
+                .containsExactly(LocalDate.of(2020, 11, 1), LocalDate.of(2020, 11, 2), LocalDate.of(2020, 11, 3));
+        Assertions.assertThat(items).extracting(OrderStatistics::getAmount)
+                .containsExactly(3_000L, 7_000L, 11_000L);
+    }
+
+    @Test
+    void restart_after_last_read_date() throws Exception {
+
+        // Given : 첫 번째 실행에서 1건 읽고 중단
+        ExecutionContext executionContext = new ExecutionContext();
+
+        OrderStatisticsItemReader itemReader = OrderStatisticsItemReader.fromDailyOrderAmount("reader", dataSource, START_DATE, END_DATE);
+        itemReader.open(executionContext);
+        itemReader.read();
+        itemReader.update(executionContext);
+        itemReader.close();
+
+        // When
+        OrderStatisticsItemReader restartedItemReader = OrderStatisticsItemReader.fromDailyOrderAmount("reader", dataSource, START_DATE, END_DATE);
+        restartedItemReader.open(executionContext);
+        List<OrderStatistics> items = readAll(restartedItemReader);
+        restartedItemReader.close();
+
+        // Then
+        Assertions.assertThat(items).extracting(OrderStatistics::getDate)
+                .containsExactly(LocalDate.of(2020, 11, 2), LocalDate.of(2020, 11, 3));
+    }
+
+    private List<OrderStatistics> readAll(OrderStatisticsItemReader itemReader) throws Exception {
+        List<OrderStatistics> items = new ArrayList<>();
+
+        OrderStatistics item;
+        while ((item = itemReader.read()) != null) {
+            items.add(item);
+        }
+
+        return items;
+    }
+
+    private void insertDailyOrderAmount(String date, long totalAmount) {
+        jdbcTemplate.update("insert into daily_order_amount(date, total_amount, order_count) values (?, ?, 1)", date, totalAmount);
+    }
+}
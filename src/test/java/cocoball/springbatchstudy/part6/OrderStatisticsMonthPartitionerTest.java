@@ -0,0 +1,31 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+class OrderStatisticsMonthPartitionerTest {
+
+    @Test
+    void partition_per_month() {
+
+        // Given
+        OrderStatisticsMonthPartitioner partitioner = new OrderStatisticsMonthPartitioner(YearMonth.of(2020, 11), YearMonth.of(2021, 2));
+
+        // When
+        Map<String, ExecutionContext> partitions = partitioner.partition(1);
+
+        // Then : 연도가 바뀌어도 한 달에 파티션 하나
+        Assertions.assertThat(partitions).containsOnlyKeys("month2020-11", "month2020-12", "month2021-01", "month2021-02");
+        Assertions.assertThat(partitions.get("month2021-01").getString(OrderStatisticsMonthPartitioner.MONTH_KEY)).isEqualTo("2021-01");
+    }
+
+    @Test
+    void from_after_to() {
+        Assertions.assertThatThrownBy(() -> new OrderStatisticsMonthPartitioner(YearMonth.of(2021, 1), YearMonth.of(2020, 12)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,54 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
+
+class OrderStatisticsRangeConfigurationTest {
+
+    private final JobParametersValidator validator = new OrderStatisticsRangeConfiguration(null, null, null, null).jobParametersValidator();
+
+    @Test
+    void csv_with_gzip() {
+        Assertions.assertThatCode(() -> validator.validate(parameters(null, "gzip"))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void columnar_without_compression() {
+        Assertions.assertThatCode(() -> validator.validate(parameters("columnar", null))).doesNotThrowAnyException();
+        Assertions.assertThatCode(() -> validator.validate(parameters("columnar", "none"))).doesNotThrowAnyException();
+    }
+
+    // columnar 파일은 압축하지 않으므로 compression=gzip을 무시하지 않고 job 시작 전에 거부
+    @Test
+    void reject_columnar_with_gzip() {
+        Assertions.assertThatThrownBy(() -> validator.validate(parameters("columnar", "gzip")))
+                .isInstanceOf(JobParametersInvalidException.class)
+                .hasMessageContaining("compression=gzip");
+    }
+
+    @Test
+    void require_from_and_to() {
+        Assertions.assertThatThrownBy(() -> validator.validate(new JobParametersBuilder().addString("from", "2020-01").toJobParameters()))
+                .isInstanceOf(JobParametersInvalidException.class);
+    }
+
+    private JobParameters parameters(String format, String compression) {
+        JobParametersBuilder builder = new JobParametersBuilder()
+                .addString("from", "2020-01")
+                .addString("to", "2020-12");
+
+        if (format != null) {
+            builder.addString("format", format);
+        }
+
+        if (compression != null) {
+            builder.addString("compression", compression);
+        }
+
+        return builder.toJobParameters();
+    }
+}
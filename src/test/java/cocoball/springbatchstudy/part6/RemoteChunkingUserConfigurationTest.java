@@ -0,0 +1,85 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.integration.channel.AbstractMessageChannel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// RemoteChunkingUserConfiguration을 in-memory 채널(ExecutorChannel, QueueChannel) 그대로 띄워서 manager -> worker -> ack 흐름 확인
+class RemoteChunkingUserConfigurationTest {
+
+    private static final String JOB_NAME = "remoteChunkingUserJob";
+    private static final String MANAGER_STEP = JOB_NAME + "_userLevelUpStep.manager";
+    private static final int USER_COUNT = 10_000; // chunk 1,000건 x 10
+    private static final int MAX_IN_FLIGHT_CHUNKS = 3;
+
+    @Test
+    void level_up_each_user_once() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(UserJobTestConfiguration.class, RemoteChunkingUserConfiguration.class)
+                .run(context -> {
+
+                    // Given : 응답을 받지 못한 chunk 수를 requests(전송) / replies(ack) 채널에서 측정
+                    AtomicInteger inFlight = new AtomicInteger();
+                    AtomicInteger maxInFlight = new AtomicInteger();
+
+                    context.getBean(JOB_NAME + "_requests", AbstractMessageChannel.class).addInterceptor(new ChannelInterceptor() {
+                        @Override
+                        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                            return message;
+                        }
+                    });
+                    context.getBean(JOB_NAME + "_replies", AbstractMessageChannel.class).addInterceptor(new ChannelInterceptor() {
+                        @Override
+                        public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
+                            inFlight.decrementAndGet();
+                        }
+                    });
+
+                    // When : saveUserStep(bulk load) -> manager step
+                    JobExecution jobExecution = context.getBean(JobLauncher.class).run(context.getBean(JOB_NAME, Job.class),
+                            new JobParametersBuilder()
+                                    .addLong(UserBulkLoadTasklet.USER_COUNT_PARAMETER, (long) USER_COUNT)
+                                    .addLong("maxInFlightChunks", (long) MAX_IN_FLIGHT_CHUNKS)
+                                    .toJobParameters());
+
+                    // Then
+                    JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+                    int levelUpCount = jdbcTemplate.queryForObject("select count(*) from orders where amount >= 200000", Integer.class);
+
+                    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+                    Assertions.assertThat(levelUpCount).isPositive().isLessThan(USER_COUNT);
+                    Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from user where level <> 'NORMAL'", Integer.class))
+                            .isEqualTo(levelUpCount);
+                    Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from user where level <> 'NORMAL' and updated_date is null", Integer.class))
+                            .isZero();
+
+                    // worker의 처리 결과(ack)가 manager StepExecution에 합산됨 : 중복 / 누락 처리된 chunk 없음
+                    Assertions.assertThat(jobExecution.getStepExecutions())
+                            .filteredOn(stepExecution -> stepExecution.getStepName().equals(MANAGER_STEP))
+                            .singleElement()
+                            .satisfies(stepExecution -> {
+                                Assertions.assertThat(stepExecution.getReadCount()).isEqualTo(USER_COUNT);
+                                Assertions.assertThat(stepExecution.getWriteCount()).isEqualTo(levelUpCount);
+                                Assertions.assertThat(stepExecution.getFilterCount()).isEqualTo(USER_COUNT - levelUpCount);
+                            });
+
+                    // 응답 대기 중인 chunk는 maxInFlightChunks를 넘지 않고, 모든 chunk의 ack를 받음
+                    Assertions.assertThat(maxInFlight.get()).isBetween(1, MAX_IN_FLIGHT_CHUNKS);
+                    Assertions.assertThat(inFlight.get()).isZero();
+                });
+    }
+}
@@ -0,0 +1,135 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.integration.channel.AbstractMessageChannel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// RemotePartitionUserConfiguration을 in-memory 채널(ExecutorChannel) 그대로 띄워서 manager -> worker -> reply 흐름 확인
+class RemotePartitionUserConfigurationTest {
+
+    private static final String JOB_NAME = "remotePartitionUserJob";
+    private static final String MANAGER_STEP = JOB_NAME + "_userLevelUpStep.manager";
+    private static final String WORKER_STEP = JOB_NAME + "_userLevelUpStep";
+    private static final int USER_COUNT = 40;
+    private static final int GRID_SIZE = 8;
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(UserJobTestConfiguration.class, RemotePartitionUserConfiguration.class);
+
+    @Test
+    void manager_step_through_channels() {
+        contextRunner.run(context -> {
+
+            // Given : 짝수 id user만 레벨업 대상 (주문 금액 200,000)
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+
+            for (int i = 1; i <= USER_COUNT; i++) {
+                jdbcTemplate.update("insert into user(username, level) values (?, 'NORMAL')", "test username" + i);
+                jdbcTemplate.update("insert into orders(item_name, amount, created_date, user_id) values ('item', ?, '2020-11-01', ?)",
+                        i % 2 == 0 ? 200_000 : 1_000, i);
+            }
+
+            List<StepExecution> replies = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch replied = new CountDownLatch(GRID_SIZE);
+
+            context.getBean(JOB_NAME + "_replies", AbstractMessageChannel.class).addInterceptor(new ChannelInterceptor() {
+                @Override
+                public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
+                    replies.add((StepExecution) message.getPayload());
+                    replied.countDown();
+                }
+            });
+
+            // When
+            JobExecution jobExecution = jobLauncherTestUtils(context).launchStep(MANAGER_STEP);
+
+            // Then : worker가 job repository에 기록한 slave StepExecution
+            List<StepExecution> workerStepExecutions = context.getBean(JobExplorer.class)
+                    .getJobExecution(jobExecution.getId())
+                    .getStepExecutions().stream()
+                    .filter(stepExecution -> stepExecution.getStepName().startsWith(WORKER_STEP + ":"))
+                    .collect(Collectors.toList());
+
+            Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+            Assertions.assertThat(workerStepExecutions).hasSize(GRID_SIZE)
+                    .allSatisfy(stepExecution -> Assertions.assertThat(stepExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED));
+            Assertions.assertThat(workerStepExecutions.stream().mapToInt(StepExecution::getReadCount).sum()).isEqualTo(USER_COUNT);
+            Assertions.assertThat(workerStepExecutions.stream().mapToInt(StepExecution::getWriteCount).sum()).isEqualTo(USER_COUNT / 2);
+
+            // worker 결과가 manager StepExecution에 합산됨
+            Assertions.assertThat(jobExecution.getStepExecutions())
+                    .filteredOn(stepExecution -> stepExecution.getStepName().equals(MANAGER_STEP))
+                    .singleElement()
+                    .satisfies(stepExecution -> Assertions.assertThat(stepExecution.getWriteCount()).isEqualTo(USER_COUNT / 2));
+
+            // worker 마다 replies 채널로 결과 응답
+            Assertions.assertThat(replied.await(5, TimeUnit.SECONDS)).isTrue();
+            Assertions.assertThat(replies).extracting(StepExecution::getStepName)
+                    .containsExactlyInAnyOrderElementsOf(workerStepExecutions.stream()
+                            .map(StepExecution::getStepName)
+                            .collect(Collectors.toList()));
+            Assertions.assertThat(replies)
+                    .allSatisfy(stepExecution -> Assertions.assertThat(stepExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED));
+
+            Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from user where level = 'SILVER'", Integer.class))
+                    .isEqualTo(USER_COUNT / 2);
+        });
+    }
+
+    @Test
+    void manager_only() {
+        contextRunner.withPropertyValues("remote-partition.role=manager").run(context -> {
+            Assertions.assertThat(context)
+                    .hasBean(JOB_NAME)
+                    .hasBean(MANAGER_STEP)
+                    .hasBean(JOB_NAME + "_partitionHandler")
+                    .doesNotHaveBean(WORKER_STEP)
+                    .doesNotHaveBean(JOB_NAME + "_stepExecutionRequestHandler")
+                    .doesNotHaveBean(JOB_NAME + "_stepExecutionRequestActivator");
+        });
+    }
+
+    @Test
+    void worker_only() {
+        contextRunner.withPropertyValues("remote-partition.role=worker").run(context -> {
+            Assertions.assertThat(context)
+                    .hasBean(WORKER_STEP)
+                    .hasBean(JOB_NAME + "_stepExecutionRequestHandler")
+                    .hasBean(JOB_NAME + "_stepExecutionRequestActivator")
+                    .doesNotHaveBean(JOB_NAME)
+                    .doesNotHaveBean(MANAGER_STEP)
+                    .doesNotHaveBean(JOB_NAME + "_partitionHandler");
+        });
+    }
+
+    private JobLauncherTestUtils jobLauncherTestUtils(ApplicationContext context) {
+        JobLauncherTestUtils jobLauncherTestUtils = new JobLauncherTestUtils();
+        jobLauncherTestUtils.setJob(context.getBean(JOB_NAME, Job.class));
+        jobLauncherTestUtils.setJobLauncher(context.getBean(JobLauncher.class));
+        jobLauncherTestUtils.setJobRepository(context.getBean(JobRepository.class));
+
+        return jobLauncherTestUtils;
+    }
+}
@@ -0,0 +1,102 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class UserBulkLoadTaskletTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserBulkLoadTasklet tasklet;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:user_bulk_load;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table user (id bigint auto_increment primary key, username varchar(255), level varchar(255), updated_date date)");
+        jdbcTemplate.execute("create table orders (id bigint auto_increment primary key, item_name varchar(255), amount int, created_date date, user_id bigint)");
+        jdbcTemplate.update("insert into user(username, level) values ('existing user', 'NORMAL')");
+
+        tasklet = new UserBulkLoadTasklet(dataSource, 1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table orders");
+        jdbcTemplate.execute("drop table user");
+    }
+
+    @Test
+    void bulk_load() throws Exception {
+
+        // Given
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(
+                new JobParametersBuilder().addLong(UserBulkLoadTasklet.USER_COUNT_PARAMETER, 2_500L).toJobParameters());
+        StepContribution contribution = stepExecution.createStepContribution();
+
+        // When
+        int executeCount = 0;
+        RepeatStatus status;
+
+        do {
+            status = tasklet.execute(contribution, null);
+            executeCount++;
+        } while (status.isContinuable());
+
+        // Then
+        Assertions.assertThat(executeCount).isEqualTo(3); // 1,000 + 1,000 + 500
+        Assertions.assertThat(contribution.getWriteCount()).isEqualTo(2_500);
+
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from user", Integer.class))
+                .isEqualTo(2_501);
+
+        // 모든 주문이 새로 적재한 user를 참조
+        Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from orders o join user u on u.id = o.user_id where u.id > 1", Integer.class))
+                .isEqualTo(2_500);
+
+        // 금액 그룹이 한쪽으로 몰리지 않음
+        Assertions.assertThat(jdbcTemplate.queryForList("select count(*) from orders group by amount", Integer.class))
+                .hasSize(4)
+                .allSatisfy(count -> Assertions.assertThat(count).isBetween(500, 750));
+
+        // 적재 후에도 IDENTITY로 id를 생성하는 insert (JPA save)가 중복 id 없이 가능
+        jdbcTemplate.update("insert into user(username, level) values ('new user', 'NORMAL')");
+
+        Assertions.assertThat(jdbcTemplate.queryForObject("select id from user where username = 'new user'", Long.class))
+                .isEqualTo(2_502L);
+    }
+
+    @Test
+    void bulk_load_with_concurrent_user_insert() throws Exception {
+
+        // Given
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(
+                new JobParametersBuilder().addLong(UserBulkLoadTasklet.USER_COUNT_PARAMETER, 2_000L).toJobParameters());
+        StepContribution contribution = stepExecution.createStepContribution();
+
+        // When : 첫 번째 batch 이후 다른 곳에서 user를 insert
+        tasklet.execute(contribution, null);
+        jdbcTemplate.update("insert into user(username, level) values ('other user', 'NORMAL')");
+        tasklet.execute(contribution, null);
+
+        // Then : 다른 user와 id가 겹치지 않고, 주문은 모두 적재한 user만 참조
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from user", Integer.class))
+                .isEqualTo(2_002);
+        Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from orders o join user u on u.id = o.user_id where u.username like 'test username%'", Integer.class))
+                .isEqualTo(2_000);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(distinct user_id) from orders", Integer.class))
+                .isEqualTo(2_000);
+    }
+}
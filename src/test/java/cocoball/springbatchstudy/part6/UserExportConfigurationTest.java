@@ -0,0 +1,84 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// users.colb로 export 한 뒤 ColumnarItemReader로 다시 읽는 summary step까지 실행
+class UserExportConfigurationTest {
+
+    private static final String JOB_NAME = "userExportJob";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void export_and_read_back() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(UserJobTestConfiguration.class, UserExportConfiguration.class)
+                .run(context -> {
+
+                    // Given : NORMAL 3명, SILVER 2명, GOLD 1명
+                    JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+                    String[] levels = {"NORMAL", "SILVER", "NORMAL", "GOLD", "SILVER", "NORMAL"};
+
+                    for (int i = 0; i < levels.length; i++) {
+                        jdbcTemplate.update("insert into user(username, level) values (?, ?)", "test username" + i, levels[i]);
+                    }
+
+                    // When
+                    JobExecution jobExecution = context.getBean(JobLauncher.class).run(context.getBean(JOB_NAME, Job.class),
+                            new JobParametersBuilder()
+                                    .addString("path", tempDir.toString() + "/")
+                                    .toJobParameters());
+
+                    // Then
+                    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+                    Assertions.assertThat(tempDir.resolve("users.colb")).exists();
+
+                    Assertions.assertThat(jobExecution.getStepExecutions())
+                            .filteredOn(stepExecution -> stepExecution.getStepName().equals(JOB_NAME + "_userExportSummaryStep"))
+                            .singleElement()
+                            .satisfies(stepExecution -> {
+                                Assertions.assertThat(stepExecution.getReadCount()).isEqualTo(levels.length);
+                                Assertions.assertThat(stepExecution.getExecutionContext().getLong("level.NORMAL")).isEqualTo(3);
+                                Assertions.assertThat(stepExecution.getExecutionContext().getLong("level.SILVER")).isEqualTo(2);
+                                Assertions.assertThat(stepExecution.getExecutionContext().getLong("level.GOLD")).isEqualTo(1);
+                            });
+                });
+    }
+
+    // 재시작 : 이전 실행에서 commit 된 인원부터 이어서 집계 (reader도 마지막 commit 위치부터 읽음)
+    @Test
+    void continue_level_counts_on_restart() {
+
+        // Given : 이전 실행에서 NORMAL 2명, SILVER 1명까지 commit
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.putLong("level.NORMAL", 2);
+        executionContext.putLong("level.SILVER", 1);
+
+        UserExportConfiguration.LevelCountItemWriter itemWriter = new UserExportConfiguration.LevelCountItemWriter();
+
+        // When
+        itemWriter.open(executionContext);
+        itemWriter.write(Arrays.asList("NORMAL", "GOLD", "SILVER"));
+        itemWriter.update(executionContext);
+
+        // Then
+        Assertions.assertThat(executionContext.getLong("level.NORMAL")).isEqualTo(3);
+        Assertions.assertThat(executionContext.getLong("level.SILVER")).isEqualTo(2);
+        Assertions.assertThat(executionContext.getLong("level.GOLD")).isEqualTo(1);
+    }
+}
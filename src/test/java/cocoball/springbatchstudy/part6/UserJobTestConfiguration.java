@@ -0,0 +1,92 @@
+package cocoball.springbatchstudy.part6;
+
+import cocoball.springbatchstudy.VirtualThreadTaskExecutorFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.mockito.Mockito;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.config.EnableIntegration;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * part6 job 설정(RemotePartition, MultiThread, Async 등)을 spring boot 없이 띄우기 위한 테스트 설정
+ * - user는 H2의 예약어이므로 MySQL 모드 + NON_KEYWORDS 설정, context 마다 별도의 메모리 DB (커넥션 풀이 닫히면 삭제됨)
+ * - part6 엔티티로 테이블 생성 (spring boot와 같은 naming strategy), job repository 테이블은 spring batch의 schema-h2.sql
+ * - task.executor=virtual 이면 SpringBatchStudyApplication과 같이 virtual thread TaskExecutor 사용
+ */
+@Configuration
+@EnableBatchProcessing
+@EnableIntegration
+public class UserJobTestConfiguration {
+
+    private static final int POOL_SIZE = 10;
+
+    @Bean
+    DataSource dataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;NON_KEYWORDS=USER");
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+
+        DatabasePopulatorUtils.execute(
+                new ResourceDatabasePopulator(new ClassPathResource("org/springframework/batch/core/schema-h2.sql")), dataSource);
+
+        return dataSource;
+    }
+
+    @Bean
+    LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(User.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+
+        Map<String, Object> jpaProperties = new HashMap<>();
+        jpaProperties.put("hibernate.hbm2ddl.auto", "create-drop");
+        jpaProperties.put("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName());
+        jpaProperties.put("hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+        factoryBean.setJpaPropertyMap(jpaProperties);
+
+        return factoryBean;
+    }
+
+    // job listener에서만 사용 (테스트에서는 step만 실행)
+    @Bean
+    UserRepostiory userRepostiory() {
+        return Mockito.mock(UserRepostiory.class);
+    }
+
+    // spring integration의 taskScheduler도 TaskExecutor이므로 Primary로 지정
+    @Bean
+    @Primary
+    TaskExecutor taskExecutor(Environment environment) {
+
+        if ("virtual".equals(environment.getProperty("task.executor"))) {
+            return VirtualThreadTaskExecutorFactory.create("test_vthread-", POOL_SIZE - 1)
+                    .orElseThrow(() -> new IllegalStateException("virtual thread를 지원하지 않는 JVM"));
+        }
+
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(10);
+        taskExecutor.setMaxPoolSize(20);
+        taskExecutor.setThreadNamePrefix("test_thread-");
+        taskExecutor.initialize();
+
+        return taskExecutor;
+    }
+}
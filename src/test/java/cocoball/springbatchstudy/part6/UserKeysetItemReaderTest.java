@@ -0,0 +1,161 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+class UserKeysetItemReaderTest {
+
+    private static final int USER_COUNT = 25;
+    private static final int PAGE_SIZE = 10;
+
+    private EntityManagerFactory entityManagerFactory;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // user는 H2의 예약어이므로 MySQL 모드 + NON_KEYWORDS 설정
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:user_keyset;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // part6 엔티티만 등록 (다른 part에도 같은 이름의 User 엔티티가 있음)
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(User.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Map<String, Object> jpaProperties = new HashMap<>();
+        jpaProperties.put("hibernate.hbm2ddl.auto", "create-drop");
+        // spring boot와 같은 컬럼 이름 (itemName -> item_name)
+        jpaProperties.put("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName());
+        jpaProperties.put("hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+        factoryBean.setJpaPropertyMap(jpaProperties);
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        for (int i = 1; i <= USER_COUNT; i++) {
+            jdbcTemplate.update("insert into user(username, level) values (?, 'NORMAL')", "test username" + i);
+        }
+
+        // 주문은 앞쪽 user 2명만 (EAGER로 함께 조회)
+        jdbcTemplate.update("insert into orders(item_name, amount, created_date, user_id) values ('item1', 1000, '2020-11-01', 1)");
+        jdbcTemplate.update("insert into orders(item_name, amount, created_date, user_id) values ('item2', 2000, '2020-11-02', 2)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void read_all_pages_in_id_order() {
+
+        // Given
+        UserKeysetItemReader itemReader = new UserKeysetItemReader("userItemReader", entityManagerFactory, PAGE_SIZE);
+
+        // When
+        itemReader.open(new ExecutionContext());
+        List<User> users = readAll(itemReader);
+        itemReader.close();
+
+        // Then : 10 + 10 + 5건, 페이지 경계에서 빠지거나 중복된 user 없음
+        Assertions.assertThat(users).extracting(User::getId).containsExactlyElementsOf(ids(1, USER_COUNT));
+        Assertions.assertThat(users.get(0).getOrders()).hasSize(1);
+    }
+
+    @Test
+    void seek_within_id_range() {
+
+        // Given : minId, maxId 모두 포함
+        UserKeysetItemReader itemReader = new UserKeysetItemReader("userItemReader", entityManagerFactory, PAGE_SIZE, 5, 17);
+
+        // When
+        itemReader.open(new ExecutionContext());
+        List<User> users = readAll(itemReader);
+        itemReader.close();
+
+        // Then
+        Assertions.assertThat(users).extracting(User::getId).containsExactlyElementsOf(ids(5, 17));
+    }
+
+    @Test
+    void restart_from_saved_last_id() {
+
+        // Given : 12건(두 번째 페이지 중간)까지 읽고 위치 저장 후 중단
+        ExecutionContext executionContext = new ExecutionContext();
+
+        UserKeysetItemReader itemReader = new UserKeysetItemReader("userItemReader", entityManagerFactory, PAGE_SIZE);
+        itemReader.open(executionContext);
+
+        for (int i = 0; i < 12; i++) {
+            itemReader.read();
+        }
+
+        itemReader.update(executionContext);
+        itemReader.close();
+
+        // When : 같은 ExecutionContext로 새 reader를 열면 13번째 user부터 읽음
+        UserKeysetItemReader restartedItemReader = new UserKeysetItemReader("userItemReader", entityManagerFactory, PAGE_SIZE);
+        restartedItemReader.open(executionContext);
+        List<User> users = readAll(restartedItemReader);
+        restartedItemReader.close();
+
+        // Then
+        Assertions.assertThat(executionContext.getLong("userItemReader.lastId")).isEqualTo(12L);
+        Assertions.assertThat(users).extracting(User::getId).containsExactlyElementsOf(ids(13, USER_COUNT));
+    }
+
+    @Test
+    void no_restart_position_without_save_state() {
+
+        // Given : 멀티 스레드 step 설정
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.putLong("userItemReader.lastId", 20L); // 이전 실행에서 저장된 위치가 있어도 사용하지 않음
+
+        UserKeysetItemReader itemReader = new UserKeysetItemReader("userItemReader", entityManagerFactory, PAGE_SIZE);
+        itemReader.setSaveState(false);
+
+        // When
+        itemReader.open(executionContext);
+        List<User> users = readAll(itemReader);
+
+        ExecutionContext updated = new ExecutionContext();
+        itemReader.update(updated);
+        itemReader.close();
+
+        // Then
+        Assertions.assertThat(users).extracting(User::getId).containsExactlyElementsOf(ids(1, USER_COUNT));
+        Assertions.assertThat(updated.containsKey("userItemReader.lastId")).isFalse();
+    }
+
+    private List<User> readAll(UserKeysetItemReader itemReader) {
+        List<User> users = new ArrayList<>();
+
+        User user;
+        while ((user = itemReader.read()) != null) {
+            users.add(user);
+        }
+
+        return users;
+    }
+
+    private List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+}
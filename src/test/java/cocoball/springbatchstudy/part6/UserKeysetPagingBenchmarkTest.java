@@ -0,0 +1,138 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// ./gradlew test -Dbenchmark=true 로 실행했을 때만 동작
+// UserKeysetItemReader(JPQL + setMaxResults)로 테이블 앞쪽 / 뒤쪽 페이지를 읽는 시간을 비교 (같은 엔티티 조회의 OFFSET 페이징과도 비교)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserKeysetPagingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserKeysetPagingBenchmarkTest.class);
+
+    private static final int USER_COUNT = 1_000_000;
+    private static final int PAGE_SIZE = 1000;
+    private static final int REPEAT = 5;
+
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        // user는 H2의 예약어이므로 MySQL 모드 + NON_KEYWORDS 설정
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:user_keyset_benchmark;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+
+        // part6 엔티티로 테이블 생성 (spring boot와 같은 naming strategy)
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(User.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Map<String, Object> jpaProperties = new HashMap<>();
+        jpaProperties.put("hibernate.hbm2ddl.auto", "create-drop");
+        jpaProperties.put("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName());
+        jpaProperties.put("hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+        factoryBean.setJpaPropertyMap(jpaProperties);
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        new JdbcTemplate(dataSource).execute("insert into user(username, level) "
+                + "select concat('test username', x), 'NORMAL' from system_range(1, " + USER_COUNT + ")");
+    }
+
+    @AfterEach
+    void tearDown() {
+        factoryBean.destroy(); // create-drop
+    }
+
+    @Test
+    void page_latency() {
+
+        long keysetFirst = 0, keysetLast = 0, offsetLast = 0;
+
+        // 테이블 앞쪽 -> 뒤쪽으로 갈수록 페이지 조회 시간이 어떻게 변하는지 측정
+        for (int depth = 0; depth <= 10; depth++) {
+            long offset = (long) (USER_COUNT - PAGE_SIZE) * depth / 10;
+
+            long keysetNanos = measure(() -> readKeysetPage(offset));
+            long offsetNanos = measure(() -> readOffsetPage(offset));
+
+            log.info("offset : {}, keyset 페이징(UserKeysetItemReader) : {}us, OFFSET 페이징 : {}us", offset, keysetNanos / 1000, offsetNanos / 1000);
+
+            if (depth == 0) {
+                keysetFirst = keysetNanos;
+            }
+
+            keysetLast = keysetNanos;
+            offsetLast = offsetNanos;
+        }
+
+        log.info("keyset 페이징 마지막 페이지 / 첫 페이지 : {}배", String.format("%.2f", (double) keysetLast / Math.max(keysetFirst, 1)));
+
+        // keyset 페이징은 테이블 끝에서도 첫 페이지와 비슷한 시간 (OFFSET 페이징은 건너뛰는 row 수에 비례)
+        Assertions.assertThat(keysetLast).isLessThan(keysetFirst * 3);
+        Assertions.assertThat(keysetLast).isLessThan(offsetLast);
+    }
+
+    // offset 번째 user(id = offset + 1)부터 한 페이지를 reader로 읽음
+    private void readKeysetPage(long offset) {
+        UserKeysetItemReader itemReader = new UserKeysetItemReader("benchmarkReader", entityManagerFactory, PAGE_SIZE, offset + 1, Long.MAX_VALUE);
+        itemReader.open(new ExecutionContext());
+
+        try {
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                Assertions.assertThat(itemReader.read()).isNotNull();
+            }
+        } finally {
+            itemReader.close();
+        }
+    }
+
+    // 같은 엔티티 조회를 OFFSET/LIMIT(setFirstResult)로 수행
+    private void readOffsetPage(long offset) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+        try {
+            List<User> users = entityManager.createQuery("select u from User u order by u.id", User.class)
+                    .setFirstResult((int) offset)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+
+            Assertions.assertThat(users).hasSize(PAGE_SIZE);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private long measure(Runnable page) {
+        page.run(); // warm up
+
+        long best = Long.MAX_VALUE;
+
+        for (int i = 0; i < REPEAT; i++) {
+            long start = System.nanoTime();
+            page.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        return best;
+    }
+}
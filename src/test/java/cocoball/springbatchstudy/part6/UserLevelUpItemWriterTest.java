@@ -0,0 +1,78 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+class UserLevelUpItemWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserLevelUpItemWriter<UserTotalAmount> itemWriter;
+
+    @BeforeEach
+    void setUp() {
+        // user는 H2의 예약어이므로 MySQL 모드 + NON_KEYWORDS 설정
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:user_level_up;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table user (id bigint primary key, username varchar(255), level varchar(255), updated_date date)");
+        for (long id = 1; id <= 4; id++) {
+            jdbcTemplate.update("insert into user(id, username, level) values (?, ?, 'NORMAL')", id, "test username" + id);
+        }
+
+        itemWriter = UserLevelUpItemWriter.forUserTotalAmount(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table user");
+    }
+
+    @Test
+    void write_level_up() {
+
+        // Given
+        UserTotalAmount silver = userTotalAmount(1, 200_000);
+        UserTotalAmount gold = userTotalAmount(2, 300_000);
+        UserTotalAmount vip = userTotalAmount(3, 500_000);
+        UserTotalAmount anotherSilver = userTotalAmount(4, 250_000);
+
+        // When
+        itemWriter.write(Arrays.asList(silver, gold, vip, anotherSilver));
+
+        // Then
+        Assertions.assertThat(jdbcTemplate.queryForList("select level from user order by id", String.class))
+                .containsExactly("SILVER", "GOLD", "VIP", "SILVER");
+
+        Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from user where updated_date = ?", Integer.class, LocalDate.now()))
+                .isEqualTo(4);
+    }
+
+    @Test
+    void write_not_exist_user() {
+
+        // Given
+        UserTotalAmount notExist = userTotalAmount(100, 200_000);
+
+        // When, Then
+        Assertions.assertThatThrownBy(() -> itemWriter.write(Arrays.asList(userTotalAmount(1, 200_000), notExist)))
+                .isInstanceOf(EmptyResultDataAccessException.class);
+    }
+
+    private UserTotalAmount userTotalAmount(long userId, long totalAmount) {
+        return UserTotalAmount.builder()
+                .userId(userId)
+                .level(Level.NORMAL)
+                .totalAmount(totalAmount)
+                .build();
+    }
+}
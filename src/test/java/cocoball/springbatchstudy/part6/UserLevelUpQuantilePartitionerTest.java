@@ -0,0 +1,69 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Map;
+
+class UserLevelUpQuantilePartitionerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserLevelUpQuantilePartitioner partitioner;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:user_partition;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table user (id bigint primary key, username varchar(255), level varchar(255), updated_date date)");
+
+        // 1 ~ 1,000 : 전부 존재, 1,001 ~ 10,000 : 10건 중 1건만 존재 (삭제된 user가 많은 구간)
+        jdbcTemplate.execute("insert into user(id, username, level) select x, 'test', 'NORMAL' from system_range(1, 1000)");
+        jdbcTemplate.execute("insert into user(id, username, level) select x, 'test', 'NORMAL' from system_range(1001, 10000) where mod(x, 10) = 0");
+
+        partitioner = new UserLevelUpQuantilePartitioner(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table user");
+    }
+
+    @Test
+    void partition_by_row_count() {
+
+        // When
+        Map<String, ExecutionContext> partitions = partitioner.partition(4);
+
+        // Then
+        Assertions.assertThat(partitions).hasSize(4);
+
+        long total = 0;
+
+        for (int number = 0; number < 4; number++) {
+            ExecutionContext context = partitions.get("partition" + number);
+
+            long minId = context.getLong("minId");
+            long maxId = context.getLong("maxId");
+            long expectedSize = context.getLong(UserLevelUpQuantilePartitioner.EXPECTED_SIZE_KEY);
+
+            // 전체 1,900건을 4개로 나누면 파티션 당 475건
+            Assertions.assertThat(expectedSize).isEqualTo(475);
+            Assertions.assertThat(jdbcTemplate.queryForObject(
+                    "select count(*) from user where id between ? and ?", Long.class, minId, maxId))
+                    .isEqualTo(expectedSize);
+
+            total += expectedSize;
+        }
+
+        Assertions.assertThat(total).isEqualTo(1_900);
+        Assertions.assertThat(partitions.get("partition0").getLong("minId")).isEqualTo(1);
+        Assertions.assertThat(partitions.get("partition3").getLong("maxId")).isEqualTo(10_000);
+    }
+}
@@ -0,0 +1,111 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.StepRunner;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * multiThreadUserJob(chunk 단위 멀티 스레드), asyncUserJob(아이템 단위 AsyncItemProcessor)의 userLevelUpStep을
+ * 기존 스레드 풀과 virtual thread TaskExecutor(task.executor=virtual)로 각각 실행해서 처리량 비교
+ * - TaskExecutorBenchmarkTest는 JDBC 대기 패턴만 흉내내지만, 여기서는 실제 step(keyset reader, processor, JDBC batch writer)을 실행
+ * - virtual thread는 Java 21 이상에서만 측정됨 (keyset reader는 ReentrantLock을 사용하므로 reader lock 대기 중에는 pinning 없음)
+ *   pinning 확인 : -Djdk.tracePinnedThreads=short 로 실행하면 JDBC 대기 중 고정된 스택이 출력됨
+ * ./gradlew test -Dbenchmark=true 로 실행했을 때만 동작
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserLevelUpStepBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserLevelUpStepBenchmarkTest.class);
+
+    private static final long USER_COUNT = 100_000;
+    private static final int REPEAT = 3;
+
+    @Test
+    void multi_thread_user_job() {
+        compare("multiThreadUserJob", MultiThreadUserConfiguration.class);
+    }
+
+    @Test
+    void async_user_job() {
+        compare("asyncUserJob", AsyncUserConfiguration.class);
+    }
+
+    private void compare(String jobName, Class<?> configuration) {
+
+        for (String taskExecutor : new String[]{"platform", "virtual"}) {
+
+            if ("virtual".equals(taskExecutor) && !virtualThreadSupported()) {
+                log.info("[{}] virtual thread : 지원하지 않는 JVM", jobName);
+                continue;
+            }
+
+            new ApplicationContextRunner()
+                    .withUserConfiguration(UserJobTestConfiguration.class, configuration)
+                    .withPropertyValues("task.executor=" + taskExecutor)
+                    .run(context -> {
+                        double throughput = 0;
+
+                        for (int i = 0; i < REPEAT; i++) {
+                            throughput = Math.max(throughput, throughput(context, jobName));
+                        }
+
+                        log.info("[{}] {} : {} users/s", jobName, taskExecutor, String.format("%.1f", throughput));
+                    });
+        }
+    }
+
+    // 매번 user를 새로 적재하고 (saveUserStep) userLevelUpStep만 측정
+    private double throughput(ApplicationContext context, String jobName) {
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.execute("delete from orders");
+        jdbcTemplate.execute("delete from user");
+
+        StepRunner stepRunner = new StepRunner(context.getBean(JobLauncher.class), context.getBean(JobRepository.class));
+        stepRunner.launchStep(context.getBean(jobName + "_saveUserStep", Step.class), jobParameters());
+
+        long start = System.nanoTime();
+        JobExecution jobExecution = stepRunner.launchStep(context.getBean(jobName + "_userLevelUpStep", Step.class), jobParameters());
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+
+        Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        Assertions.assertThat(stepExecution.getReadCount()).isEqualTo(USER_COUNT);
+
+        return stepExecution.getReadCount() / seconds;
+    }
+
+    // StepRunner는 매번 같은 이름의 job으로 실행하므로 실행마다 다른 파라미터
+    private JobParameters jobParameters() {
+        return new JobParametersBuilder()
+                .addLong(UserBulkLoadTasklet.USER_COUNT_PARAMETER, USER_COUNT)
+                .addLong("run.id", System.nanoTime())
+                .toJobParameters();
+    }
+
+    private boolean virtualThreadSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package cocoball.springbatchstudy.part6;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.partition.StepExecutionSplitter;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class WorkStealingPartitionHandlerTest {
+
+    private static final int SLICE_COUNT = 20;
+
+    private final Map<String, String> executedBy = new ConcurrentHashMap<>(); // slice -> 실행한 worker 스레드
+    private final Set<StepExecution> slices = new LinkedHashSet<>(); // splitter가 만든 slice
+
+    private String failingSlice; // 예외를 던질 slice
+
+    private EmbeddedDatabase dataSource; // slice 상태가 저장되는 job repository
+    private JobRepository jobRepository;
+    private StepExecution managerStepExecution;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:org/springframework/batch/core/schema-h2.sql")
+                .build();
+
+        JobRepositoryFactoryBean factoryBean = new JobRepositoryFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setTransactionManager(new DataSourceTransactionManager(dataSource));
+        factoryBean.afterPropertiesSet();
+        jobRepository = factoryBean.getObject();
+
+        JobExecution jobExecution = jobRepository.createJobExecution("workStealingJob", new JobParameters());
+        managerStepExecution = jobExecution.createStepExecution("manager");
+        jobRepository.add(managerStepExecution);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void handle() throws Exception {
+
+        // Given
+        WorkStealingPartitionHandler handler = new WorkStealingPartitionHandler();
+        handler.setStep(sliceStep());
+        handler.setTaskExecutor(new SimpleAsyncTaskExecutor("worker-"));
+        handler.setJobRepository(jobRepository);
+        handler.setGridSize(SLICE_COUNT);
+        handler.setWorkerCount(4);
+        handler.afterPropertiesSet();
+
+        // When
+        Collection<StepExecution> result = handler.handle(splitter(), managerStepExecution);
+
+        // Then
+        Assertions.assertThat(result).hasSize(SLICE_COUNT)
+                .allSatisfy(stepExecution -> Assertions.assertThat(stepExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED));
+
+        Assertions.assertThat(executedBy).hasSize(SLICE_COUNT); // 모든 slice가 실행됨
+
+        // 느린 slice를 처리하는 동안 나머지 slice는 다른 worker들이 가져감
+        String slowWorker = executedBy.get("slice:partition0");
+        Assertions.assertThat(executedBy.values().stream().filter(slowWorker::equals).count()).isEqualTo(1);
+    }
+
+    @Test
+    void handle_worker_failure() throws Exception {
+
+        // Given : worker 1개가 처리 중인 slice에서 step 밖으로 예외가 던져짐
+        failingSlice = "slice:partition5";
+
+        WorkStealingPartitionHandler handler = new WorkStealingPartitionHandler();
+        handler.setStep(sliceStep());
+        handler.setTaskExecutor(new SimpleAsyncTaskExecutor("worker-"));
+        handler.setJobRepository(jobRepository);
+        handler.setGridSize(SLICE_COUNT);
+        handler.setWorkerCount(2);
+        handler.afterPropertiesSet();
+
+        // When
+        Assertions.assertThatThrownBy(() -> handler.handle(splitter(), managerStepExecution))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("slice failed");
+
+        // Then : 예외를 던지기 전에 다른 worker가 끝날 때까지 기다리므로 실행 중 상태로 남은 slice가 없음
+        Assertions.assertThat(slices).hasSize(SLICE_COUNT)
+                .allSatisfy(stepExecution -> Assertions.assertThat(stepExecution.getStatus())
+                        .isIn(BatchStatus.COMPLETED, BatchStatus.FAILED));
+
+        Assertions.assertThat(slices)
+                .filteredOn(stepExecution -> stepExecution.getStepName().equals(failingSlice))
+                .singleElement()
+                .satisfies(stepExecution -> Assertions.assertThat(stepExecution.getStatus()).isEqualTo(BatchStatus.FAILED));
+
+        // 남은 slice는 다른 worker가 모두 처리
+        Assertions.assertThat(executedBy).hasSize(SLICE_COUNT - 1);
+
+        // 실패 상태가 job repository에도 저장됨
+        Assertions.assertThat(storedStatus(failingSlice)).isEqualTo(BatchStatus.FAILED);
+    }
+
+    // TaskExecutor가 worker를 모두 거절 : 처리되지 못한 slice가 STARTING으로 남지 않고 FAILED로 저장됨
+    @Test
+    void handle_rejected_workers() throws Exception {
+
+        // Given
+        TaskExecutor rejectingTaskExecutor = task -> {
+            throw new TaskRejectedException("rejected");
+        };
+
+        WorkStealingPartitionHandler handler = new WorkStealingPartitionHandler();
+        handler.setStep(sliceStep());
+        handler.setTaskExecutor(rejectingTaskExecutor);
+        handler.setJobRepository(jobRepository);
+        handler.setGridSize(SLICE_COUNT);
+        handler.setWorkerCount(4);
+        handler.afterPropertiesSet();
+
+        // When
+        Collection<StepExecution> result = handler.handle(splitter(), managerStepExecution);
+
+        // Then
+        Assertions.assertThat(executedBy).isEmpty();
+        Assertions.assertThat(result).hasSize(SLICE_COUNT)
+                .allSatisfy(stepExecution -> {
+                    Assertions.assertThat(stepExecution.getStatus()).isEqualTo(BatchStatus.FAILED);
+                    Assertions.assertThat(stepExecution.getExitStatus().getExitCode()).isEqualTo(ExitStatus.FAILED.getExitCode());
+                    Assertions.assertThat(storedStatus(stepExecution.getStepName())).isEqualTo(BatchStatus.FAILED);
+                });
+    }
+
+    // 첫 번째 slice만 오래 걸리게 해서 다른 worker들이 나머지 slice를 가져가는지 확인
+    private Step sliceStep() {
+        return new Step() {
+            @Override
+            public String getName() {
+                return "slice";
+            }
+
+            @Override
+            public boolean isAllowStartIfComplete() {
+                return false;
+            }
+
+            @Override
+            public int getStartLimit() {
+                return Integer.MAX_VALUE;
+            }
+
+            @Override
+            public void execute(StepExecution stepExecution) {
+                if (stepExecution.getStepName().equals("slice:partition0")) {
+                    sleep(300);
+                }
+
+                if (stepExecution.getStepName().equals(failingSlice)) {
+                    throw new IllegalStateException("slice failed");
+                }
+
+                executedBy.put(stepExecution.getStepName(), Thread.currentThread().getName());
+                stepExecution.setStatus(BatchStatus.COMPLETED);
+                jobRepository.update(stepExecution);
+            }
+        };
+    }
+
+    private StepExecutionSplitter splitter() {
+        return new StepExecutionSplitter() {
+            @Override
+            public String getStepName() {
+                return "slice";
+            }
+
+            @Override
+            public Set<StepExecution> split(StepExecution stepExecution, int gridSize) {
+                // SimpleStepExecutionSplitter와 같이 slice를 job repository에 STARTING 상태로 저장
+                for (int i = 0; i < gridSize; i++) {
+                    StepExecution slice = stepExecution.getJobExecution().createStepExecution("slice:partition" + i);
+                    jobRepository.add(slice);
+                    slices.add(slice);
+                }
+
+                return new LinkedHashSet<>(slices);
+            }
+        };
+    }
+
+    private BatchStatus storedStatus(String stepName) {
+        return jobRepository.getLastStepExecution(managerStepExecution.getJobExecution().getJobInstance(), stepName).getStatus();
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}